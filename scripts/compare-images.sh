@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Builds the JVM and native images and compares startup time, RSS and steady-state throughput.
+# Usage: scripts/compare-images.sh [requests] [concurrency]
+# Writes a Markdown report to target/image-comparison.md
+set -euo pipefail
+
+REQUESTS=${1:-5000}
+CONCURRENCY=${2:-16}
+REPORT=target/image-comparison.md
+PORT=18080
+
+mkdir -p target
+
+measure() {
+    local target=$1
+    local image="devops-demo:${target}"
+    local name="devops-demo-compare-${target}"
+
+    docker build -q --target "${target}" -t "${image}" . > /dev/null
+
+    local start end ready_ms
+    start=$(date +%s%N)
+    docker run -d --rm --name "${name}" -p "${PORT}:8080" "${image}" > /dev/null
+    until curl -sf "http://localhost:${PORT}/actuator/health/readiness" > /dev/null; do
+        sleep 0.05
+    done
+    end=$(date +%s%N)
+    ready_ms=$(( (end - start) / 1000000 ))
+
+    local rss_idle rss_load
+    rss_idle=$(docker stats --no-stream --format '{{.MemUsage}}' "${name}" | cut -d/ -f1 | xargs)
+
+    # Warm up, then measure throughput on a cheap read endpoint
+    seq 500 | xargs -P "${CONCURRENCY}" -I{} curl -s -o /dev/null "http://localhost:${PORT}/api/v1/tasks"
+    local t0 t1 rps
+    t0=$(date +%s%N)
+    seq "${REQUESTS}" | xargs -P "${CONCURRENCY}" -I{} curl -s -o /dev/null "http://localhost:${PORT}/api/v1/tasks"
+    t1=$(date +%s%N)
+    rps=$(( REQUESTS * 1000000000 / (t1 - t0) ))
+    rss_load=$(docker stats --no-stream --format '{{.MemUsage}}' "${name}" | cut -d/ -f1 | xargs)
+
+    docker stop "${name}" > /dev/null
+    echo "| ${target} | ${ready_ms} | ${rss_idle} | ${rss_load} | ${rps} |"
+}
+
+{
+    echo "# JVM vs native image"
+    echo
+    echo "Generated $(date -u +%Y-%m-%dT%H:%M:%SZ), ${REQUESTS} requests at concurrency ${CONCURRENCY}."
+    echo
+    echo "| Image | Time to ready (ms) | RSS idle | RSS after load | Throughput (req/s) |"
+    echo "|-------|--------------------|----------|----------------|--------------------|"
+    measure jvm
+    measure native
+} | tee "${REPORT}"
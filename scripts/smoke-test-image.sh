@@ -0,0 +1,69 @@
+#!/usr/bin/env bash
+# Starts the JVM image with the production profile against PostgreSQL and checks what it exposes.
+# Usage: scripts/smoke-test-image.sh [image]   (builds devops-demo:smoke-test when no image is given)
+set -euo pipefail
+
+IMAGE=${1:-}
+PORT=18081
+MANAGEMENT_PORT=18082
+NETWORK=devops-demo-smoke-test
+DB=devops-demo-smoke-test-db
+APP=devops-demo-smoke-test-app
+
+cleanup() {
+    docker logs "${APP}" > target/smoke-test-app.log 2>&1 || true
+    docker rm -f "${APP}" "${DB}" > /dev/null 2>&1 || true
+    docker network rm "${NETWORK}" > /dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+fail() {
+    echo "FAIL: $*" >&2
+    exit 1
+}
+
+mkdir -p target
+if [ -z "${IMAGE}" ]; then
+    IMAGE=devops-demo:smoke-test
+    docker build -q --target jvm -t "${IMAGE}" . > /dev/null
+fi
+
+docker network create "${NETWORK}" > /dev/null
+docker run -d --name "${DB}" --network "${NETWORK}" \
+    -e POSTGRES_DB=devopsdb -e POSTGRES_USER=postgres -e POSTGRES_PASSWORD=password \
+    postgres:15-alpine > /dev/null
+until docker exec "${DB}" pg_isready -U postgres -d devopsdb > /dev/null 2>&1; do
+    sleep 1
+done
+
+# The production profile only validates the schema: apply the one shipped with the application
+docker exec -i "${DB}" psql -q -v ON_ERROR_STOP=1 -U postgres -d devopsdb \
+    < src/main/resources/db/postgresql/schema.sql > /dev/null
+
+docker run -d --name "${APP}" --network "${NETWORK}" -p "${PORT}:8080" -p "${MANAGEMENT_PORT}:8081" \
+    -e SPRING_PROFILES_ACTIVE=production \
+    -e DATABASE_URL="jdbc:postgresql://${DB}:5432/devopsdb" \
+    -e DATABASE_USER=postgres -e DATABASE_PASSWORD=password \
+    "${IMAGE}" > /dev/null
+
+for _ in $(seq 120); do
+    if curl -sf "http://localhost:${MANAGEMENT_PORT}/actuator/health/readiness" > /dev/null; then
+        break
+    fi
+    [ "$(docker inspect -f '{{.State.Running}}' "${APP}")" = "true" ] || fail "application exited, see target/smoke-test-app.log"
+    sleep 1
+done
+curl -sf "http://localhost:${MANAGEMENT_PORT}/actuator/health/readiness" > /dev/null || fail "application not ready after 120s"
+
+status() {
+    curl -s -o /dev/null -w '%{http_code}' "${@:2}" "http://localhost:$1"
+}
+
+[ "$(status "${PORT}/api/v1/tasks")" = "200" ] || fail "/api/v1/tasks did not return 200"
+[ "$(status "${PORT}/h2-console")" = "404" ] || fail "/h2-console is exposed under the production profile"
+[ "$(status "${PORT}/h2-console/")" = "404" ] || fail "/h2-console/ is exposed under the production profile"
+[ "$(status "${PORT}/actuator/env")" = "404" ] || fail "actuator is served on the application port"
+[ "$(status "${MANAGEMENT_PORT}/actuator/profiling" -X POST -H "Content-Type: application/json")" = "403" ] \
+    || fail "profiling is enabled under the production profile"
+
+echo "Image smoke test passed"
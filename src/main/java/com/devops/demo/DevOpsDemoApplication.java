@@ -2,15 +2,24 @@ package com.devops.demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableCaching
+@ConfigurationPropertiesScan
+// Caching advice runs outside @Transactional, so callers waiting on a coalesced load hold no connection
+// and evictions happen after the write commits
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
 @EnableScheduling
 public class DevOpsDemoApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(DevOpsDemoApplication.class, args);
+        SpringApplication application = new SpringApplication(DevOpsDemoApplication.class);
+        // Keep startup steps for the actuator startup endpoint
+        application.setApplicationStartup(new BufferingApplicationStartup(2048));
+        application.run(args);
     }
 }
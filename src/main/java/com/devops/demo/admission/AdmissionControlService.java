@@ -0,0 +1,141 @@
+package com.devops.demo.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Guards task writes with a per-client and a global token bucket, followed by an adaptive
+ * concurrency limit, so a single client cannot exhaust the connection pool and starve reads.
+ */
+@Service
+public class AdmissionControlService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlService.class);
+
+    private final boolean enabled;
+    private final double clientRate;
+    private final double clientBurst;
+    private final int maxClients;
+    private final Duration clientIdleTimeout;
+    private final TokenBucket globalBucket;
+    private final TokenBucket overflowBucket;
+    private final GradientConcurrencyLimit concurrencyLimit;
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public AdmissionControlService(@Value("${app.admission.enabled:true}") boolean enabled,
+                                   @Value("${app.admission.global-rate:500}") double globalRate,
+                                   @Value("${app.admission.global-burst:1000}") double globalBurst,
+                                   @Value("${app.admission.client-rate:50}") double clientRate,
+                                   @Value("${app.admission.client-burst:100}") double clientBurst,
+                                   @Value("${app.admission.max-clients:10000}") int maxClients,
+                                   @Value("${app.admission.client-idle-timeout:PT5M}") Duration clientIdleTimeout,
+                                   @Value("${app.admission.concurrency.initial-limit:8}") int initialLimit,
+                                   @Value("${app.admission.concurrency.min-limit:2}") int minLimit,
+                                   @Value("${app.admission.concurrency.max-limit:10}") int maxLimit,
+                                   MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.maxClients = maxClients;
+        this.clientIdleTimeout = clientIdleTimeout;
+        this.globalBucket = new TokenBucket(globalRate, globalBurst);
+        // Shared by new clients once maxClients distinct buckets exist
+        this.overflowBucket = new TokenBucket(clientRate, clientBurst);
+        this.concurrencyLimit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("tasks.admission.limit", concurrencyLimit, GradientConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit for task writes")
+                .register(meterRegistry);
+        Gauge.builder("tasks.admission.inflight", concurrencyLimit, GradientConcurrencyLimit::getInflight)
+                .description("Task writes currently admitted")
+                .register(meterRegistry);
+        Gauge.builder("tasks.admission.clients", clientBuckets, Map::size)
+                .description("Clients with an active rate-limit bucket")
+                .register(meterRegistry);
+    }
+
+    public <T> T admit(String clientId, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+
+        // A call turned away by a later check gets its earlier tokens back
+        TokenBucket clientBucket = clientBucket(clientId);
+        checkRate(clientBucket, "client_rate");
+        try {
+            checkRate(globalBucket, "global_rate");
+        } catch (AdmissionRejectedException e) {
+            clientBucket.refund();
+            throw e;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            clientBucket.refund();
+            globalBucket.refund();
+            reject("concurrency", 1);
+        }
+
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return work.get();
+        } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+            overloaded = true;
+            throw e;
+        } finally {
+            concurrencyLimit.release(System.nanoTime() - start, overloaded);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleClients() {
+        long cutoff = System.nanoTime() - clientIdleTimeout.toNanos();
+        clientBuckets.values().removeIf(bucket -> bucket.getLastUsedNanos() < cutoff);
+    }
+
+    private TokenBucket clientBucket(String clientId) {
+        TokenBucket bucket = clientBuckets.get(clientId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clientBuckets.size() >= maxClients) {
+            return overflowBucket;
+        }
+        return clientBuckets.computeIfAbsent(clientId, id -> new TokenBucket(clientRate, clientBurst));
+    }
+
+    private void checkRate(TokenBucket bucket, String reason) {
+        long waitNanos = bucket.tryAcquire();
+        if (waitNanos > 0) {
+            long retryAfterSeconds = waitNanos >= TimeUnit.HOURS.toNanos(1)
+                    ? TimeUnit.HOURS.toSeconds(1)
+                    : Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            reject(reason, retryAfterSeconds);
+        }
+    }
+
+    private void reject(String reason, long retryAfterSeconds) {
+        Counter.builder("tasks.admission.rejected")
+                .description("Task writes rejected by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.debug("Rejecting task write: {}", reason);
+        throw new AdmissionRejectedException(reason, retryAfterSeconds);
+    }
+}
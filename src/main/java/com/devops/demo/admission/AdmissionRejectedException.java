@@ -0,0 +1,21 @@
+package com.devops.demo.admission;
+
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final String reason;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String reason, long retryAfterSeconds) {
+        super("Request rejected by admission control: " + reason);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
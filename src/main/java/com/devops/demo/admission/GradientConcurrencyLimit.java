@@ -0,0 +1,74 @@
+package com.devops.demo.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit in the style of Netflix's Gradient2: the limit follows the ratio
+ * between the long-term and the most recent latency, plus a small queue allowance, and is cut
+ * multiplicatively (AIMD) whenever a request fails because the backend is overloaded.
+ */
+public class GradientConcurrencyLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_WEIGHT = 0.05;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit;
+    private double longRttNanos;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, boolean overloaded) {
+        int inflightAtRelease = inflight.getAndDecrement();
+        update(rttNanos, overloaded, inflightAtRelease);
+    }
+
+    private synchronized void update(long rttNanos, boolean overloaded, int inflightAtRelease) {
+        if (overloaded) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+
+        longRttNanos = longRttNanos == 0
+                ? rttNanos
+                : longRttNanos * (1 - LONG_RTT_WEIGHT) + rttNanos * LONG_RTT_WEIGHT;
+
+        // Only grow when the limit is actually being used
+        if (inflightAtRelease < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, longRttNanos / Math.max(1, rttNanos)));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
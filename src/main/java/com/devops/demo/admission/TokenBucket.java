@@ -0,0 +1,53 @@
+package com.devops.demo.admission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classic token bucket: {@code burst} tokens of capacity, refilled continuously at
+ * {@code ratePerSecond}. Refill is computed lazily on each acquire.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private volatile long lastUsedNanos;
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastUsedNanos = lastRefillNanos;
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+        lastUsedNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return tokensPerNano > 0 ? (long) Math.ceil((1 - tokens) / tokensPerNano) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Gives back a token taken for a call that was rejected further on, so it does not count against the bucket.
+     */
+    public synchronized void refund() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    public long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+}
@@ -0,0 +1,41 @@
+package com.devops.demo.analytics;
+
+import com.devops.demo.model.Task.TaskPriority;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput and lead time over {@code [from, to)}. Lead times are in seconds from creation to
+ * completion, for tasks completed on the days the range touches.
+ */
+public record TaskAnalytics(
+        LocalDateTime from,
+        LocalDateTime to,
+        Granularity granularity,
+        List<Bucket> buckets,
+        Map<TaskPriority, LeadTime> leadTime
+) {
+
+    public enum Granularity {
+        HOUR(Duration.ofHours(1)),
+        DAY(Duration.ofDays(1));
+
+        private final Duration duration;
+
+        Granularity(Duration duration) {
+            this.duration = duration;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+    }
+
+    public record Bucket(LocalDateTime start, long created, long completed) {}
+
+    public record LeadTime(long count, double meanSeconds, long p50Seconds, long p90Seconds,
+                           long p99Seconds, long maxSeconds) {}
+}
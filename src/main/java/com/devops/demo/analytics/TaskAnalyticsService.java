@@ -0,0 +1,315 @@
+package com.devops.demo.analytics;
+
+import com.devops.demo.analytics.TaskAnalytics.Bucket;
+import com.devops.demo.analytics.TaskAnalytics.Granularity;
+import com.devops.demo.analytics.TaskAnalytics.LeadTime;
+import com.devops.demo.model.Task;
+import com.devops.demo.model.Task.TaskPriority;
+import com.devops.demo.model.Task.TaskStatus;
+import com.devops.demo.model.TaskChangedEvent;
+import com.devops.demo.shard.TaskShards;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps hourly created/completed counts and daily lead-time histograms per priority in memory, so
+ * analytics queries cost a handful of map lookups however many tasks there are.
+ *
+ * <p>Rolled up from the database when the application is ready and on every
+ * {@code app.analytics.rebuild-interval}, which also drops data older than
+ * {@code app.analytics.retention}. In between, {@link TaskChangedEvent}s keep the counts exact.
+ * Lead times of tasks that are reopened or deleted stay recorded until the next rebuild.
+ */
+@Service
+public class TaskAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskAnalyticsService.class);
+
+    private static final long HOUR = Duration.ofHours(1).toSeconds();
+    private static final long DAY = Duration.ofDays(1).toSeconds();
+    private static final long NONE = Long.MIN_VALUE;
+    // Percentiles within 1%
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    // Archived tasks are part of the history, so both tables are rolled up
+    private static final String SCAN_QUERY = "SELECT id, priority, status, created_at, completed_at FROM tasks"
+            + " WHERE created_at >= ? OR completed_at >= ?"
+            + " UNION ALL SELECT id, priority, status, created_at, completed_at FROM archived_tasks"
+            + " WHERE created_at >= ? OR completed_at >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskShards shards;
+    private final Duration retention;
+    private final Timer rebuildTimer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Rollup rollup;
+    // Latest state of tasks changed while a rebuild was scanning, null once deleted; these win over the scan
+    private Map<Long, Task> changedDuringRebuild;
+    private volatile boolean ready;
+
+    public TaskAnalyticsService(JdbcTemplate jdbcTemplate,
+                                TaskShards shards,
+                                @Value("${app.analytics.retention:P30D}") Duration retention,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.retention = retention;
+        this.rebuildTimer = Timer.builder("tasks.analytics.rebuild")
+                .description("Time taken to roll up task analytics from the database")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.analytics.rebuild-interval:PT1H}",
+            fixedDelayString = "${app.analytics.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        Timer.Sample sample = Timer.start();
+        long cutoff = epochSecond(LocalDateTime.now().minus(retention));
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ScannedRows scanned = new ScannedRows();
+        try {
+            Timestamp since = Timestamp.valueOf(LocalDateTime.ofEpochSecond(cutoff, 0, ZoneOffset.UTC));
+            // One shard after the other, as they all fill the same rows
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                shards.onShard(shard, () -> {
+                    jdbcTemplate.query(SCAN_QUERY, (RowCallbackHandler) scanned::add, since, since, since, since);
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not roll up task analytics", e);
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        Rollup fresh = new Rollup(cutoff);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < scanned.size; i++) {
+                if (!changedDuringRebuild.containsKey(scanned.ids[i])) {
+                    fresh.count(scanned.created[i], scanned.completed[i], 1);
+                    fresh.recordLeadTime(scanned.priorities[i], scanned.created[i], scanned.completed[i]);
+                }
+            }
+            for (Task task : changedDuringRebuild.values()) {
+                if (task != null) {
+                    fresh.count(task, 1);
+                    fresh.recordLeadTime(task);
+                }
+            }
+            rollup = fresh;
+            changedDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        sample.stop(rebuildTimer);
+        log.debug("Task analytics rolled up from {} tasks", scanned.size);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.type() == TaskChangedEvent.Type.ARCHIVED) {
+            // Moved to archived_tasks, which the rollup covers as well
+            return;
+        }
+        // The event carries the managed entity; read it now that the commit has flushed it
+        Task task = event.type() == TaskChangedEvent.Type.DELETED ? null : event.task().copy();
+        Task previous = event.previous();
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(event.task().getId(), task);
+            }
+            if (rollup == null) {
+                return;
+            }
+            if (previous != null) {
+                rollup.count(previous, -1);
+            }
+            if (task != null) {
+                rollup.count(task, 1);
+                if (previous == null || completedAt(previous) == NONE) {
+                    rollup.recordLeadTime(task);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Created/completed counts per bucket over {@code [from, to)}, with the first bucket aligned to
+     * the start of the hour or day, and lead-time percentiles of tasks completed on the days the
+     * range touches.
+     */
+    public TaskAnalytics getAnalytics(LocalDateTime from, LocalDateTime to, Granularity granularity) {
+        if (!ready) {
+            rebuild();
+        }
+        long step = granularity.getDuration().toSeconds();
+        long start = Math.floorDiv(epochSecond(from), step) * step;
+        long end = epochSecond(to);
+
+        lock.readLock().lock();
+        try {
+            // Empty if the database could not be read
+            Rollup rollup = this.rollup != null ? this.rollup : new Rollup(Long.MAX_VALUE);
+            List<Bucket> buckets = new ArrayList<>();
+            for (long bucket = start; bucket < end; bucket += step) {
+                long created = 0;
+                long completed = 0;
+                for (long[] counts : rollup.hours.subMap(bucket / HOUR, (bucket + step) / HOUR).values()) {
+                    created += counts[0];
+                    completed += counts[1];
+                }
+                buckets.add(new Bucket(LocalDateTime.ofEpochSecond(bucket, 0, ZoneOffset.UTC), created, completed));
+            }
+
+            Histogram[] merged = new Histogram[PRIORITIES.length];
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = new Histogram(SIGNIFICANT_DIGITS);
+            }
+            long firstDay = Math.floorDiv(epochSecond(from), DAY);
+            long lastDay = Math.floorDiv(end - 1, DAY);
+            for (Histogram[] day : rollup.leadTimes.subMap(firstDay, true, lastDay, true).values()) {
+                for (int i = 0; i < merged.length; i++) {
+                    if (day[i] != null) {
+                        merged[i].add(day[i]);
+                    }
+                }
+            }
+            Map<TaskPriority, LeadTime> leadTime = new EnumMap<>(TaskPriority.class);
+            for (TaskPriority priority : PRIORITIES) {
+                leadTime.put(priority, leadTime(merged[priority.ordinal()]));
+            }
+            return new TaskAnalytics(from, to, granularity, buckets, leadTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static LeadTime leadTime(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return new LeadTime(0, 0, 0, 0, 0, 0);
+        }
+        return new LeadTime(histogram.getTotalCount(), histogram.getMean(),
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99), histogram.getMaxValue());
+    }
+
+    // Task timestamps are zone-less local times; buckets use them as-is
+    private static long epochSecond(LocalDateTime time) {
+        return time != null ? time.toEpochSecond(ZoneOffset.UTC) : NONE;
+    }
+
+    private static long completedAt(Task task) {
+        return task.getStatus() == TaskStatus.COMPLETED ? epochSecond(task.getCompletedAt()) : NONE;
+    }
+
+    private static final class Rollup {
+        private final long cutoff;
+        // Epoch hour -> {created, completed}
+        private final TreeMap<Long, long[]> hours = new TreeMap<>();
+        // Epoch day of completion -> lead-time histogram per priority, allocated on first use
+        private final TreeMap<Long, Histogram[]> leadTimes = new TreeMap<>();
+
+        Rollup(long cutoff) {
+            this.cutoff = cutoff;
+        }
+
+        void count(Task task, int delta) {
+            count(epochSecond(task.getCreatedAt()), completedAt(task), delta);
+        }
+
+        void count(long created, long completed, int delta) {
+            // The scan skipped anything older than the cutoff, so there is nothing to adjust there
+            if (created != NONE && created >= cutoff) {
+                hours.computeIfAbsent(created / HOUR, hour -> new long[2])[0] += delta;
+            }
+            if (completed != NONE && completed >= cutoff) {
+                hours.computeIfAbsent(completed / HOUR, hour -> new long[2])[1] += delta;
+            }
+        }
+
+        void recordLeadTime(Task task) {
+            recordLeadTime(task.getPriority().ordinal(), epochSecond(task.getCreatedAt()), completedAt(task));
+        }
+
+        void recordLeadTime(int priority, long created, long completed) {
+            if (created == NONE || completed == NONE || completed < cutoff) {
+                return;
+            }
+            Histogram[] day = leadTimes.computeIfAbsent(completed / DAY, d -> new Histogram[PRIORITIES.length]);
+            if (day[priority] == null) {
+                day[priority] = new Histogram(SIGNIFICANT_DIGITS);
+            }
+            day[priority].recordValue(Math.max(0, completed - created));
+        }
+    }
+
+    private static final class ScannedRows {
+        private long[] ids = new long[1024];
+        private int[] priorities = new int[1024];
+        private long[] created = new long[1024];
+        private long[] completed = new long[1024];
+        private int size;
+
+        void add(ResultSet rs) throws SQLException {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size << 1);
+                priorities = Arrays.copyOf(priorities, size << 1);
+                created = Arrays.copyOf(created, size << 1);
+                completed = Arrays.copyOf(completed, size << 1);
+            }
+            Timestamp createdAt = rs.getTimestamp(4);
+            Timestamp completedAt = rs.getTimestamp(5);
+            ids[size] = rs.getLong(1);
+            priorities[size] = TaskPriority.valueOf(rs.getString(2)).ordinal();
+            created[size] = createdAt != null ? epochSecond(createdAt.toLocalDateTime()) : NONE;
+            completed[size] = TaskStatus.COMPLETED.name().equals(rs.getString(3)) && completedAt != null
+                    ? epochSecond(completedAt.toLocalDateTime()) : NONE;
+            size++;
+        }
+    }
+}
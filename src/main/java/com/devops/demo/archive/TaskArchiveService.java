@@ -0,0 +1,109 @@
+package com.devops.demo.archive;
+
+import com.devops.demo.service.TaskService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves completed and cancelled tasks older than {@code app.archive.min-age} out of the live table
+ * ({@code app.archive.enabled}). Each batch is its own short transaction, so a run never holds
+ * locks on more than {@code batch-size} rows, and a run stops after {@code max-batches-per-run}
+ * to spread a large backlog over several intervals.
+ */
+@Service
+public class TaskArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiveService.class);
+
+    private final TaskService taskService;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Timer batchTimer;
+    private final Counter archivedCounter;
+    // How long the oldest archivable task has been waiting past min-age
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public TaskArchiveService(TaskService taskService,
+                              @Value("${app.archive.enabled:true}") boolean enabled,
+                              @Value("${app.archive.min-age:P30D}") Duration minAge,
+                              @Value("${app.archive.batch-size:500}") int batchSize,
+                              @Value("${app.archive.max-batches-per-run:100}") int maxBatchesPerRun,
+                              MeterRegistry meterRegistry) {
+        this.taskService = taskService;
+        this.enabled = enabled;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+
+        this.batchTimer = Timer.builder("tasks.archive.batch")
+                .description("Time taken to archive one batch of tasks")
+                .register(meterRegistry);
+        this.archivedCounter = Counter.builder("tasks.archive.archived")
+                .description("Tasks moved to the archive")
+                .register(meterRegistry);
+        TimeGauge.builder("tasks.archive.lag", lagSeconds, TimeUnit.SECONDS, AtomicLong::get)
+                .description("How long the oldest archivable task has been waiting past the minimum age")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.archive.interval:PT10M}",
+            fixedDelayString = "${app.archive.interval:PT10M}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archiveFinishedTasks();
+        } catch (RuntimeException e) {
+            log.warn("Task archiving failed, retrying next interval", e);
+        }
+    }
+
+    /**
+     * Archives eligible tasks until none are left or the per-run batch limit is reached.
+     * Returns the number of tasks moved.
+     */
+    public synchronized int archiveFinishedTasks() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        int archived = 0;
+        if (updateLag(cutoff)) {
+            int batches = 0;
+            int moved;
+            do {
+                Timer.Sample sample = Timer.start();
+                moved = taskService.archiveFinishedTasks(cutoff, batchSize);
+                sample.stop(batchTimer);
+                archivedCounter.increment(moved);
+                archived += moved;
+                batches++;
+            } while (moved == batchSize && batches < maxBatchesPerRun);
+            updateLag(cutoff);
+        }
+        if (archived > 0) {
+            log.info("Archived {} tasks, lag now {}s", archived, lagSeconds.get());
+        }
+        return archived;
+    }
+
+    // Returns whether anything is old enough to archive
+    private boolean updateLag(LocalDateTime cutoff) {
+        Optional<LocalDateTime> oldest = taskService.getOldestFinishedAt().filter(time -> time.isBefore(cutoff));
+        lagSeconds.set(oldest.map(time -> Duration.between(time, cutoff).toSeconds()).orElse(0L));
+        return oldest.isPresent();
+    }
+}
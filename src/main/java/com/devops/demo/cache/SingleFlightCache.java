@@ -0,0 +1,191 @@
+package com.devops.demo.cache;
+
+import com.devops.demo.deadline.Deadline;
+import com.devops.demo.deadline.DeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache that loads each missing key at most once at a time: callers that miss while a load
+ * is in flight wait on that load's future instead of going to the database themselves. Only
+ * {@code @Cacheable(sync = true)} methods go through {@link #get(Object, Callable)} and get this behaviour.
+ *
+ * <p>With stale-while-revalidate on, evicted entries are kept as stale for up to {@code maxStale}; a miss
+ * then returns the stale value straight away and reloads it in the background.
+ *
+ * <p>Evictions bump a generation number. A load that started before an eviction still answers the callers
+ * already waiting for it, but its result is not cached, so nothing read before a write outlives that
+ * write's eviction.
+ */
+public class SingleFlightCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final ConcurrentMap<Object, Entry> store = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final boolean staleWhileRevalidate;
+    private final long maxStaleNanos;
+    private final Executor refreshExecutor;
+    private final Counter loads;
+    private final Counter coalesced;
+    private final Counter staleServed;
+
+    public SingleFlightCache(String name, boolean staleWhileRevalidate, Duration maxStale, Executor refreshExecutor,
+                             MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.maxStaleNanos = maxStale.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.loads = Counter.builder("cache.singleflight.loads")
+                .description("Cache misses that loaded the value")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("cache.singleflight.coalesced")
+                .description("Cache misses that waited for a load already in flight")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.staleServed = Counter.builder("cache.stale.served")
+                .description("Misses answered with an evicted value while it reloads")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Entry entry = store.get(key);
+        return entry != null && !entry.stale() ? entry.value() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = store.get(key);
+        if (entry != null) {
+            if (!entry.stale()) {
+                return (T) fromStoreValue(entry.value());
+            }
+            if (System.nanoTime() - entry.staleSince() <= maxStaleNanos) {
+                staleServed.increment();
+                refresh(key, valueLoader);
+                return (T) fromStoreValue(entry.value());
+            }
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) fromStoreValue(await(key, valueLoader, existing));
+        }
+        load(key, valueLoader, load);
+        return (T) fromStoreValue(await(key, valueLoader, load));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store.put(key, Entry.fresh(toStoreValue(value)));
+    }
+
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        inFlight.remove(key);
+        if (staleWhileRevalidate) {
+            store.computeIfPresent(key, (k, entry) -> entry.markStale());
+        } else {
+            store.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        inFlight.clear();
+        if (staleWhileRevalidate) {
+            store.replaceAll((key, entry) -> entry.markStale());
+        } else {
+            store.clear();
+        }
+    }
+
+    private void refresh(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, load) == null) {
+            refreshExecutor.execute(() -> load(key, valueLoader, load));
+        }
+    }
+
+    private void load(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+        long startGeneration = generation.get();
+        loads.increment();
+        try {
+            Object value = toStoreValue(valueLoader.call());
+            // Evicted while loading: hand the result to the waiting callers but do not cache it. The check
+            // runs under the key's lock, so an eviction either bumps the generation first or comes after
+            // the put and removes (or marks stale) what it stored.
+            store.compute(key, (k, current) -> generation.get() == startGeneration ? Entry.fresh(value) : current);
+            load.complete(value);
+        } catch (Throwable e) {
+            load.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    // Waits no longer than the caller's deadline; the load itself carries on for the other callers
+    private static Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            try {
+                return load.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            return load.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // The load is already running against the database, so this is a timeout, not an unserved request
+            throw new DeadlineExceededException(deadline.getTimeout(), true);
+        } catch (ExecutionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private record Entry(Object value, boolean stale, long staleSince) {
+        static Entry fresh(Object value) {
+            return new Entry(value, false, 0);
+        }
+
+        Entry markStale() {
+            return stale ? this : new Entry(value, true, System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.devops.demo.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ConcurrentMapCacheManager} whose caches are {@link SingleFlightCache}s; caches are still created
+ * on first use by name. Background stale-while-revalidate reloads share a small thread pool, and at most
+ * one runs per key.
+ */
+public class SingleFlightCacheManager extends ConcurrentMapCacheManager implements DisposableBean {
+
+    private final boolean staleWhileRevalidate;
+    private final Duration maxStale;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService refreshExecutor;
+
+    public SingleFlightCacheManager(boolean staleWhileRevalidate, Duration maxStale, int refreshThreads,
+                                    MeterRegistry meterRegistry) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.maxStale = maxStale;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threads = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected Cache createConcurrentMapCache(String name) {
+        return new SingleFlightCache(name, staleWhileRevalidate, maxStale, refreshExecutor, meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,175 @@
+package com.devops.demo.compression;
+
+import com.devops.demo.config.CompressionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gzip response compression with per-route policies. Replaces {@code server.compression}
+ * so that small payloads and probe endpoints are sent uncompressed, and so that the
+ * compression ratio and CPU cost can be observed per route. Bodies are compressed as they
+ * are written (see {@link GzipResponseWrapper}), never buffered whole.
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private final CompressionProperties properties;
+    private final DeflaterPool deflaterPool;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Meter.MeterProvider<Timer> cpuTimer;
+    private final Meter.MeterProvider<DistributionSummary> ratio;
+    private final Meter.MeterProvider<Counter> skipped;
+
+    public CompressionFilter(CompressionProperties properties, DeflaterPool deflaterPool,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.deflaterPool = deflaterPool;
+        this.cpuTimer = Timer.builder("http.server.compression.cpu")
+                .description("CPU time spent compressing responses")
+                .withRegistry(meterRegistry);
+        this.ratio = DistributionSummary.builder("http.server.compression.ratio")
+                .description("Compressed size divided by original size")
+                .withRegistry(meterRegistry);
+        this.skipped = Counter.builder("http.server.compression.skipped")
+                .description("Responses sent uncompressed by the compression filter")
+                .withRegistry(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled()
+                || !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                || !resolvePolicy(pathWithinApplication(request)).enabled();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // An async dispatch gets the wrapper the initial dispatch started async with
+        GzipResponseWrapper gzipResponse = WebUtils.getNativeResponse(response, GzipResponseWrapper.class);
+        if (gzipResponse == null) {
+            if (isAsyncDispatch(request)) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            gzipResponse = new GzipResponseWrapper(response, deflaterPool,
+                    resolvePolicy(pathWithinApplication(request)), this::isCompressible);
+            response = gzipResponse;
+        }
+
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (!isAsyncStarted(request)) {
+                if (completed) {
+                    gzipResponse.finish();
+                    record(routeOf(request), gzipResponse);
+                } else {
+                    gzipResponse.abort();
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header value accepts gzip, honouring {@code q=0}.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private void record(String route, GzipResponseWrapper response) {
+        switch (response.getOutcome()) {
+            case COMPRESSED -> {
+                cpuTimer.withTag("uri", route).record(response.getCpuNanos(), TimeUnit.NANOSECONDS);
+                ratio.withTag("uri", route).record((double) response.getCompressedSize() / response.getSize());
+            }
+            case BELOW_THRESHOLD -> skipped.withTags("uri", route, "reason", "below_threshold").increment();
+            case NOT_COMPRESSIBLE -> skipped.withTags("uri", route, "reason", "not_compressible").increment();
+            default -> {
+            }
+        }
+    }
+
+    private CompressionPolicy resolvePolicy(String path) {
+        for (String excluded : properties.getExcludedPaths()) {
+            if (pathMatcher.match(excluded, path)) {
+                return CompressionPolicy.DISABLED;
+            }
+        }
+        for (CompressionProperties.RoutePolicy route : properties.getRoutes()) {
+            if (route.getPattern() != null && pathMatcher.match(route.getPattern(), path)) {
+                return new CompressionPolicy(
+                        route.getEnabled() == null || route.getEnabled(),
+                        route.getMinSize() != null ? route.getMinSize() : properties.getMinSize(),
+                        route.getLevel() != null ? route.getLevel() : properties.getLevel());
+            }
+        }
+        return new CompressionPolicy(true, properties.getMinSize(), properties.getLevel());
+    }
+
+    private boolean isCompressible(HttpServletResponse response) {
+        if (response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+        int status = response.getStatus();
+        if (status < 200 || status == 204 || status == 304) {
+            return false;
+        }
+        String contentType = response.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        for (String mimeType : properties.getMimeTypes()) {
+            if (contentType.startsWith(mimeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    record CompressionPolicy(boolean enabled, int minSize, int level) {
+        static final CompressionPolicy DISABLED = new CompressionPolicy(false, Integer.MAX_VALUE, 0);
+    }
+}
@@ -0,0 +1,79 @@
+package com.devops.demo.compression;
+
+import com.devops.demo.config.CompressionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Pool of raw (nowrap) {@link Deflater} instances and their output buffers, so that
+ * compressing a response does not allocate a new zlib stream every time.
+ */
+@Component
+public class DeflaterPool {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<byte[]> buffers;
+    private final Counter deflatersCreated;
+
+    public DeflaterPool(CompressionProperties properties, MeterRegistry meterRegistry) {
+        int capacity = properties.getPoolSize() > 0
+                ? properties.getPoolSize()
+                : Runtime.getRuntime().availableProcessors() * 2;
+        this.deflaters = new ArrayBlockingQueue<>(capacity);
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+
+        this.deflatersCreated = Counter.builder("http.server.compression.deflaters.created")
+                .description("Deflater instances allocated because the pool was empty")
+                .register(meterRegistry);
+        Gauge.builder("http.server.compression.deflaters.idle", deflaters, BlockingQueue::size)
+                .description("Idle Deflater instances available for reuse")
+                .register(meterRegistry);
+    }
+
+    public Deflater acquireDeflater(int level) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflatersCreated.increment();
+            return new Deflater(level, true);
+        }
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    public byte[] acquireBuffer() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    public void release(Deflater deflater, byte[] buffer) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+        releaseBuffer(buffer);
+    }
+
+    public void releaseBuffer(byte[] buffer) {
+        if (buffer.length == BUFFER_SIZE) {
+            buffers.offer(buffer);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+        buffers.clear();
+    }
+}
@@ -0,0 +1,317 @@
+package com.devops.demo.compression;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.util.function.Predicate;
+
+/**
+ * Response whose body is gzip-compressed while it is written. Only the first {@code minSize} bytes are held
+ * back, in a pooled buffer, to decide: a body that ends below the threshold, or whose response turns out
+ * not to be compressible, is sent as-is; otherwise the held bytes and everything after them go through a
+ * {@link PooledGzipOutputStream} straight to the client, so streamed responses stay streamed.
+ */
+class GzipResponseWrapper extends HttpServletResponseWrapper {
+
+    enum Outcome { UNDECIDED, COMPRESSED, BELOW_THRESHOLD, NOT_COMPRESSIBLE }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final DeflaterPool deflaterPool;
+    private final CompressionFilter.CompressionPolicy policy;
+    private final Predicate<HttpServletResponse> compressible;
+
+    private Outcome outcome = Outcome.UNDECIDED;
+    private byte[] held;
+    private int heldCount;
+    // Set by the application; only passed on when the body goes out uncompressed
+    private long contentLength = -1;
+    private long size;
+    private long compressedSize;
+    private long cpuNanos;
+    private PooledGzipOutputStream gzip;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+    private boolean finished;
+
+    GzipResponseWrapper(HttpServletResponse response, DeflaterPool deflaterPool,
+                        CompressionFilter.CompressionPolicy policy, Predicate<HttpServletResponse> compressible) {
+        super(response);
+        this.deflaterPool = deflaterPool;
+        this.policy = policy;
+        this.compressible = compressible;
+    }
+
+    Outcome getOutcome() {
+        return outcome;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getCompressedSize() {
+        return compressedSize;
+    }
+
+    // Thread CPU time spent compressing, over all threads that wrote the body
+    long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new GzipServletOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            String encoding = getCharacterEncoding();
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(encoding)));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        contentLength = len;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            contentLength = value != null ? Long.parseLong(value) : -1;
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            contentLength = Long.parseLong(value);
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            contentLength = value;
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            contentLength = value;
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    // Committing now would send the headers before Content-Encoding is known
+    @Override
+    public void flushBuffer() throws IOException {
+        if (outcome == Outcome.UNDECIDED) {
+            return;
+        }
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        heldCount = 0;
+        size = 0;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        heldCount = 0;
+        size = 0;
+        contentLength = -1;
+    }
+
+    /**
+     * Sends what is still held back and completes the gzip stream. The response body is complete.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outcome == Outcome.UNDECIDED) {
+            decide(false);
+        }
+        finished = true;
+        if (gzip != null) {
+            long cpuStart = cpuTime();
+            gzip.finish();
+            cpuNanos += cpuTime() - cpuStart;
+            compressedSize = gzip.getCompressedSize();
+        }
+    }
+
+    /**
+     * Returns the pooled deflater and buffer of a response abandoned after an error.
+     */
+    void abort() {
+        finished = true;
+        if (gzip != null) {
+            gzip.abort();
+        }
+        releaseHeld();
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("Response already finished");
+        }
+        size += len;
+        if (outcome == Outcome.UNDECIDED) {
+            if (heldCount + len < policy.minSize()) {
+                if (held == null) {
+                    held = policy.minSize() <= DeflaterPool.BUFFER_SIZE
+                            ? deflaterPool.acquireBuffer()
+                            : new byte[policy.minSize()];
+                }
+                System.arraycopy(b, off, held, heldCount, len);
+                heldCount += len;
+                return;
+            }
+            decide(true);
+        }
+        if (gzip != null) {
+            long cpuStart = cpuTime();
+            gzip.write(b, off, len);
+            cpuNanos += cpuTime() - cpuStart;
+        } else {
+            getResponse().getOutputStream().write(b, off, len);
+        }
+    }
+
+    private void flush() throws IOException {
+        // Held bytes stay held; they are less than minSize and go out once the outcome is known
+        if (outcome == Outcome.UNDECIDED) {
+            return;
+        }
+        if (gzip != null) {
+            gzip.flush();
+        } else {
+            getResponse().getOutputStream().flush();
+        }
+    }
+
+    private void decide(boolean reachedMinSize) throws IOException {
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        if (!reachedMinSize) {
+            outcome = Outcome.BELOW_THRESHOLD;
+            if (contentLength < 0 && heldCount > 0) {
+                contentLength = heldCount;
+            }
+        } else if (!compressible.test(response)) {
+            outcome = Outcome.NOT_COMPRESSIBLE;
+        } else {
+            outcome = Outcome.COMPRESSED;
+        }
+
+        if (outcome == Outcome.COMPRESSED) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            gzip = new PooledGzipOutputStream(response.getOutputStream(), deflaterPool, policy.level());
+        } else if (contentLength >= 0) {
+            response.setContentLengthLong(contentLength);
+        }
+        if (heldCount > 0) {
+            int count = heldCount;
+            heldCount = 0;
+            size -= count;
+            write(held, 0, count);
+        }
+        releaseHeld();
+    }
+
+    private void releaseHeld() {
+        if (held != null) {
+            deflaterPool.releaseBuffer(held);
+            held = null;
+        }
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private final class GzipServletOutputStream extends ServletOutputStream {
+        private final ServletOutputStream target;
+        private final byte[] singleByte = new byte[1];
+
+        GzipServletOutputStream(ServletOutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            singleByte[0] = (byte) b;
+            GzipResponseWrapper.this.write(singleByte, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            GzipResponseWrapper.this.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            GzipResponseWrapper.this.flush();
+        }
+
+        // Closing the body completes it
+        @Override
+        public void close() throws IOException {
+            finish();
+            target.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.devops.demo.compression;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GZIP stream that borrows its {@link Deflater} and output buffer from a {@link DeflaterPool}
+ * and hands them back once the stream is finished or closed.
+ */
+public class PooledGzipOutputStream extends FilterOutputStream {
+
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final DeflaterPool pool;
+    private final CRC32 crc = new CRC32();
+    private final byte[] singleByte = new byte[1];
+
+    private Deflater deflater;
+    private byte[] buffer;
+    private long compressedSize;
+
+    public PooledGzipOutputStream(OutputStream out, DeflaterPool pool, int level) throws IOException {
+        super(out);
+        this.pool = pool;
+        this.deflater = pool.acquireDeflater(level);
+        this.buffer = pool.acquireBuffer();
+        try {
+            out.write(HEADER);
+        } catch (IOException e) {
+            release();
+            throw e;
+        }
+        this.compressedSize = HEADER.length;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (deflater == null) {
+            throw new IOException("Stream already finished");
+        }
+        if (len == 0) {
+            return;
+        }
+        crc.update(b, off, len);
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (deflater != null) {
+            int count;
+            do {
+                count = deflate(Deflater.SYNC_FLUSH);
+            } while (count == buffer.length);
+        }
+        out.flush();
+    }
+
+    public void finish() throws IOException {
+        if (deflater == null) {
+            return;
+        }
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+            writeTrailer((int) crc.getValue(), (int) deflater.getBytesRead());
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            release();
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the pooled resources without writing the trailer, for streams abandoned after an error.
+     */
+    public void abort() {
+        release();
+    }
+
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    private int deflate(int flush) throws IOException {
+        int count = deflater.deflate(buffer, 0, buffer.length, flush);
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            compressedSize += count;
+        }
+        return count;
+    }
+
+    private void writeTrailer(int checksum, int inputSize) throws IOException {
+        writeIntLE(checksum, 0);
+        writeIntLE(inputSize, 4);
+        out.write(buffer, 0, 8);
+        compressedSize += 8;
+    }
+
+    private void writeIntLE(int value, int offset) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+
+    private void release() {
+        if (deflater != null) {
+            pool.release(deflater, buffer);
+            deflater = null;
+            buffer = null;
+        }
+    }
+}
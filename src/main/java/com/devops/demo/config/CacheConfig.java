@@ -0,0 +1,27 @@
+package com.devops.demo.config;
+
+import com.devops.demo.cache.SingleFlightCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Service-level caches ({@code @Cacheable} in TaskService). They stay local to each node; the shared
+ * Hazelcast cluster only backs Hibernate regions (see {@link HibernateCacheConfig}).
+ */
+@Configuration(proxyBeanMethods = false)
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.cache.stale-while-revalidate.enabled:false}") boolean staleWhileRevalidate,
+            @Value("${app.cache.stale-while-revalidate.max-stale:PT30S}") Duration maxStale,
+            @Value("${app.cache.stale-while-revalidate.refresh-threads:2}") int refreshThreads,
+            MeterRegistry meterRegistry) {
+        return new SingleFlightCacheManager(staleWhileRevalidate, maxStale, refreshThreads, meterRegistry);
+    }
+}
@@ -0,0 +1,122 @@
+package com.devops.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.compression")
+public class CompressionProperties {
+
+    private boolean enabled = true;
+
+    // Responses smaller than this are sent as-is
+    private int minSize = 2048;
+
+    private int level = 6;
+
+    // Number of idle Deflater instances kept for reuse (0 = 2 x available processors)
+    private int poolSize = 0;
+
+    private List<String> mimeTypes = new ArrayList<>(List.of("application/json", "text/html", "text/plain"));
+
+    private List<String> excludedPaths = new ArrayList<>();
+
+    private List<RoutePolicy> routes = new ArrayList<>();
+
+    public static class RoutePolicy {
+        private String pattern;
+        private Boolean enabled;
+        private Integer minSize;
+        private Integer level;
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(Integer minSize) {
+            this.minSize = minSize;
+        }
+
+        public Integer getLevel() {
+            return level;
+        }
+
+        public void setLevel(Integer level) {
+            this.level = level;
+        }
+    }
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public List<String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    public void setMimeTypes(List<String> mimeTypes) {
+        this.mimeTypes = mimeTypes;
+    }
+
+    public List<String> getExcludedPaths() {
+        return excludedPaths;
+    }
+
+    public void setExcludedPaths(List<String> excludedPaths) {
+        this.excludedPaths = excludedPaths;
+    }
+
+    public List<RoutePolicy> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<RoutePolicy> routes) {
+        this.routes = routes;
+    }
+}
@@ -0,0 +1,44 @@
+package com.devops.demo.config;
+
+import com.devops.demo.pool.InstrumentedDataSource;
+import com.devops.demo.pool.RepositoryMethodContext;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Wraps the Hikari data source in an {@link InstrumentedDataSource} and marks every repository call
+ * with {@link RepositoryMethodContext}, so connection timings can be broken down per repository method.
+ * Hikari's own {@code hikaricp.connections.*} meters are still bound by Spring Boot.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ConnectionPoolConfig {
+
+    // Static and lazy so registering the post-processor does not initialize the meter registry early
+    @Bean
+    static BeanPostProcessor connectionPoolInstrumentationPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+                    repositoryFactoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repository) ->
+                                    proxyFactory.addAdvice(RepositoryMethodContext.interceptor(repository))));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    return new InstrumentedDataSource(dataSource, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.devops.demo.config;
+
+import com.devops.demo.deadline.Deadline;
+import com.devops.demo.deadline.DeadlineAwareTransactionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizer;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionManager;
+
+/**
+ * Bounds database work by the request {@link Deadline}: a transaction manager that turns the time left
+ * into transaction and query timeouts (replacing Spring Boot's {@code JpaTransactionManager};
+ * {@code spring.transaction.*} settings still apply), and repository advice that stops calls once the
+ * deadline has passed.
+ */
+@Configuration(proxyBeanMethods = false)
+public class DeadlineConfig {
+
+    @Bean
+    public PlatformTransactionManager transactionManager(
+            ObjectProvider<TransactionManagerCustomizer<?>> transactionManagerCustomizers) {
+        DeadlineAwareTransactionManager transactionManager = new DeadlineAwareTransactionManager();
+        TransactionManagerCustomizers.of(transactionManagerCustomizers.orderedStream().toList())
+                .customize((TransactionManager) transactionManager);
+        return transactionManager;
+    }
+
+    @Bean
+    static BeanPostProcessor deadlineRepositoryPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+                    repositoryFactoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repository) ->
+                                    proxyFactory.addAdvice(Deadline.interceptor())));
+                }
+                return bean;
+            }
+        };
+    }
+}
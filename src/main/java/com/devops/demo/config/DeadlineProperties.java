@@ -0,0 +1,76 @@
+package com.devops.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = true;
+
+    // Request header carrying the client's timeout in milliseconds
+    private String header = "X-Request-Timeout";
+
+    // Client timeouts above this are lowered to it
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+    // First matching pattern wins; a route without a timeout only gets one from the header
+    private List<RoutePolicy> routes = new ArrayList<>();
+
+    public static class RoutePolicy {
+        private String pattern;
+        private Duration timeout;
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public Duration getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    public void setMaxTimeout(Duration maxTimeout) {
+        this.maxTimeout = maxTimeout;
+    }
+
+    public List<RoutePolicy> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<RoutePolicy> routes) {
+        this.routes = routes;
+    }
+}
@@ -0,0 +1,78 @@
+package com.devops.demo.config;
+
+import com.hazelcast.cache.HazelcastCachingProvider;
+import com.hazelcast.cache.HazelcastMemberCachingProvider;
+import com.hazelcast.config.CacheSimpleConfig;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.core.HazelcastInstance;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+/**
+ * Hibernate second-level and query cache regions backed by Hazelcast JCache. Regions are
+ * partitioned across the cluster, so an update or eviction on one node is seen by all of them
+ * instead of each node holding its own stale copy.
+ */
+@Configuration(proxyBeanMethods = false)
+public class HibernateCacheConfig {
+
+    // Picked up by Spring Boot's Hazelcast auto-configuration, which creates the HazelcastInstance
+    @Bean
+    public Config hazelcastConfig(HibernateCacheProperties properties) {
+        Config config = new Config();
+        config.setClusterName(properties.getClusterName());
+        config.setProperty("hazelcast.logging.type", "slf4j");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        // The application context shuts the instance down after the EntityManagerFactory
+        config.setProperty("hazelcast.shutdownhook.enabled", "false");
+
+        config.getNetworkConfig().setPort(properties.getPort()).setPortAutoIncrement(true);
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getAutoDetectionConfig().setEnabled(false);
+        join.getMulticastConfig().setEnabled(properties.isMulticast());
+        // Pods come and go, so in Kubernetes the members are looked up in the headless service's DNS
+        boolean kubernetes = StringUtils.hasText(properties.getKubernetesServiceDns());
+        if (kubernetes) {
+            join.getKubernetesConfig()
+                    .setEnabled(true)
+                    .setProperty("service-dns", properties.getKubernetesServiceDns());
+        }
+        join.getTcpIpConfig()
+                .setEnabled(!kubernetes && !properties.getMembers().isEmpty())
+                .setMembers(properties.getMembers());
+
+        properties.getRegions().forEach((region, maxEntries) -> config.addCacheConfig(new CacheSimpleConfig()
+                .setName(region)
+                .setStatisticsEnabled(true)
+                .setEvictionConfig(new EvictionConfig()
+                        .setSize(maxEntries)
+                        .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+                        .setEvictionPolicy(EvictionPolicy.LRU))));
+        return config;
+    }
+
+    // Closed together with the HazelcastInstance; closing it earlier would break region shutdown
+    @Bean(destroyMethod = "")
+    public CacheManager hibernateCacheManager(HazelcastInstance hazelcastInstance) {
+        // Keyed by instance name so several contexts in one JVM (tests) get their own manager
+        return Caching.getCachingProvider(HazelcastMemberCachingProvider.class.getName())
+                .getCacheManager(URI.create(hazelcastInstance.getName()), getClass().getClassLoader(),
+                        HazelcastCachingProvider.propertiesByInstanceItself(hazelcastInstance));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
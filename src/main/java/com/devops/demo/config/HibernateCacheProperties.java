@@ -0,0 +1,77 @@
+package com.devops.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "app.cache.hibernate")
+public class HibernateCacheProperties {
+
+    // Nodes only share cache regions with members of the same cluster
+    private String clusterName = "devops-demo";
+
+    private int port = 5701;
+
+    private boolean multicast = false;
+
+    // Seed members (host or host:port); empty and no multicast = standalone node
+    private List<String> members = new ArrayList<>();
+
+    // Headless service whose DNS records list the members (Kubernetes); replaces members when set
+    private String kubernetesServiceDns;
+
+    // Maximum entries per cache region, evicted LRU
+    private Map<String, Integer> regions = new LinkedHashMap<>();
+
+    // Getters and Setters
+    public String getClusterName() {
+        return clusterName;
+    }
+
+    public void setClusterName(String clusterName) {
+        this.clusterName = clusterName;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public boolean isMulticast() {
+        return multicast;
+    }
+
+    public void setMulticast(boolean multicast) {
+        this.multicast = multicast;
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<String> members) {
+        this.members = members;
+    }
+
+    public String getKubernetesServiceDns() {
+        return kubernetesServiceDns;
+    }
+
+    public void setKubernetesServiceDns(String kubernetesServiceDns) {
+        this.kubernetesServiceDns = kubernetesServiceDns;
+    }
+
+    public Map<String, Integer> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, Integer> regions) {
+        this.regions = regions;
+    }
+}
@@ -0,0 +1,106 @@
+package com.devops.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.metrics")
+public class MeterLimitsProperties {
+
+    // Distinct tag combinations kept per meter name unless a policy says otherwise (0 = unlimited)
+    private int maxSeriesPerMeter = 1000;
+
+    // Policies by meter name prefix; the longest matching prefix wins
+    private List<MeterPolicy> meters = new ArrayList<>();
+
+    private ScrapeCache scrapeCache = new ScrapeCache();
+
+    public static class MeterPolicy {
+        private String name;
+        private boolean deny;
+        private Integer maxSeries;
+        private List<String> ignoredTags = new ArrayList<>();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public boolean isDeny() {
+            return deny;
+        }
+
+        public void setDeny(boolean deny) {
+            this.deny = deny;
+        }
+
+        public Integer getMaxSeries() {
+            return maxSeries;
+        }
+
+        public void setMaxSeries(Integer maxSeries) {
+            this.maxSeries = maxSeries;
+        }
+
+        public List<String> getIgnoredTags() {
+            return ignoredTags;
+        }
+
+        public void setIgnoredTags(List<String> ignoredTags) {
+            this.ignoredTags = ignoredTags;
+        }
+    }
+
+    public static class ScrapeCache {
+        private boolean enabled = true;
+
+        // Scrapes within this long of the last render get the same output
+        private Duration ttl = Duration.ofSeconds(4);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    // Getters and Setters
+    public int getMaxSeriesPerMeter() {
+        return maxSeriesPerMeter;
+    }
+
+    public void setMaxSeriesPerMeter(int maxSeriesPerMeter) {
+        this.maxSeriesPerMeter = maxSeriesPerMeter;
+    }
+
+    public List<MeterPolicy> getMeters() {
+        return meters;
+    }
+
+    public void setMeters(List<MeterPolicy> meters) {
+        this.meters = meters;
+    }
+
+    public ScrapeCache getScrapeCache() {
+        return scrapeCache;
+    }
+
+    public void setScrapeCache(ScrapeCache scrapeCache) {
+        this.scrapeCache = scrapeCache;
+    }
+}
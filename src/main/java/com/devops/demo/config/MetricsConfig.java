@@ -0,0 +1,38 @@
+package com.devops.demo.config;
+
+import com.devops.demo.metrics.CachingPrometheusScrapeEndpoint;
+import com.devops.demo.metrics.CardinalityGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.prometheus.client.CollectorRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.time.Duration;
+
+/**
+ * Keeps {@code /actuator/prometheus} cheap: a cardinality guard applied to every meter registration,
+ * and a scrape endpoint that caches its rendered output (replacing Spring Boot's own).
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    // After Spring Boot's property-based filters, so meters they deny do not take up series slots
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public CardinalityGuard cardinalityGuard(MeterLimitsProperties properties) {
+        return new CardinalityGuard(properties);
+    }
+
+    // Always registered, so that an AOT-processed build can still turn caching on or off at startup;
+    // with app.metrics.scrape-cache.enabled=false every scrape is rendered
+    @Bean
+    public CachingPrometheusScrapeEndpoint prometheusEndpoint(CollectorRegistry collectorRegistry,
+                                                              MeterLimitsProperties properties,
+                                                              MeterRegistry meterRegistry) {
+        MeterLimitsProperties.ScrapeCache scrapeCache = properties.getScrapeCache();
+        return new CachingPrometheusScrapeEndpoint(collectorRegistry,
+                scrapeCache.isEnabled() ? scrapeCache.getTtl() : Duration.ZERO, meterRegistry);
+    }
+}
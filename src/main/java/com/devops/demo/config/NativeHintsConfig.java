@@ -0,0 +1,86 @@
+package com.devops.demo.config;
+
+import com.devops.demo.analytics.TaskAnalytics;
+import com.devops.demo.model.ArchivedTask;
+import com.devops.demo.model.IdempotencyRecord;
+import com.devops.demo.model.LoadSimulation;
+import com.devops.demo.model.LoadSimulationRequest;
+import com.devops.demo.model.SystemMetrics;
+import com.devops.demo.model.Task;
+import com.devops.demo.pool.QueryCancelledOverride;
+import com.devops.demo.profiling.ProfilingSession;
+import com.devops.demo.profiling.ProfilingSummary;
+import com.devops.demo.service.ReadinessService;
+import com.devops.demo.service.TaskService;
+import com.devops.demo.websocket.WebSocketSessionTracker;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Contact;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.info.License;
+import io.swagger.v3.oas.models.servers.Server;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * GraalVM native-image hints for types that are only reached through reflection:
+ * the JPA entity, JSON payloads (REST and STOMP), builders and the springdoc model.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.ApplicationRuntimeHints.class)
+public class NativeHintsConfig {
+
+    public static class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+        private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Hibernate instantiates and populates the entity reflectively
+            hints.reflection().registerType(Task.class, MemberCategory.values());
+            hints.reflection().registerType(ArchivedTask.class, MemberCategory.values());
+            hints.reflection().registerType(IdempotencyRecord.class, MemberCategory.values());
+            hints.reflection().registerType(Task.TaskStatus.class, MemberCategory.values());
+            hints.reflection().registerType(Task.TaskPriority.class, MemberCategory.values());
+
+            // Builders are part of the public API and used from the dashboard-facing services
+            hints.reflection().registerType(Task.TaskBuilder.class, MemberCategory.values());
+            hints.reflection().registerType(SystemMetrics.SystemMetricsBuilder.class, MemberCategory.values());
+
+            // JSON payloads for REST responses and the /topic/metrics and /topic/tasks broadcasts
+            bindingRegistrar.registerReflectionHints(hints.reflection(),
+                    Task.class,
+                    SystemMetrics.class,
+                    LoadSimulation.class,
+                    LoadSimulationRequest.class,
+                    TaskService.TaskStatistics.class,
+                    TaskService.TaskBatch.class,
+                    TaskAnalytics.class,
+                    ProfilingSession.class,
+                    ProfilingSummary.class,
+                    ReadinessService.ReadinessReport.class,
+                    ReadinessService.CheckResult.class,
+                    WebSocketSessionTracker.SessionLatency.class);
+
+            // springdoc serializes the OpenAPI model built in OpenApiConfig
+            bindingRegistrar.registerReflectionHints(hints.reflection(),
+                    OpenAPI.class, Info.class, Contact.class, License.class, Server.class);
+
+            // SockJS frames are encoded with Jackson
+            hints.reflection().registerType(
+                    TypeReference.of("org.springframework.web.socket.sockjs.frame.Jackson2SockJsMessageCodec"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+            // Instantiated by Hikari from spring.datasource.hikari.exception-override-class-name
+            hints.reflection().registerType(QueryCancelledOverride.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+            hints.resources().registerPattern("static/*");
+            hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/*");
+            hints.resources().registerPattern("git.properties");
+        }
+    }
+}
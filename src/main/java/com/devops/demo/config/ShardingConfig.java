@@ -0,0 +1,71 @@
+package com.devops.demo.config;
+
+import com.devops.demo.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code app.sharding.enabled}, tasks are spread over several databases (see
+ * {@link com.devops.demo.shard.TaskShards}). Replaces Spring Boot's data source: the primary pool is still
+ * built from {@code spring.datasource}, and each further shard gets a pool with the same settings. Everything
+ * uses one routing data source, so JPA, repositories and {@code JdbcTemplate} are unchanged.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryShardDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(@Qualifier("primaryShardDataSource") DataSource primary,
+                                                         ShardingProperties sharding) {
+        HikariDataSource primaryPool = DataSourceUnwrapper.unwrap(primary, HikariConfigMXBean.class,
+                HikariDataSource.class);
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(primary);
+        for (ShardingProperties.Shard shard : sharding.getShards()) {
+            HikariConfig config = new HikariConfig();
+            if (primaryPool != null) {
+                primaryPool.copyStateTo(config);
+            }
+            config.setPoolName("shard-" + shards.size());
+            config.setJdbcUrl(shard.getUrl());
+            config.setUsername(shard.getUsername());
+            config.setPassword(shard.getPassword());
+            shards.add(new HikariDataSource(config));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    // Cached query results are keyed by query and parameters, not by the shard that answered them
+    @Bean
+    public HibernatePropertiesCustomizer shardingQueryCacheCustomizer() {
+        return properties -> properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+    }
+}
@@ -0,0 +1,65 @@
+package com.devops.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Startup-time tuning. With {@code app.startup.lazy-init.enabled} (see the {@code fast-startup}
+ * profile) beans whose class, or declaring configuration class, starts with one of the configured
+ * prefixes are created on first use instead of during context refresh.
+ *
+ * <p>The switch is read when the post-processor runs rather than through a bean condition: an AOT-processed
+ * build fixes its conditions at build time, and the profile that enables this is only chosen at startup.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupConfig.class);
+
+    @Bean
+    public static BeanFactoryPostProcessor selectiveLazyInitialization(Environment environment) {
+        if (!environment.getProperty("app.startup.lazy-init.enabled", Boolean.class, false)) {
+            return beanFactory -> { };
+        }
+        List<String> prefixes = Binder.get(environment)
+                .bind("app.startup.lazy-init.prefixes", Bindable.listOf(String.class))
+                .orElse(List.of());
+
+        return beanFactory -> {
+            int count = 0;
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                if (definition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE) {
+                    continue;
+                }
+                String className = declaringClassName(beanFactory, definition);
+                if (className != null && prefixes.stream().anyMatch(className::startsWith)) {
+                    definition.setLazyInit(true);
+                    count++;
+                }
+            }
+            log.info("Deferred initialization of {} non-critical beans", count);
+        };
+    }
+
+    private static String declaringClassName(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        if (definition.getBeanClassName() != null) {
+            return definition.getBeanClassName();
+        }
+        String factoryBeanName = definition.getFactoryBeanName();
+        if (factoryBeanName != null && beanFactory.containsBeanDefinition(factoryBeanName)) {
+            return beanFactory.getBeanDefinition(factoryBeanName).getBeanClassName();
+        }
+        return null;
+    }
+}
@@ -1,19 +1,28 @@
 package com.devops.demo.config;
 
+import com.devops.demo.websocket.WebSocketSessionTracker;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketSessionTracker sessionTracker;
+
+    public WebSocketConfig(WebSocketSessionTracker sessionTracker) {
+        this.sessionTracker = sessionTracker;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory message broker
-        config.enableSimpleBroker("/topic");
+        // Enable a simple in-memory message broker; /queue carries per-session replies (/user/queue/...)
+        config.enableSimpleBroker("/topic", "/queue");
         // Set prefix for messages bound for @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
     }
@@ -29,4 +38,19 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*");
     }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(sessionTracker.decorator());
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(sessionTracker.inboundInterceptor());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(sessionTracker.outboundInterceptor());
+    }
 }
@@ -0,0 +1,73 @@
+package com.devops.demo.controller;
+
+import com.devops.demo.admission.AdmissionRejectedException;
+import com.devops.demo.deadline.DeadlineExceededException;
+import com.devops.demo.deadline.DeadlineFilter;
+import com.devops.demo.idempotency.IdempotencyConflictException;
+import com.devops.demo.queue.LeaseLostException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleAdmissionRejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorBody(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), Map.of("reason", e.getReason())));
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyConflict(IdempotencyConflictException e) {
+        // A reused key is a client error; a request still in progress may succeed on a later retry
+        HttpStatus status = e.getReason() == IdempotencyConflictException.Reason.KEY_REUSED
+                ? HttpStatus.UNPROCESSABLE_ENTITY
+                : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status)
+                .body(errorBody(status, e.getMessage(), Map.of("reason", e.getReason())));
+    }
+
+    @ExceptionHandler(LeaseLostException.class)
+    public ResponseEntity<Map<String, Object>> handleLeaseLost(LeaseLostException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(errorBody(HttpStatus.CONFLICT, e.getMessage(), Map.of("taskId", e.getTaskId())));
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleDeadlineExceeded(DeadlineExceededException e,
+                                                                      HttpServletRequest request) {
+        // Given up before touching the database: nothing was done, so another replica may still serve it
+        HttpStatus status = e.isStarted() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE;
+        request.setAttribute(DeadlineFilter.OUTCOME_ATTRIBUTE, e.isStarted() ? "timeout" : "rejected");
+        return ResponseEntity.status(status)
+                .body(errorBody(status, e.getMessage(), Map.of("timeoutMillis", e.getTimeout().toMillis())));
+    }
+
+    // A transaction or query cut short by its timeout, which the request deadline sets
+    @ExceptionHandler({TransactionTimedOutException.class, QueryTimeoutException.class})
+    public ResponseEntity<Map<String, Object>> handleTimeout(RuntimeException e, HttpServletRequest request) {
+        request.setAttribute(DeadlineFilter.OUTCOME_ATTRIBUTE, "timeout");
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(errorBody(HttpStatus.GATEWAY_TIMEOUT, e.getMessage(), Map.of()));
+    }
+
+    static Map<String, Object> errorBody(HttpStatus status, String message, Map<String, Object> details) {
+        Map<String, Object> body = new HashMap<>(details);
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("timestamp", Instant.now().toString());
+        return body;
+    }
+}
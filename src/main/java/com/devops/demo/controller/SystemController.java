@@ -1,17 +1,28 @@
 package com.devops.demo.controller;
 
+import com.devops.demo.model.LoadSimulation;
+import com.devops.demo.model.LoadSimulationRequest;
 import com.devops.demo.model.SystemMetrics;
+import com.devops.demo.service.LoadSimulationService;
 import com.devops.demo.service.MetricsService;
+import com.devops.demo.service.ReadinessService;
+import com.devops.demo.websocket.WebSocketSessionTracker;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.net.URI;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -20,6 +31,9 @@ import java.util.Map;
 public class SystemController {
 
     private final MetricsService metricsService;
+    private final LoadSimulationService loadSimulationService;
+    private final ReadinessService readinessService;
+    private final WebSocketSessionTracker sessionTracker;
 
     @Value("${spring.application.name:devops-demo}")
     private String applicationName;
@@ -30,8 +44,12 @@ public class SystemController {
     @Value("${app.environment:development}")
     private String environment;
 
-    public SystemController(MetricsService metricsService) {
+    public SystemController(MetricsService metricsService, LoadSimulationService loadSimulationService,
+                            ReadinessService readinessService, WebSocketSessionTracker sessionTracker) {
         this.metricsService = metricsService;
+        this.loadSimulationService = loadSimulationService;
+        this.readinessService = readinessService;
+        this.sessionTracker = sessionTracker;
     }
 
     @GetMapping("/info")
@@ -57,13 +75,11 @@ public class SystemController {
     }
 
     @GetMapping("/health/ready")
-    @Operation(summary = "Readiness probe", description = "Kubernetes readiness probe endpoint")
-    public ResponseEntity<Map<String, String>> readiness() {
-        // Add actual readiness checks here (database, external services, etc.)
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "UP");
-        response.put("timestamp", Instant.now().toString());
-        return ResponseEntity.ok(response);
+    @Operation(summary = "Readiness probe", description = "Kubernetes readiness probe endpoint backed by cached dependency checks")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        ReadinessService.ReadinessReport report = readinessService.getReport();
+        return ResponseEntity.status(report.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(report.body());
     }
 
     @GetMapping("/metrics/system")
@@ -72,45 +88,81 @@ public class SystemController {
         return ResponseEntity.ok(metricsService.collectMetrics());
     }
 
-    @GetMapping("/simulate/load")
-    @Operation(summary = "Simulate CPU load", description = "Creates artificial CPU load for testing autoscaling")
-    public ResponseEntity<Map<String, Object>> simulateLoad() {
-        // Simulate some CPU work
-        long start = System.currentTimeMillis();
-        double result = 0;
-        for (int i = 0; i < 10_000_000; i++) {
-            result += Math.sqrt(i) * Math.sin(i);
-        }
-        long duration = System.currentTimeMillis() - start;
+    @GetMapping("/websocket/sessions")
+    @Operation(summary = "Slowest WebSocket sessions",
+            description = "Lists open sessions by smoothed probe round-trip time, with RTT percentiles, "
+                    + "message rates and send-buffer occupancy")
+    public ResponseEntity<List<WebSocketSessionTracker.SessionLatency>> getWebSocketSessions(
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(sessionTracker.slowest(limit));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Load simulation completed");
-        response.put("durationMs", duration);
-        response.put("result", result);
-        return ResponseEntity.ok(response);
+    @PostMapping("/simulate")
+    @Operation(summary = "Start a load simulation",
+            description = "Starts CPU and memory load in the background for testing autoscaling")
+    public ResponseEntity<LoadSimulation> startSimulation(@Valid @RequestBody LoadSimulationRequest request) {
+        return start(request);
+    }
+
+    @GetMapping("/simulate/load")
+    @Operation(summary = "Simulate CPU load", description = "Starts background CPU load for testing autoscaling")
+    public ResponseEntity<LoadSimulation> simulateLoad(
+            @RequestParam(defaultValue = "80") @Min(1) @Max(100) int cpuPercent,
+            @RequestParam(defaultValue = "1") @Min(1) @Max(512) int cores,
+            @RequestParam(defaultValue = "60") @Min(1) @Max(3600) int durationSeconds) {
+        return start(LoadSimulationRequest.builder()
+                .targetCpuPercent(cpuPercent)
+                .cores(cores)
+                .durationSeconds(durationSeconds)
+                .build());
     }
 
     @GetMapping("/simulate/memory")
-    @Operation(summary = "Simulate memory usage", description = "Creates temporary memory allocation for testing")
-    public ResponseEntity<Map<String, Object>> simulateMemory() {
-        // Allocate some memory temporarily
-        byte[][] arrays = new byte[100][];
-        for (int i = 0; i < 100; i++) {
-            arrays[i] = new byte[1024 * 1024]; // 1MB each
-        }
+    @Operation(summary = "Simulate memory usage", description = "Starts background allocation with a retained live set")
+    public ResponseEntity<LoadSimulation> simulateMemory(
+            @RequestParam(defaultValue = "50") @Min(0) @Max(4096) int allocationRateMb,
+            @RequestParam(defaultValue = "100") @Min(0) @Max(8192) int liveSetMb,
+            @RequestParam(defaultValue = "60") @Min(1) @Max(3600) int durationSeconds) {
+        return start(LoadSimulationRequest.builder()
+                .targetCpuPercent(0)
+                .allocationRateMb(allocationRateMb)
+                .liveSetMb(liveSetMb)
+                .durationSeconds(durationSeconds)
+                .build());
+    }
 
-        SystemMetrics metrics = metricsService.collectMetrics();
+    @GetMapping("/simulate")
+    @Operation(summary = "List load simulations", description = "Returns running and recently finished simulations")
+    public ResponseEntity<Collection<LoadSimulation>> getSimulations() {
+        return ResponseEntity.ok(loadSimulationService.getSimulations());
+    }
 
-        // Clear the arrays
-        for (int i = 0; i < 100; i++) {
-            arrays[i] = null;
-        }
-        System.gc();
+    @GetMapping("/simulate/{id}")
+    @Operation(summary = "Get simulation progress", description = "Returns the progress of a load simulation")
+    public ResponseEntity<LoadSimulation> getSimulation(@PathVariable String id) {
+        return loadSimulationService.getSimulation(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Memory simulation completed");
-        response.put("peakMemoryUsedMB", metrics.getUsedMemory());
-        response.put("heapUsedMB", metrics.getHeapUsed());
-        return ResponseEntity.ok(response);
+    @DeleteMapping("/simulate/{id}")
+    @Operation(summary = "Cancel a simulation", description = "Stops a running load simulation")
+    public ResponseEntity<LoadSimulation> cancelSimulation(@PathVariable String id) {
+        return loadSimulationService.cancel(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<LoadSimulation> start(LoadSimulationRequest request) {
+        // A live set that could never fit is the caller's mistake; one that fits once others finish is 429
+        if (request.getLiveSetMb() > loadSimulationService.getMaxLiveSetMb()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Live set cannot exceed "
+                    + loadSimulationService.getMaxLiveSetMb() + " MB (half the maximum heap)");
+        }
+        return loadSimulationService.start(request)
+                .map(sim -> ResponseEntity.accepted()
+                        .location(URI.create("/api/v1/simulate/" + sim.getId()))
+                        .body(sim))
+                .orElse(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
     }
 }
@@ -1,17 +1,38 @@
 package com.devops.demo.controller;
 
+import com.devops.demo.admission.AdmissionControlService;
+import com.devops.demo.analytics.TaskAnalytics;
+import com.devops.demo.analytics.TaskAnalyticsService;
+import com.devops.demo.compression.CompressionFilter;
+import com.devops.demo.export.ExportFormat;
+import com.devops.demo.export.TaskExportService;
+import com.devops.demo.idempotency.IdempotencyService;
 import com.devops.demo.model.Task;
 import com.devops.demo.service.TaskService;
+import com.devops.demo.shard.TaskShards;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.security.Principal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/tasks")
@@ -21,60 +42,192 @@ public class TaskController {
 
     private static final Logger log = LoggerFactory.getLogger(TaskController.class);
 
+    private static final int MAX_ANALYTICS_BUCKETS = 1000;
+    // Task.claimedBy column length
+    private static final int MAX_WORKER_ID_LENGTH = 100;
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    static final String WORKER_ID = "X-Worker-Id";
+
     private final TaskService taskService;
+    private final AdmissionControlService admissionControl;
+    private final TaskExportService exportService;
+    private final TaskAnalyticsService analyticsService;
+    private final IdempotencyService idempotency;
+    private final int maxMultiGetIds;
+    private final Duration defaultLease;
+    private final Duration maxLease;
+    private final int maxClaimBatch;
 
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, AdmissionControlService admissionControl,
+                          TaskExportService exportService, TaskAnalyticsService analyticsService,
+                          IdempotencyService idempotency,
+                          @Value("${app.multi-get.max-ids:1000}") int maxMultiGetIds,
+                          @Value("${app.queue.lease:PT5M}") Duration defaultLease,
+                          @Value("${app.queue.max-lease:PT1H}") Duration maxLease,
+                          @Value("${app.queue.max-batch:100}") int maxClaimBatch) {
         this.taskService = taskService;
+        this.admissionControl = admissionControl;
+        this.exportService = exportService;
+        this.analyticsService = analyticsService;
+        this.idempotency = idempotency;
+        this.maxMultiGetIds = maxMultiGetIds;
+        this.defaultLease = defaultLease;
+        this.maxLease = maxLease;
+        this.maxClaimBatch = maxClaimBatch;
     }
 
     @GetMapping
-    @Operation(summary = "Get all tasks", description = "Retrieve all tasks ordered by creation date")
-    public ResponseEntity<List<Task>> getAllTasks() {
-        log.info("GET /api/v1/tasks - Fetching all tasks");
+    @Operation(summary = "Get all tasks", description = "Retrieve all tasks ordered by creation date, "
+            + "optionally including archived ones")
+    public ResponseEntity<List<Task>> getAllTasks(@RequestParam(defaultValue = "false") boolean includeArchived) {
+        log.info("GET /api/v1/tasks - Fetching all tasks (includeArchived={})", includeArchived);
+        if (includeArchived) {
+            return ResponseEntity.ok(taskService.getAllTasksIncludingArchived());
+        }
         return ResponseEntity.ok(taskService.getAllTasks());
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get task by ID", description = "Retrieve a specific task by its ID")
-    public ResponseEntity<Task> getTaskById(@PathVariable Long id) {
+    @Operation(summary = "Get task by ID", description = "Retrieve a specific task by its ID, "
+            + "optionally looking in the archive too")
+    public ResponseEntity<Task> getTaskById(@PathVariable Long id,
+                                            @RequestParam(defaultValue = "false") boolean includeArchived) {
         log.info("GET /api/v1/tasks/{} - Fetching task", id);
         return taskService.getTaskById(id)
+                .or(() -> includeArchived ? taskService.getArchivedTaskById(id) : Optional.empty())
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get tasks by IDs", description = "Retrieve several tasks in one call, e.g. ?ids=1,2,3. "
+            + "Tasks keep the request order and ids that match no task are listed as missing")
+    public ResponseEntity<TaskService.TaskBatch> getTasksByIds(@RequestParam List<Long> ids) {
+        log.info("GET /api/v1/tasks?ids - Fetching {} tasks", ids.size());
+        return ResponseEntity.ok(taskService.getTasksByIds(checkMultiGet(ids)));
+    }
+
+    @PostMapping("/lookup")
+    @Operation(summary = "Get tasks by IDs (request body)",
+            description = "Same as GET /api/v1/tasks?ids=..., for id lists too long for a URL")
+    public ResponseEntity<TaskService.TaskBatch> lookupTasks(@RequestBody List<Long> ids) {
+        log.info("POST /api/v1/tasks/lookup - Fetching {} tasks", ids.size());
+        return ResponseEntity.ok(taskService.getTasksByIds(checkMultiGet(ids)));
+    }
+
     @PostMapping
-    @Operation(summary = "Create a new task", description = "Create a new task with the provided details")
-    public ResponseEntity<Task> createTask(@Valid @RequestBody Task task) {
+    @Operation(summary = "Create a new task", description = "Create a new task with the provided details. "
+            + "Retries with the same Idempotency-Key header return the first response instead of creating another task")
+    public ResponseEntity<Task> createTask(@Valid @RequestBody Task task,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                           HttpServletRequest request) {
         log.info("POST /api/v1/tasks - Creating task: {}", task.getTitle());
-        Task createdTask = taskService.createTask(task);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdTask);
+        IdempotencyService.Result<Task> created = idempotency.execute("task.create", idempotencyKey,
+                task.creationFields(), Task.class,
+                () -> admissionControl.admit(clientId(request), () -> taskService.createTask(task)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+        if (created.replayed()) {
+            response.header(IDEMPOTENT_REPLAYED, "true");
+        }
+        return response.body(created.value());
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "Update a task", description = "Update an existing task")
-    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task task) {
+    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task task,
+                                           HttpServletRequest request) {
         log.info("PUT /api/v1/tasks/{} - Updating task", id);
-        return taskService.updateTask(id, task)
+        return admissionControl.admit(clientId(request), () -> taskService.updateTask(id, task))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete a task", description = "Delete a task by its ID")
-    public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteTask(@PathVariable Long id, HttpServletRequest request) {
         log.info("DELETE /api/v1/tasks/{} - Deleting task", id);
-        if (taskService.deleteTask(id)) {
+        if (admissionControl.admit(clientId(request), () -> taskService.deleteTask(id))) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
 
+    @PostMapping("/claim")
+    @Operation(summary = "Claim pending tasks",
+            description = "Atomically hand up to `batch` pending tasks to the worker in X-Worker-Id, highest "
+                    + "priority and oldest first (or only `priority`). Claimed tasks are IN_PROGRESS until the "
+                    + "worker completes or releases them or the lease runs out, after which they are re-queued")
+    public ResponseEntity<List<Task>> claimTasks(@RequestHeader(WORKER_ID) String workerId,
+                                                 @RequestParam(required = false) Task.TaskPriority priority,
+                                                 @RequestParam(defaultValue = "1") int batch,
+                                                 @RequestParam(required = false) Integer leaseSeconds,
+                                                 HttpServletRequest request) {
+        if (workerId.isBlank() || workerId.length() > MAX_WORKER_ID_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    WORKER_ID + " must be 1 to " + MAX_WORKER_ID_LENGTH + " characters");
+        }
+        if (batch < 1 || batch > maxClaimBatch) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch must be between 1 and " + maxClaimBatch);
+        }
+        Duration lease = lease(leaseSeconds);
+        log.info("POST /api/v1/tasks/claim - Worker {} claiming up to {} tasks", workerId, batch);
+        return ResponseEntity.ok(admissionControl.admit(clientId(request),
+                () -> taskService.claimTasks(workerId, priority, batch, lease)));
+    }
+
+    @PostMapping("/{id}/heartbeat")
+    @Operation(summary = "Extend a claim",
+            description = "Renew the lease the worker in X-Worker-Id holds on a claimed task; 409 once it was lost "
+                    + "or has run out")
+    public ResponseEntity<Task> heartbeat(@PathVariable Long id, @RequestHeader(WORKER_ID) String workerId,
+                                          @RequestParam(required = false) Integer leaseSeconds) {
+        Duration lease = lease(leaseSeconds);
+        log.debug("POST /api/v1/tasks/{}/heartbeat - Worker {}", id, workerId);
+        return taskService.extendLease(id, workerId, lease)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/complete")
+    @Operation(summary = "Complete a claimed task",
+            description = "Mark the task the worker in X-Worker-Id holds as COMPLETED; 409 once the lease was lost "
+                    + "or has run out")
+    public ResponseEntity<Task> completeClaimedTask(@PathVariable Long id, @RequestHeader(WORKER_ID) String workerId) {
+        log.info("POST /api/v1/tasks/{}/complete - Worker {}", id, workerId);
+        return taskService.completeClaimedTask(id, workerId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/release")
+    @Operation(summary = "Release a claimed task",
+            description = "Give the task the worker in X-Worker-Id holds back to the queue as PENDING; 409 once the "
+                    + "lease was lost or has run out")
+    public ResponseEntity<Task> releaseClaimedTask(@PathVariable Long id, @RequestHeader(WORKER_ID) String workerId) {
+        log.info("POST /api/v1/tasks/{}/release - Worker {}", id, workerId);
+        return taskService.releaseClaimedTask(id, workerId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/status/{status}")
-    @Operation(summary = "Get tasks by status", description = "Filter tasks by their status")
-    public ResponseEntity<List<Task>> getTasksByStatus(@PathVariable Task.TaskStatus status) {
+    @Operation(summary = "Get tasks by status",
+            description = "Filter tasks by their status, and optionally priority, optionally including archived ones")
+    public ResponseEntity<List<Task>> getTasksByStatus(@PathVariable Task.TaskStatus status,
+                                                       @RequestParam(required = false) Task.TaskPriority priority,
+                                                       @RequestParam(defaultValue = "false") boolean includeArchived) {
         log.info("GET /api/v1/tasks/status/{} - Fetching tasks by status", status);
-        return ResponseEntity.ok(taskService.getTasksByStatus(status));
+        List<Task> tasks = priority != null
+                ? taskService.getTasksByStatusAndPriority(status, priority)
+                : taskService.getTasksByStatus(status);
+        if (includeArchived) {
+            tasks = new ArrayList<>(tasks);
+            tasks.addAll(taskService.getArchivedTasksByStatus(status, priority));
+            tasks.sort(TaskShards.NEWEST_FIRST);
+        }
+        return ResponseEntity.ok(tasks);
     }
 
     @GetMapping("/statistics")
@@ -83,4 +236,78 @@ public class TaskController {
         log.info("GET /api/v1/tasks/statistics - Fetching statistics");
         return ResponseEntity.ok(taskService.getStatistics());
     }
+
+    @GetMapping("/analytics")
+    @Operation(summary = "Get task analytics",
+            description = "Created/completed counts per hour or day and lead-time percentiles by priority "
+                    + "(last 24 hours by default)")
+    public ResponseEntity<TaskAnalytics> getAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "HOUR") TaskAnalytics.Granularity granularity) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        if (Duration.between(start, end).dividedBy(granularity.getDuration()) >= MAX_ANALYTICS_BUCKETS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range too long for " + granularity + " buckets, use a coarser granularity");
+        }
+        log.info("GET /api/v1/tasks/analytics - Fetching analytics from {} to {} by {}", start, end, granularity);
+        return ResponseEntity.ok(analyticsService.getAnalytics(start, end, granularity));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export all tasks", description = "Stream all tasks as CSV or NDJSON, gzip-compressed when accepted")
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unsupported export format '" + format + "', use csv or ndjson"));
+        boolean gzip = CompressionFilter.acceptsGzip(acceptEncoding);
+        log.info("GET /api/v1/tasks/export - Exporting tasks as {} (gzip={})", exportFormat, gzip);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("tasks." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> exportService.export(exportFormat, out, gzip));
+    }
+
+    private Duration lease(Integer leaseSeconds) {
+        if (leaseSeconds == null) {
+            return defaultLease;
+        }
+        Duration lease = Duration.ofSeconds(leaseSeconds);
+        if (leaseSeconds < 1 || lease.compareTo(maxLease) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "leaseSeconds must be between 1 and " + maxLease.toSeconds());
+        }
+        return lease;
+    }
+
+    private List<Long> checkMultiGet(List<Long> ids) {
+        if (ids.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one id is required");
+        }
+        if (ids.size() > maxMultiGetIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxMultiGetIds + " ids can be fetched at once");
+        }
+        return ids;
+    }
+
+    // Not a client-supplied header: a client could pick a fresh one for every call and never run out
+    private static String clientId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
 }
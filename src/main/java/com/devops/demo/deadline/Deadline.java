@@ -0,0 +1,132 @@
+package com.devops.demo.deadline;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time by which the current request must be answered, set by {@link DeadlineFilter} for the request
+ * thread. Transactions started on that thread get the remaining time as their timeout (see
+ * {@link DeadlineAwareTransactionManager}), repository calls are refused once it has passed (see
+ * {@link #interceptor()}), and code that waits or loops can call {@link #check()}.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final Duration timeout;
+    private final long expiresAtNanos;
+    private volatile boolean started;
+
+    private Deadline(Duration timeout) {
+        this.timeout = timeout;
+        this.expiresAtNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * The current thread's deadline, or {@code null} if it has none.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Gives the current thread a deadline {@code timeout} from now until the returned scope is closed.
+     */
+    public static Scope start(Duration timeout) {
+        return attach(new Deadline(timeout));
+    }
+
+    /**
+     * Makes {@code deadline}, typically taken from another thread, the current thread's deadline until the
+     * returned scope is closed. A {@code null} deadline leaves the thread without one.
+     */
+    public static Scope attach(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        if (deadline != null) {
+            CURRENT.set(deadline);
+        } else {
+            CURRENT.remove();
+        }
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Throws {@link DeadlineExceededException} if the current thread's deadline has passed.
+     */
+    public static void check() {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw deadline.exceeded();
+        }
+    }
+
+    /**
+     * Repository advice that refuses calls once the deadline has passed, and reports a failed call as
+     * {@link DeadlineExceededException} when the deadline passed while it ran (query or transaction timeout).
+     */
+    public static MethodInterceptor interceptor() {
+        return invocation -> {
+            Deadline deadline = CURRENT.get();
+            if (deadline == null) {
+                return invocation.proceed();
+            }
+            if (deadline.isExpired()) {
+                throw deadline.exceeded();
+            }
+            try {
+                return invocation.proceed();
+            } catch (RuntimeException e) {
+                if (deadline.isExpired() && !(e instanceof DeadlineExceededException)) {
+                    throw new DeadlineExceededException(deadline.timeout, true, e);
+                }
+                throw e;
+            }
+        };
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+
+    public long remaining(TimeUnit unit) {
+        return unit.convert(remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Whether the request has begun work against the database; until then it can be turned away as
+     * unserved rather than timed out.
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    void markStarted() {
+        started = true;
+    }
+
+    public DeadlineExceededException exceeded() {
+        return new DeadlineExceededException(timeout, started);
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.devops.demo.deadline;
+
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JpaTransactionManager} that bounds each transaction by the current thread's {@link Deadline}.
+ * The remaining time becomes the transaction timeout, which Hibernate and {@code JdbcTemplate} pass to the
+ * driver as each statement's query timeout, so a query still running at the deadline is cancelled by the
+ * database (to the second; JDBC timeouts are not finer). A transaction is not begun at all once the
+ * deadline has passed.
+ */
+public class DeadlineAwareTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            if (deadline.isExpired()) {
+                throw deadline.exceeded();
+            }
+            deadline.markStarted();
+        }
+        super.doBegin(transaction, definition);
+        if (deadline != null) {
+            // Spring's own timeout checks and query timeouts work in milliseconds: give them the exact time left
+            long remainingMillis = Math.max(1, deadline.remaining(TimeUnit.MILLISECONDS));
+            if (TransactionSynchronizationManager.getResource(obtainEntityManagerFactory())
+                    instanceof EntityManagerHolder entityManagerHolder) {
+                entityManagerHolder.setTimeoutInMillis(remainingMillis);
+            }
+            if (getDataSource() != null && TransactionSynchronizationManager.getResource(getDataSource())
+                    instanceof ConnectionHolder connectionHolder) {
+                connectionHolder.setTimeoutInMillis(remainingMillis);
+            }
+        }
+    }
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return timeout;
+        }
+        // This is what Hibernate gets, in whole seconds. It rounds the time left down and fails statements
+        // once it is under a second, so round up and add one; doBegin narrows Spring's own timeout to the
+        // deadline, and Deadline.interceptor() stops repository calls at it
+        long remainingMillis = deadline.remaining(TimeUnit.MILLISECONDS);
+        int remaining = (int) Math.min(Integer.MAX_VALUE - 1, Math.max(0, (remainingMillis + 999) / 1000)) + 1;
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remaining : Math.min(timeout, remaining);
+    }
+}
@@ -0,0 +1,32 @@
+package com.devops.demo.deadline;
+
+import java.time.Duration;
+
+/**
+ * The request's deadline passed. {@link #isStarted()} tells whether it had begun work against the database
+ * (a timeout) or was given up before doing any (nothing was done, so it is safe to retry elsewhere).
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final Duration timeout;
+    private final boolean started;
+
+    public DeadlineExceededException(Duration timeout, boolean started) {
+        this(timeout, started, null);
+    }
+
+    public DeadlineExceededException(Duration timeout, boolean started, Throwable cause) {
+        super((started ? "Request did not complete within its deadline of " : "Request deadline of ")
+                + timeout.toMillis() + " ms" + (started ? "" : " passed before it could be served"), cause);
+        this.timeout = timeout;
+        this.started = started;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+}
@@ -0,0 +1,121 @@
+package com.devops.demo.deadline;
+
+import com.devops.demo.config.DeadlineProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Gives each request a {@link Deadline}: the client's {@code X-Request-Timeout} (milliseconds, capped at
+ * {@code max-timeout}) or else the route's default from {@code app.deadline.routes}. Requests with neither
+ * run without one.
+ *
+ * <p>Requests that miss their deadline are counted in {@code http.server.deadline.exceeded} per route, with
+ * {@code outcome} {@code rejected} (503, given up before any database work), {@code timeout} (504) or
+ * {@code late} (answered, but after the deadline).
+ */
+@Component
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute holding the outcome once a {@link DeadlineExceededException} has been answered.
+     */
+    public static final String OUTCOME_ATTRIBUTE = DeadlineFilter.class.getName() + ".outcome";
+
+    private final DeadlineProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public DeadlineFilter(DeadlineProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Duration timeout;
+        String header = request.getHeader(properties.getHeader());
+        if (header != null) {
+            timeout = parseTimeout(header);
+            if (timeout == null) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        properties.getHeader() + " must be a positive number of milliseconds");
+                return;
+            }
+        } else {
+            timeout = routeTimeout(request.getRequestURI().substring(request.getContextPath().length()));
+        }
+        if (timeout == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Deadline.Scope scope = Deadline.start(timeout);
+        Deadline deadline = Deadline.current();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+        }
+
+        Object outcome = request.getAttribute(OUTCOME_ATTRIBUTE);
+        if (outcome == null && deadline.isExpired()) {
+            outcome = "late";
+        }
+        if (outcome != null) {
+            exceeded(routeOf(request), outcome.toString()).increment();
+        }
+    }
+
+    private Duration parseTimeout(String header) {
+        long millis;
+        try {
+            millis = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (millis <= 0) {
+            return null;
+        }
+        Duration timeout = Duration.ofMillis(millis);
+        return timeout.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : timeout;
+    }
+
+    private Duration routeTimeout(String path) {
+        for (DeadlineProperties.RoutePolicy route : properties.getRoutes()) {
+            if (route.getPattern() != null && pathMatcher.match(route.getPattern(), path)) {
+                return route.getTimeout();
+            }
+        }
+        return null;
+    }
+
+    private static String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    private Counter exceeded(String route, String outcome) {
+        return Counter.builder("http.server.deadline.exceeded")
+                .description("Requests that missed their deadline")
+                .tag("uri", route)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
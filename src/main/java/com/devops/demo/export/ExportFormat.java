@@ -0,0 +1,33 @@
+package com.devops.demo.export;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static Optional<ExportFormat> fromParameter(String value) {
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equals(value.toLowerCase(Locale.ROOT)))
+                .findFirst();
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
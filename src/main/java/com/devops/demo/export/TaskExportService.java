@@ -0,0 +1,271 @@
+package com.devops.demo.export;
+
+import com.devops.demo.compression.DeflaterPool;
+import com.devops.demo.compression.PooledGzipOutputStream;
+import com.devops.demo.shard.TaskShards;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Streams the task table as CSV or NDJSON. Id ranges are read and encoded in parallel on a
+ * dedicated fork-join pool while the calling thread writes finished chunks in id order, shard by shard
+ * when tasks are sharded. At most
+ * {@code max-in-flight} chunks exist at a time, so memory stays flat however many rows there are.
+ */
+@Service
+public class TaskExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskExportService.class);
+
+    private static final String COLUMNS = "id, title, description, status, priority, created_at, updated_at, completed_at";
+    private static final String BOUNDS_QUERY = "SELECT MIN(id) AS lo, MAX(id) AS hi FROM tasks";
+    private static final String RANGE_QUERY = "SELECT " + COLUMNS + " FROM tasks WHERE id >= ? AND id < ? ORDER BY id";
+    private static final byte[] CSV_HEADER = (COLUMNS.replace(" ", "") + "\n").getBytes(StandardCharsets.UTF_8);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskShards shards;
+    private final ObjectMapper objectMapper;
+    private final DeflaterPool deflaterPool;
+    private final ForkJoinPool pool;
+    private final int partitionSize;
+    private final int maxInFlight;
+    private final MeterRegistry meterRegistry;
+
+    public TaskExportService(JdbcTemplate jdbcTemplate,
+                             TaskShards shards,
+                             ObjectMapper objectMapper,
+                             DeflaterPool deflaterPool,
+                             @Value("${app.export.parallelism:4}") int parallelism,
+                             @Value("${app.export.partition-size:5000}") int partitionSize,
+                             @Value("${app.export.max-in-flight:8}") int maxInFlight,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.objectMapper = objectMapper;
+        this.deflaterPool = deflaterPool;
+        this.partitionSize = partitionSize;
+        this.maxInFlight = maxInFlight;
+        this.meterRegistry = meterRegistry;
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("task-export-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Writes every task to {@code out}, gzip-compressed when {@code gzip} is set. Does not close {@code out}.
+     */
+    public void export(ExportFormat format, OutputStream out, boolean gzip) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long rows = 0;
+        PooledGzipOutputStream gzipOut = gzip ? new PooledGzipOutputStream(out, deflaterPool, 6) : null;
+        OutputStream target = gzipOut != null ? gzipOut : out;
+        Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+        try {
+            if (format == ExportFormat.CSV) {
+                target.write(CSV_HEADER);
+            }
+
+            IdRanges ranges = new IdRanges(shards.onAllShards(shard -> jdbcTemplate.queryForMap(BOUNDS_QUERY)),
+                    // A shard holds every shardCount-th id, so its ranges are that much wider for the same rows
+                    (long) partitionSize * shards.getShardCount());
+            while (ranges.hasNext() && inFlight.size() < maxInFlight) {
+                inFlight.add(pool.submit(encodeRange(format, ranges)));
+            }
+            while (!inFlight.isEmpty()) {
+                Chunk chunk = inFlight.poll().join();
+                if (ranges.hasNext()) {
+                    inFlight.add(pool.submit(encodeRange(format, ranges)));
+                }
+                // Hands the chunk's own array to the stream, no intermediate copy
+                chunk.writeTo(target);
+                rows += chunk.rows;
+            }
+
+            if (gzipOut != null) {
+                gzipOut.finish();
+            }
+            target.flush();
+        } catch (IOException | RuntimeException e) {
+            // Usually the client went away; stop reading the remaining ranges
+            inFlight.forEach(task -> task.cancel(true));
+            log.warn("Task export aborted after {} rows: {}", rows, e.getMessage());
+            throw e;
+        } finally {
+            if (gzipOut != null) {
+                // Returns the pooled deflater if finish() was never reached
+                gzipOut.abort();
+            }
+            sample.stop(Timer.builder("tasks.export.duration")
+                    .description("Time taken to stream a task export")
+                    .tag("format", format.getExtension())
+                    .register(meterRegistry));
+            Counter.builder("tasks.export.rows")
+                    .description("Task rows written by exports")
+                    .tag("format", format.getExtension())
+                    .register(meterRegistry)
+                    .increment(rows);
+        }
+    }
+
+    // Takes the next range from ranges
+    private Callable<Chunk> encodeRange(ExportFormat format, IdRanges ranges) {
+        int shard = ranges.shard;
+        long from = ranges.next;
+        long to = ranges.advance();
+        return () -> shards.onShard(shard, () -> {
+            Chunk chunk = new Chunk();
+            if (format == ExportFormat.CSV) {
+                jdbcTemplate.query(RANGE_QUERY, (RowCallbackHandler) rs -> writeCsv(rs, chunk), from, to);
+            } else {
+                try (JsonGenerator json = objectMapper.getFactory().createGenerator(chunk)) {
+                    json.setRootValueSeparator(new SerializedString("\n"));
+                    jdbcTemplate.query(RANGE_QUERY, (RowCallbackHandler) rs -> writeJson(rs, json, chunk), from, to);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (chunk.rows > 0) {
+                    chunk.write('\n');
+                }
+            }
+            return chunk;
+        });
+    }
+
+    private static void writeCsv(ResultSet rs, Chunk chunk) throws SQLException {
+        StringBuilder line = new StringBuilder(128);
+        line.append(rs.getLong(1)).append(',');
+        appendCsv(line, rs.getString(2)).append(',');
+        appendCsv(line, rs.getString(3)).append(',');
+        line.append(rs.getString(4)).append(',');
+        line.append(rs.getString(5)).append(',');
+        line.append(formatTime(rs.getTimestamp(6))).append(',');
+        line.append(formatTime(rs.getTimestamp(7))).append(',');
+        line.append(formatTime(rs.getTimestamp(8))).append('\n');
+        chunk.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+        chunk.rows++;
+    }
+
+    private static StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void writeJson(ResultSet rs, JsonGenerator json, Chunk chunk) throws SQLException {
+        try {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong(1));
+            json.writeStringField("title", rs.getString(2));
+            if (rs.getString(3) != null) {
+                json.writeStringField("description", rs.getString(3));
+            }
+            json.writeStringField("status", rs.getString(4));
+            json.writeStringField("priority", rs.getString(5));
+            writeTimeField(json, "createdAt", rs.getTimestamp(6));
+            writeTimeField(json, "updatedAt", rs.getTimestamp(7));
+            writeTimeField(json, "completedAt", rs.getTimestamp(8));
+            json.writeEndObject();
+            chunk.rows++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Same shape as the REST API: nulls are omitted (default-property-inclusion: non_null)
+    private static void writeTimeField(JsonGenerator json, String name, Timestamp value) throws IOException {
+        if (value != null) {
+            json.writeStringField(name, value.toLocalDateTime().toString());
+        }
+    }
+
+    private static String formatTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime().toString() : "";
+    }
+
+    // Walks each shard's id range in steps of the given width, one shard after the other
+    private static final class IdRanges {
+        private final List<Map<String, Object>> bounds;
+        private final long width;
+        private int shard = -1;
+        private long next;
+        private long hi;
+
+        IdRanges(List<Map<String, Object>> bounds, long width) {
+            this.bounds = bounds;
+            this.width = width;
+            nextShard();
+        }
+
+        boolean hasNext() {
+            return shard < bounds.size();
+        }
+
+        // Moves past the current range and returns its exclusive end
+        long advance() {
+            long to = next + width;
+            next = to;
+            if (next > hi) {
+                nextShard();
+            }
+            return to;
+        }
+
+        private void nextShard() {
+            while (++shard < bounds.size()) {
+                Map<String, Object> shardBounds = bounds.get(shard);
+                if (shardBounds.get("lo") != null) {
+                    next = ((Number) shardBounds.get("lo")).longValue();
+                    hi = ((Number) shardBounds.get("hi")).longValue();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Chunk extends ByteArrayOutputStream {
+        private long rows;
+
+        Chunk() {
+            super(64 * 1024);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.devops.demo.idempotency;
+
+public class IdempotencyConflictException extends RuntimeException {
+
+    public enum Reason {
+        /** The key was first used with a different request body */
+        KEY_REUSED,
+        /** The first request with this key did not finish within the wait timeout */
+        IN_PROGRESS
+    }
+
+    private final Reason reason;
+
+    public IdempotencyConflictException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,291 @@
+package com.devops.demo.idempotency;
+
+import com.devops.demo.model.IdempotencyRecord;
+import com.devops.demo.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write at most once per {@code Idempotency-Key}. Results are kept in memory for
+ * {@code app.idempotency.ttl}, up to {@code max-keys} keys (oldest dropped first), and retries with the same
+ * key get the stored result back without running the write again. A retry that arrives while the first
+ * request is still running waits for its result, for up to {@code wait-timeout}.
+ *
+ * <p>With {@code app.idempotency.persistent} on, keys are also claimed in the {@code idempotency_keys} table,
+ * so a retry that lands on another replica is answered from there. The claim commits before the write runs,
+ * in a transaction of its own, and the response is stored after the write has committed; a write that fails
+ * gives the key back. A replica that dies in between, or cannot store the response, leaves the key claimed
+ * without a response, and retries get {@code 409} until it expires rather than writing twice.
+ *
+ * <p>A key reused with a different request body is rejected rather than replayed.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final int maxKeys;
+    private final Duration waitTimeout;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Insertion order, which is also expiry order since every key gets the same TTL
+    private final Queue<Expiry> expiries = new ConcurrentLinkedQueue<>();
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter coalesced;
+    private final Counter conflicts;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.persistent:false}") boolean persistent,
+                              @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${app.idempotency.max-keys:10000}") int maxKeys,
+                              @Value("${app.idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.persistent = persistent;
+        this.ttl = ttl;
+        this.maxKeys = maxKeys;
+        this.waitTimeout = waitTimeout;
+
+        this.executed = requestCounter(meterRegistry, "executed");
+        this.replayed = requestCounter(meterRegistry, "replayed");
+        this.coalesced = requestCounter(meterRegistry, "coalesced");
+        this.conflicts = requestCounter(meterRegistry, "conflict");
+        Gauge.builder("idempotency.keys", entries, Map::size)
+                .description("Idempotency keys held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code work} unless {@code key} was already used for {@code operation}, in which case the first
+     * result is returned (or its exception rethrown). Without a key the work simply runs.
+     *
+     * @param request what identifies the request, e.g. {@link com.devops.demo.model.Task#creationFields()};
+     *                compared with the first request made with the key
+     */
+    public <T> Result<T> execute(String operation, String key, Object request, Class<T> type, Supplier<T> work) {
+        if (key == null || key.isBlank()) {
+            return new Result<>(work.get(), false);
+        }
+        String id = digest(operation + '\n' + key);
+        String fingerprint = digest(toJson(request));
+
+        Entry entry = new Entry(fingerprint, new CompletableFuture<>(), System.nanoTime() + ttl.toNanos());
+        while (true) {
+            Entry existing = entries.putIfAbsent(id, entry);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isExpired(System.nanoTime())) {
+                return follow(existing, fingerprint, type);
+            }
+            entries.remove(id, existing);
+        }
+        Expiry expiry = new Expiry(id, entry);
+        expiries.add(expiry);
+        evict(false);
+
+        try {
+            Result<T> result = persistent
+                    ? executePersistent(id, fingerprint, type, work)
+                    : new Result<>(work.get(), false);
+            (result.replayed() ? replayed : executed).increment();
+            entry.result().complete(result.value());
+            return result;
+        } catch (RuntimeException | Error e) {
+            // Let a retry run the work again; failures hold no key, so they must not count towards max-keys
+            entries.remove(id, entry);
+            expiries.remove(expiry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval:PT1M}")
+    public void evictExpired() {
+        evict(true);
+        if (persistent) {
+            Integer deleted = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+            if (deleted != null && deleted > 0) {
+                log.debug("Deleted {} expired idempotency keys", deleted);
+            }
+        }
+    }
+
+    /**
+     * The value returned to the caller, and whether it is a stored result rather than a fresh one.
+     */
+    public record Result<T>(T value, boolean replayed) {}
+
+    private <T> Result<T> follow(Entry existing, String fingerprint, Class<T> type) {
+        if (!existing.fingerprint().equals(fingerprint)) {
+            throw conflict(IdempotencyConflictException.Reason.KEY_REUSED,
+                    "Idempotency key was already used with a different request");
+        }
+        (existing.result().isDone() ? replayed : coalesced).increment();
+        try {
+            return new Result<>(type.cast(existing.result().get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS)), true);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw (Error) e.getCause();
+        } catch (TimeoutException e) {
+            throw conflict(IdempotencyConflictException.Reason.IN_PROGRESS,
+                    "A request with this idempotency key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict(IdempotencyConflictException.Reason.IN_PROGRESS,
+                    "Interrupted while waiting for a request with this idempotency key");
+        }
+    }
+
+    private <T> Result<T> executePersistent(String id, String fingerprint, Class<T> type, Supplier<T> work) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> stored = repository.findById(id);
+        if (stored.isPresent() && stored.get().getExpiresAt().isAfter(now)) {
+            return replay(stored.get(), fingerprint, type);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                stored.ifPresent(expired -> {
+                    // Hibernate flushes inserts before deletes, so remove the expired row first
+                    repository.delete(expired);
+                    repository.flush();
+                });
+                repository.saveAndFlush(IdempotencyRecord.claim(id, fingerprint, now, now.plus(ttl)));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another replica claimed the key first; its insert has committed by the time ours fails
+            IdempotencyRecord record = repository.findById(id).orElseThrow(() -> e);
+            return replay(record, fingerprint, type);
+        }
+
+        // Outside the claim's transaction, so the work commits (and evicts caches after committing) on its own
+        T value;
+        try {
+            value = work.get();
+        } catch (RuntimeException | Error e) {
+            release(id, e);
+            throw e;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    repository.findById(id).ifPresent(record -> record.complete(toJson(value))));
+        } catch (RuntimeException e) {
+            // The write has committed, so the caller gets its result; only retries on other replicas miss out
+            log.warn("Could not store the response for an idempotency key; retries get 409 until it expires", e);
+        }
+        return new Result<>(value, false);
+    }
+
+    // The work failed, so nothing was written: let a retry claim the key again
+    private void release(String id, Throwable failure) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.deleteById(id));
+        } catch (RuntimeException e) {
+            log.warn("Could not release idempotency key after a failed request; retries get 409 until it expires", e);
+            failure.addSuppressed(e);
+        }
+    }
+
+    private <T> Result<T> replay(IdempotencyRecord record, String fingerprint, Class<T> type) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw conflict(IdempotencyConflictException.Reason.KEY_REUSED,
+                    "Idempotency key was already used with a different request");
+        }
+        if (record.getResponse() == null) {
+            throw conflict(IdempotencyConflictException.Reason.IN_PROGRESS,
+                    "A request with this idempotency key is still in progress");
+        }
+        try {
+            return new Result<>(objectMapper.readValue(record.getResponse(), type), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private void evict(boolean expiredOnly) {
+        long now = System.nanoTime();
+        Expiry oldest;
+        while ((oldest = expiries.peek()) != null
+                && (oldest.entry().isExpired(now) || (!expiredOnly && entries.size() > maxKeys))) {
+            if (expiries.remove(oldest)) {
+                entries.remove(oldest.id(), oldest.entry());
+            }
+        }
+    }
+
+    private IdempotencyConflictException conflict(IdempotencyConflictException.Reason reason, String message) {
+        conflicts.increment();
+        return new IdempotencyConflictException(reason, message);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request could not be serialized for idempotency", e);
+        }
+    }
+
+    private static String digest(String value) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests carrying an idempotency key, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<Object> result, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos > 0;
+        }
+    }
+
+    private record Expiry(String id, Entry entry) {}
+}
@@ -0,0 +1,121 @@
+package com.devops.demo.index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to non-negative {@code int} values, without boxing.
+ * Uses linear probing with backward-shift deletion, so no tombstones accumulate. Not thread-safe.
+ */
+final class LongIntHashMap {
+
+    static final int MISSING = -1;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] occupied;
+    private int size;
+    private int resizeAt;
+
+    LongIntHashMap(int expectedSize) {
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, (int) (expectedSize / LOAD_FACTOR))) << 1));
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; occupied[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return MISSING;
+    }
+
+    void put(long key, int value) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (occupied[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        occupied[slot] = true;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    int remove(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (occupied[slot]) {
+            if (keys[slot] == key) {
+                int value = values[slot];
+                shiftBack(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(occupied, false);
+        size = 0;
+    }
+
+    // Moves later entries of the probe chain into the freed slot so lookups never stop early
+    private void shiftBack(int freed) {
+        int mask = keys.length - 1;
+        int slot = freed;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (!occupied[slot]) {
+                break;
+            }
+            int home = hash(keys[slot]) & mask;
+            boolean between = freed <= slot ? freed < home && home <= slot : freed < home || home <= slot;
+            if (!between) {
+                keys[freed] = keys[slot];
+                values[freed] = values[slot];
+                freed = slot;
+            }
+        }
+        occupied[freed] = false;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldOccupied = occupied;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldOccupied[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        occupied = new boolean[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
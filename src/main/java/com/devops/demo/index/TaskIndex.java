@@ -0,0 +1,335 @@
+package com.devops.demo.index;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.model.Task.TaskPriority;
+import com.devops.demo.model.Task.TaskStatus;
+import com.devops.demo.model.TaskChangedEvent;
+import com.devops.demo.repository.TaskRepository;
+import com.devops.demo.shard.TaskShards;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process secondary index over task status and priority ({@code app.task-index.enabled}).
+ * Each task occupies a dense row slot; one bitmap per status x priority combination marks the rows
+ * in it, and a primitive id -> row map resolves ids. Because slots are dense and reused, plain
+ * bitsets stay as compact as compressed bitmaps would for sparse ids.
+ *
+ * <p>Built from the database once the application is ready and then kept in sync by
+ * {@link TaskChangedEvent}s after each commit. Writes made by other instances are picked up by a periodic
+ * refresh that loads only the tasks created or updated since the previous load; tasks deleted or archived
+ * elsewhere show up as a row count that differs from the database, which triggers a full reload, as does
+ * a longer full-rebuild interval. Until it is ready callers fall back to the database.
+ */
+@Component
+public class TaskIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskIndex.class);
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    private final TaskRepository taskRepository;
+    private final TaskShards shards;
+    private final boolean enabled;
+    private final Duration refreshOverlap;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap rowsById = new LongIntHashMap(1024);
+    private final BitSet[] bitmaps = new BitSet[STATUSES.length * PRIORITIES.length];
+    private final BitSet freeRows = new BitSet();
+    private Task[] rows = new Task[1024];
+    private int rowCount;
+
+    // Tasks changed while a load from the database ran, with their state afterwards (null = removed);
+    // the loaded copy of these may predate the change and must not win
+    private Map<Long, Task> changedDuringLoad;
+    // Start of the last load; the next refresh asks for changes since then, less the overlap
+    private LocalDateTime loadedAt;
+    private volatile boolean ready;
+
+    public TaskIndex(TaskRepository taskRepository,
+                     TaskShards shards,
+                     @Value("${app.task-index.enabled:true}") boolean enabled,
+                     @Value("${app.task-index.refresh-overlap:PT30S}") Duration refreshOverlap,
+                     MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.shards = shards;
+        this.enabled = enabled;
+        this.refreshOverlap = refreshOverlap;
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = new BitSet();
+        }
+
+        Gauge.builder("tasks.index.size", this, TaskIndex::size)
+                .description("Tasks held in the in-memory status/priority index")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reloads the whole index from the database. Runs when the application is ready, when a refresh finds
+     * the index out of step with the database, and every full-rebuild interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.task-index.full-rebuild-interval:PT30M}",
+            fixedDelayString = "${app.task-index.full-rebuild-interval:PT30M}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<Task> tasks = load(() -> TaskShards.concat(shards.onAllShards(shard -> taskRepository.findAll())));
+        if (tasks == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            rowsById.clear();
+            freeRows.clear();
+            Arrays.fill(rows, 0, rowCount, null);
+            rowCount = 0;
+            for (BitSet bitmap : bitmaps) {
+                bitmap.clear();
+            }
+            for (Task task : tasks) {
+                put(task.copy());
+            }
+            // Applied to the index just cleared; apply them again on top of the older loaded rows
+            changedDuringLoad.forEach((id, task) -> {
+                if (task != null) {
+                    put(task);
+                } else {
+                    remove(id);
+                }
+            });
+            changedDuringLoad = null;
+            loadedAt = startedAt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Task index built with {} tasks", tasks.size());
+    }
+
+    /**
+     * Applies the tasks created or updated since the last load, by this or any other instance. Together with
+     * the full rebuild this bounds how long writes made by other instances stay invisible here.
+     */
+    @Scheduled(initialDelayString = "${app.task-index.refresh-interval:PT1M}",
+            fixedDelayString = "${app.task-index.refresh-interval:PT1M}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            rebuild();
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        // The overlap covers clock differences between instances and transactions that commit late
+        LocalDateTime since = loadedAt.minus(refreshOverlap);
+        Changes changes = load(() -> new Changes(
+                TaskShards.concat(shards.onAllShards(shard -> taskRepository.findChangedSince(since))),
+                shards.onAllShards(shard -> taskRepository.count()).stream().mapToLong(Long::longValue).sum()));
+        if (changes == null) {
+            return;
+        }
+
+        boolean inStep;
+        lock.writeLock().lock();
+        try {
+            // Changes made here during the load are already in the index and newer than the loaded copy
+            for (Task task : changes.tasks()) {
+                if (!changedDuringLoad.containsKey(task.getId())) {
+                    put(task.copy());
+                }
+            }
+            changedDuringLoad = null;
+            loadedAt = startedAt;
+            inStep = rowsById.size() == changes.total();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!inStep) {
+            // Tasks deleted or archived by another instance are not among the changes
+            log.debug("Task index out of step with the database after refresh, rebuilding");
+            rebuild();
+        } else {
+            log.debug("Task index refreshed with {} changed tasks", changes.tasks().size());
+        }
+    }
+
+    private <T> T load(Supplier<T> query) {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            return query.get();
+        } catch (RuntimeException e) {
+            log.warn("Could not load task index, queries will use the database until it is built", e);
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return null;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            long id = event.task().getId();
+            Task current = null;
+            if (event.type() == TaskChangedEvent.Type.DELETED || event.type() == TaskChangedEvent.Type.ARCHIVED) {
+                remove(id);
+            } else {
+                // The event carries the managed entity; copy it now that the commit has flushed it
+                current = event.task().copy();
+                put(current);
+            }
+            if (changedDuringLoad != null) {
+                changedDuringLoad.put(id, current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tasks matching the given status and priority, ordered by id. A null argument matches any value.
+     */
+    public List<Task> find(TaskStatus status, TaskPriority priority) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = new BitSet(rowCount);
+            for (int bitmap : bitmapIndexes(status, priority)) {
+                matches.or(bitmaps[bitmap]);
+            }
+            List<Task> result = new ArrayList<>(matches.cardinality());
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                result.add(rows[row]);
+            }
+            result.sort(Comparator.comparingLong(Task::getId));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of tasks with the given status and priority. A null argument matches any value.
+     */
+    public long count(TaskStatus status, TaskPriority priority) {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            // Combinations are disjoint, so cardinalities add up without merging bitmaps
+            for (int bitmap : bitmapIndexes(status, priority)) {
+                count += bitmaps[bitmap].cardinality();
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Task task) {
+        int row = rowsById.get(task.getId());
+        if (row == LongIntHashMap.MISSING) {
+            row = allocateRow();
+            rowsById.put(task.getId(), row);
+        } else {
+            bitmaps[bitmapIndex(rows[row])].clear(row);
+        }
+        rows[row] = task;
+        bitmaps[bitmapIndex(task)].set(row);
+    }
+
+    private void remove(long id) {
+        int row = rowsById.remove(id);
+        if (row == LongIntHashMap.MISSING) {
+            return;
+        }
+        bitmaps[bitmapIndex(rows[row])].clear(row);
+        rows[row] = null;
+        freeRows.set(row);
+    }
+
+    private int allocateRow() {
+        int free = freeRows.nextSetBit(0);
+        if (free >= 0) {
+            freeRows.clear(free);
+            return free;
+        }
+        if (rowCount == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length << 1);
+        }
+        return rowCount++;
+    }
+
+    private static int bitmapIndex(Task task) {
+        return task.getStatus().ordinal() * PRIORITIES.length + task.getPriority().ordinal();
+    }
+
+    private record Changes(List<Task> tasks, long total) {}
+
+    private static int[] bitmapIndexes(TaskStatus status, TaskPriority priority) {
+        int statusFrom = status != null ? status.ordinal() : 0;
+        int statusTo = status != null ? status.ordinal() : STATUSES.length - 1;
+        int priorityFrom = priority != null ? priority.ordinal() : 0;
+        int priorityTo = priority != null ? priority.ordinal() : PRIORITIES.length - 1;
+
+        int[] indexes = new int[(statusTo - statusFrom + 1) * (priorityTo - priorityFrom + 1)];
+        int i = 0;
+        for (int s = statusFrom; s <= statusTo; s++) {
+            for (int p = priorityFrom; p <= priorityTo; p++) {
+                indexes[i++] = s * PRIORITIES.length + p;
+            }
+        }
+        return indexes;
+    }
+}
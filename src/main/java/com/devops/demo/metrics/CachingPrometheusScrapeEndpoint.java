@@ -0,0 +1,112 @@
+package com.devops.demo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.prometheus.client.CollectorRegistry;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.TextOutputFormat;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code /actuator/prometheus} that renders the registry at most once per {@code ttl} and output format.
+ * Scrapes in between (other Prometheus servers, other replicas' monitors) get the same text, and scrapes
+ * arriving while it is being rendered wait for that render instead of starting their own. Scrapes asking
+ * for specific metric names ({@code ?includedNames=}) are rendered every time, as are all scrapes when
+ * {@code ttl} is zero.
+ *
+ * <p>Render time is recorded in {@code prometheus.scrape}, which is what a scrape costs the application.
+ */
+@WebEndpoint(id = "prometheus")
+public class CachingPrometheusScrapeEndpoint extends PrometheusScrapeEndpoint {
+
+    private final long ttlNanos;
+    private final Map<TextOutputFormat, CachedScrape> cache = new ConcurrentHashMap<>();
+    private final AtomicLong lastSize = new AtomicLong();
+    private final Timer renderTimer;
+    private final Counter rendered;
+    private final Counter cached;
+
+    public CachingPrometheusScrapeEndpoint(CollectorRegistry collectorRegistry, Duration ttl,
+                                           MeterRegistry meterRegistry) {
+        super(collectorRegistry);
+        this.ttlNanos = ttl.toNanos();
+        this.renderTimer = Timer.builder("prometheus.scrape")
+                .description("Time to render the Prometheus scrape output")
+                .register(meterRegistry);
+        this.rendered = scrapeCounter(meterRegistry, "rendered");
+        this.cached = scrapeCounter(meterRegistry, "cached");
+        Gauge.builder("prometheus.scrape.size", lastSize, AtomicLong::get)
+                .description("Characters in the last full scrape output")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @ReadOperation(producesFrom = TextOutputFormat.class)
+    public WebEndpointResponse<String> scrape(TextOutputFormat format, @Nullable Set<String> includedNames) {
+        if (ttlNanos <= 0 || (includedNames != null && !includedNames.isEmpty())) {
+            return render(format, includedNames);
+        }
+        CachedScrape entry = cache.computeIfAbsent(format, key -> new CachedScrape());
+        WebEndpointResponse<String> response = entry.fresh(ttlNanos);
+        if (response != null) {
+            cached.increment();
+            return response;
+        }
+        synchronized (entry) {
+            // Another scrape may have rendered while this one waited
+            response = entry.fresh(ttlNanos);
+            if (response != null) {
+                cached.increment();
+                return response;
+            }
+            response = render(format, null);
+            if (response.getStatus() == WebEndpointResponse.STATUS_OK) {
+                entry.store(response);
+                lastSize.set(response.getBody().length());
+            }
+            return response;
+        }
+    }
+
+    private WebEndpointResponse<String> render(TextOutputFormat format, Set<String> includedNames) {
+        long start = System.nanoTime();
+        WebEndpointResponse<String> response = super.scrape(format, includedNames);
+        renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        rendered.increment();
+        return response;
+    }
+
+    private static Counter scrapeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("prometheus.scrape.requests")
+                .description("Prometheus scrapes, by whether the output was rendered or served from cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class CachedScrape {
+        private volatile Rendered last;
+
+        WebEndpointResponse<String> fresh(long ttlNanos) {
+            Rendered current = last;
+            return current != null && System.nanoTime() - current.renderedAt() < ttlNanos ? current.response() : null;
+        }
+
+        void store(WebEndpointResponse<String> response) {
+            last = new Rendered(response, System.nanoTime());
+        }
+    }
+
+    private record Rendered(WebEndpointResponse<String> response, long renderedAt) {}
+}
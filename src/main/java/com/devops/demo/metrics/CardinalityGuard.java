@@ -0,0 +1,131 @@
+package com.devops.demo.metrics;
+
+import com.devops.demo.config.MeterLimitsProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.config.MeterFilterReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of series (distinct tag combinations) each meter name may register, drops denied
+ * meters and strips ignored tags, following the {@code app.metrics.meters} policies. Once a name is at
+ * its limit, new series are not registered and their measurements are discarded; existing series keep
+ * recording. Slots are freed when a meter is removed from the registry.
+ *
+ * <p>Also a {@link MeterBinder}, so it reports its own rejections once the registry's filters are in place.
+ */
+public class CardinalityGuard implements MeterFilter, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(CardinalityGuard.class);
+
+    private final List<MeterLimitsProperties.MeterPolicy> policies;
+    private final int defaultMaxSeries;
+    private final Map<String, Set<Meter.Id>> seriesByName = new ConcurrentHashMap<>();
+    private final Set<String> limitedNames = ConcurrentHashMap.newKeySet();
+    private final LongAdder rejected = new LongAdder();
+
+    public CardinalityGuard(MeterLimitsProperties properties) {
+        // Longest prefix first, so the most specific policy is found first
+        this.policies = properties.getMeters().stream()
+                .filter(policy -> policy.getName() != null && !policy.getName().isBlank())
+                .sorted(Comparator.comparingInt((MeterLimitsProperties.MeterPolicy policy) ->
+                        policy.getName().length()).reversed())
+                .toList();
+        this.defaultMaxSeries = properties.getMaxSeriesPerMeter();
+    }
+
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        MeterLimitsProperties.MeterPolicy policy = policy(id.getName());
+        if (policy == null || policy.getIgnoredTags().isEmpty()) {
+            return id;
+        }
+        Set<String> ignored = new HashSet<>(policy.getIgnoredTags());
+        List<Tag> tags = id.getTags();
+        if (tags.stream().noneMatch(tag -> ignored.contains(tag.getKey()))) {
+            return id;
+        }
+        return id.replaceTags(tags.stream().filter(tag -> !ignored.contains(tag.getKey())).toList());
+    }
+
+    @Override
+    public MeterFilterReply accept(Meter.Id id) {
+        MeterLimitsProperties.MeterPolicy policy = policy(id.getName());
+        if (policy != null && policy.isDeny()) {
+            return MeterFilterReply.DENY;
+        }
+        int limit = policy != null && policy.getMaxSeries() != null ? policy.getMaxSeries() : defaultMaxSeries;
+        if (limit <= 0) {
+            return MeterFilterReply.NEUTRAL;
+        }
+
+        Set<Meter.Id> series = seriesByName.computeIfAbsent(id.getName(), name -> ConcurrentHashMap.newKeySet());
+        if (series.contains(id)) {
+            return MeterFilterReply.NEUTRAL;
+        }
+        synchronized (series) {
+            if (series.size() < limit) {
+                series.add(id);
+                return MeterFilterReply.NEUTRAL;
+            }
+        }
+        rejected.increment();
+        if (limitedNames.add(id.getName())) {
+            log.warn("Meter {} reached its limit of {} series; new tag combinations are dropped (first: {})",
+                    id.getName(), limit, id.getTags());
+        }
+        return MeterFilterReply.DENY;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registry.config().onMeterRemoved(this::release);
+        FunctionCounter.builder("metrics.cardinality.rejected", rejected, LongAdder::sum)
+                .description("Meter registrations dropped because the meter name was at its series limit")
+                .register(registry);
+        Gauge.builder("metrics.cardinality.limited", limitedNames, Set::size)
+                .description("Meter names that have hit their series limit")
+                .register(registry);
+    }
+
+    /**
+     * Registrations turned away because their meter name was at its series limit.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Frees the slot of a meter removed from the registry
+    private void release(Meter meter) {
+        Set<Meter.Id> series = seriesByName.get(meter.getId().getName());
+        if (series != null) {
+            synchronized (series) {
+                series.remove(meter.getId());
+            }
+        }
+    }
+
+    private MeterLimitsProperties.MeterPolicy policy(String name) {
+        for (MeterLimitsProperties.MeterPolicy policy : policies) {
+            String prefix = policy.getName();
+            if (name.equals(prefix) || (name.startsWith(prefix) && name.charAt(prefix.length()) == '.')) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,102 @@
+package com.devops.demo.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A completed or cancelled task moved out of {@code tasks} by the archiver. Keeps the original id,
+ * so {@link Persistable#isNew()} is overridden to insert without a lookup first.
+ */
+@Entity
+@Table(name = "archived_tasks", indexes = @Index(name = "idx_archived_tasks_status", columnList = "status, priority"))
+public class ArchivedTask implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    @Column(length = 500)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    private Task.TaskStatus status;
+
+    @Enumerated(EnumType.STRING)
+    private Task.TaskPriority priority;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Transient
+    private boolean isNew;
+
+    protected ArchivedTask() {
+    }
+
+    public static ArchivedTask from(Task task, LocalDateTime archivedAt) {
+        ArchivedTask archived = new ArchivedTask();
+        archived.id = task.getId();
+        archived.title = task.getTitle();
+        archived.description = task.getDescription();
+        archived.status = task.getStatus();
+        archived.priority = task.getPriority();
+        archived.createdAt = task.getCreatedAt();
+        archived.updatedAt = task.getUpdatedAt();
+        archived.completedAt = task.getCompletedAt();
+        archived.archivedAt = archivedAt;
+        archived.isNew = true;
+        return archived;
+    }
+
+    /**
+     * The archived state as a detached {@link Task}, with {@code archivedAt} set.
+     */
+    public Task toTask() {
+        Task task = Task.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .status(status)
+                .priority(priority)
+                .build();
+        task.setCreatedAt(createdAt);
+        task.setUpdatedAt(updatedAt);
+        task.setCompletedAt(completedAt);
+        task.setArchivedAt(archivedAt);
+        return task;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+
+    public Task.TaskStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,83 @@
+package com.devops.demo.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A claimed idempotency key, shared between replicas when {@code app.idempotency.persistent} is on.
+ * The row is committed before the request runs, so a replica racing on the same key fails on the primary
+ * key instead of repeating the work; {@code response} is filled in once the request's own write has committed.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expiresAt"))
+public class IdempotencyRecord implements Persistable<String> {
+
+    // SHA-256 of the operation and the client's key, so any key length fits
+    @Id
+    @Column(name = "idempotency_key", length = 64)
+    private String key;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    // JSON of the original response
+    @Column(length = 8000)
+    private String response;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Transient
+    private boolean isNew;
+
+    protected IdempotencyRecord() {
+    }
+
+    public static IdempotencyRecord claim(String key, String fingerprint, LocalDateTime createdAt,
+                                          LocalDateTime expiresAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.key = key;
+        record.fingerprint = fingerprint;
+        record.createdAt = createdAt;
+        record.expiresAt = expiresAt;
+        record.isNew = true;
+        return record;
+    }
+
+    public void complete(String response) {
+        this.response = response;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
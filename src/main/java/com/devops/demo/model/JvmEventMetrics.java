@@ -0,0 +1,24 @@
+package com.devops.demo.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JVM behaviour over the last {@code windowSeconds}, from the continuous JFR event stream. The pause
+ * histogram is keyed by upper bound ({@code <=1ms} ... {@code >500ms}); CPU percentages are of the whole
+ * machine, like {@link SystemMetrics#getCpuUsage()}.
+ */
+public record JvmEventMetrics(double windowSeconds,
+                              long gcPauses,
+                              double gcPauseTotalMs,
+                              double gcPauseMaxMs,
+                              Map<String, Long> gcPauseHistogram,
+                              double allocationRateMbPerSec,
+                              double promotionRateMbPerSec,
+                              long safepoints,
+                              double safepointSyncTotalMs,
+                              long monitorContentions,
+                              List<ThreadCpu> topThreads) {
+
+    public record ThreadCpu(String name, double cpuPercent) {}
+}
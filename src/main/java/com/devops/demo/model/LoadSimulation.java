@@ -0,0 +1,118 @@
+package com.devops.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LoadSimulation {
+
+    private final String id;
+    private final LoadSimulationRequest request;
+    private final Instant startedAt;
+    private final AtomicReference<SimulationStatus> status = new AtomicReference<>(SimulationStatus.RUNNING);
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong cpuIterations = new AtomicLong();
+    private final AtomicLong bytesAllocated = new AtomicLong();
+    private volatile long liveSetBytes;
+    private volatile Instant finishedAt;
+    private volatile double sink;
+
+    public LoadSimulation(String id, LoadSimulationRequest request, int workers) {
+        this.id = id;
+        this.request = request;
+        this.startedAt = Instant.now();
+        this.activeWorkers.set(workers);
+    }
+
+    public boolean isActive() {
+        return status.get() == SimulationStatus.RUNNING;
+    }
+
+    public boolean cancel() {
+        if (status.compareAndSet(SimulationStatus.RUNNING, SimulationStatus.CANCELLED)) {
+            finishedAt = Instant.now();
+            return true;
+        }
+        return false;
+    }
+
+    public void workerFinished() {
+        if (activeWorkers.decrementAndGet() == 0
+                && status.compareAndSet(SimulationStatus.RUNNING, SimulationStatus.COMPLETED)) {
+            finishedAt = Instant.now();
+        }
+    }
+
+    public void fail() {
+        if (status.compareAndSet(SimulationStatus.RUNNING, SimulationStatus.FAILED)) {
+            finishedAt = Instant.now();
+        }
+    }
+
+    public void recordCpuWork(long iterations, double result) {
+        cpuIterations.addAndGet(iterations);
+        // Publishing the result keeps the JIT from eliminating the busy loop
+        sink = result;
+    }
+
+    public void recordAllocation(long bytes, long liveBytes) {
+        bytesAllocated.addAndGet(bytes);
+        liveSetBytes = liveBytes;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public LoadSimulationRequest getRequest() {
+        return request;
+    }
+
+    public SimulationStatus getStatus() {
+        return status.get();
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public double getProgressPercent() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double elapsed = Duration.between(startedAt, end).toMillis();
+        double progress = elapsed / (request.getDurationSeconds() * 1000.0) * 100;
+        if (status.get() == SimulationStatus.COMPLETED) {
+            progress = 100;
+        }
+        return Math.round(Math.min(progress, 100) * 100.0) / 100.0;
+    }
+
+    public long getCpuIterations() {
+        return cpuIterations.get();
+    }
+
+    public long getAllocatedMb() {
+        return bytesAllocated.get() / (1024 * 1024);
+    }
+
+    public long getLiveSetMb() {
+        return liveSetBytes / (1024 * 1024);
+    }
+
+    @JsonIgnore
+    public double getSink() {
+        return sink;
+    }
+
+    public enum SimulationStatus {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+}
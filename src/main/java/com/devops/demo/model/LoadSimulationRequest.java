@@ -0,0 +1,109 @@
+package com.devops.demo.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+public class LoadSimulationRequest {
+
+    @Min(value = 0, message = "Target CPU must be between 0 and 100 percent")
+    @Max(value = 100, message = "Target CPU must be between 0 and 100 percent")
+    private int targetCpuPercent = 80;
+
+    @Min(value = 1, message = "At least one core is required")
+    @Max(value = 512, message = "Core count cannot exceed 512")
+    private int cores = 1;
+
+    @Min(value = 1, message = "Duration must be at least 1 second")
+    @Max(value = 3600, message = "Duration cannot exceed 3600 seconds")
+    private int durationSeconds = 60;
+
+    @Min(value = 0, message = "Allocation rate cannot be negative")
+    @Max(value = 4096, message = "Allocation rate cannot exceed 4096 MB/s")
+    private int allocationRateMb = 0;
+
+    @Min(value = 0, message = "Live set cannot be negative")
+    @Max(value = 8192, message = "Live set cannot exceed 8192 MB")
+    private int liveSetMb = 0;
+
+    public LoadSimulationRequest() {
+    }
+
+    // Builder pattern
+    public static LoadSimulationRequestBuilder builder() {
+        return new LoadSimulationRequestBuilder();
+    }
+
+    public static class LoadSimulationRequestBuilder {
+        private final LoadSimulationRequest request = new LoadSimulationRequest();
+
+        public LoadSimulationRequestBuilder targetCpuPercent(int targetCpuPercent) {
+            request.targetCpuPercent = targetCpuPercent;
+            return this;
+        }
+
+        public LoadSimulationRequestBuilder cores(int cores) {
+            request.cores = cores;
+            return this;
+        }
+
+        public LoadSimulationRequestBuilder durationSeconds(int durationSeconds) {
+            request.durationSeconds = durationSeconds;
+            return this;
+        }
+
+        public LoadSimulationRequestBuilder allocationRateMb(int allocationRateMb) {
+            request.allocationRateMb = allocationRateMb;
+            return this;
+        }
+
+        public LoadSimulationRequestBuilder liveSetMb(int liveSetMb) {
+            request.liveSetMb = liveSetMb;
+            return this;
+        }
+
+        public LoadSimulationRequest build() {
+            return request;
+        }
+    }
+
+    // Getters and Setters
+    public int getTargetCpuPercent() {
+        return targetCpuPercent;
+    }
+
+    public void setTargetCpuPercent(int targetCpuPercent) {
+        this.targetCpuPercent = targetCpuPercent;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public void setCores(int cores) {
+        this.cores = cores;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public int getAllocationRateMb() {
+        return allocationRateMb;
+    }
+
+    public void setAllocationRateMb(int allocationRateMb) {
+        this.allocationRateMb = allocationRateMb;
+    }
+
+    public int getLiveSetMb() {
+        return liveSetMb;
+    }
+
+    public void setLiveSetMb(int liveSetMb) {
+        this.liveSetMb = liveSetMb;
+    }
+}
@@ -17,6 +17,7 @@ public class SystemMetrics {
     private long heapUsed;
     private long heapMax;
     private double heapUsagePercent;
+    private JvmEventMetrics jvmEvents;
 
     public SystemMetrics() {
     }
@@ -41,6 +42,7 @@ public class SystemMetrics {
         private long heapUsed;
         private long heapMax;
         private double heapUsagePercent;
+        private JvmEventMetrics jvmEvents;
 
         public SystemMetricsBuilder timestamp(Instant timestamp) {
             this.timestamp = timestamp;
@@ -112,6 +114,11 @@ public class SystemMetrics {
             return this;
         }
 
+        public SystemMetricsBuilder jvmEvents(JvmEventMetrics jvmEvents) {
+            this.jvmEvents = jvmEvents;
+            return this;
+        }
+
         public SystemMetrics build() {
             SystemMetrics metrics = new SystemMetrics();
             metrics.timestamp = this.timestamp;
@@ -128,6 +135,7 @@ public class SystemMetrics {
             metrics.heapUsed = this.heapUsed;
             metrics.heapMax = this.heapMax;
             metrics.heapUsagePercent = this.heapUsagePercent;
+            metrics.jvmEvents = this.jvmEvents;
             return metrics;
         }
     }
@@ -244,4 +252,12 @@ public class SystemMetrics {
     public void setHeapUsagePercent(double heapUsagePercent) {
         this.heapUsagePercent = heapUsagePercent;
     }
+
+    public JvmEventMetrics getJvmEvents() {
+        return jvmEvents;
+    }
+
+    public void setJvmEvents(JvmEventMetrics jvmEvents) {
+        this.jvmEvents = jvmEvents;
+    }
 }
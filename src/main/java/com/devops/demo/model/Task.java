@@ -1,13 +1,24 @@
 package com.devops.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+        // Claim queue: oldest pending task per priority, and expired leases
+        @Index(name = "idx_tasks_claim", columnList = "status, priority, createdAt"),
+        @Index(name = "idx_tasks_lease", columnList = "status, leaseExpiresAt")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task")
 public class Task {
 
     @Id
@@ -33,6 +44,19 @@ public class Task {
 
     private LocalDateTime completedAt;
 
+    // Worker holding the task through POST /tasks/claim, until the lease expires or the task leaves IN_PROGRESS
+    @Column(length = 100)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String claimedBy;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime leaseExpiresAt;
+
+    // Only set on tasks read back from the archive
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime archivedAt;
+
     // Constructors
     public Task() {
     }
@@ -88,12 +112,41 @@ public class Task {
         }
     }
 
+    public Task copy() {
+        Task copy = new Task();
+        copy.id = id;
+        copy.title = title;
+        copy.description = description;
+        copy.status = status;
+        copy.priority = priority;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.completedAt = completedAt;
+        copy.claimedBy = claimedBy;
+        copy.leaseExpiresAt = leaseExpiresAt;
+        copy.archivedAt = archivedAt;
+        return copy;
+    }
+
+    /**
+     * The fields a client chooses when creating a task, used to tell a retried create from a new one.
+     * Server-assigned fields such as {@code createdAt} differ between two deserializations of one request.
+     */
+    public List<Object> creationFields() {
+        return Arrays.asList(title, description, status, priority);
+    }
+
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
         if (status == TaskStatus.COMPLETED && completedAt == null) {
             completedAt = LocalDateTime.now();
         }
+        // A claim only lasts while the task is being worked on
+        if (status != TaskStatus.IN_PROGRESS) {
+            claimedBy = null;
+            leaseExpiresAt = null;
+        }
     }
 
     // Getters and Setters
@@ -161,6 +214,35 @@ public class Task {
         this.completedAt = completedAt;
     }
 
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    /**
+     * Hands the task to {@code workerId} until {@code leaseExpiresAt}.
+     */
+    public void claim(String workerId, LocalDateTime leaseExpiresAt) {
+        this.status = TaskStatus.IN_PROGRESS;
+        this.claimedBy = workerId;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public void extendLease(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
     public enum TaskStatus {
         PENDING, IN_PROGRESS, COMPLETED, CANCELLED
     }
@@ -0,0 +1,15 @@
+package com.devops.demo.model;
+
+/**
+ * Published by {@code TaskService} for every task write. Listeners that keep derived state in sync
+ * should use {@code @TransactionalEventListener} so rolled-back writes are never applied.
+ * {@code task} is the managed entity and must be copied before it is kept; for deletions it only
+ * carries the id. {@code previous} is a detached copy of the task before the write, null for creations.
+ * Archived tasks leave the {@code tasks} table but still exist in {@code archived_tasks}.
+ */
+public record TaskChangedEvent(Type type, Task task, Task previous) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, ARCHIVED
+    }
+}
@@ -0,0 +1,139 @@
+package com.devops.demo.model;
+
+import com.devops.demo.model.Task.TaskPriority;
+import com.devops.demo.model.Task.TaskStatus;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Partial update of a task: only the fields that are set (non-null) change. Unlike a {@link Task}, whose
+ * status and priority default to {@code PENDING} and {@code MEDIUM}, an unset field here is left alone.
+ */
+public class TaskPatch {
+
+    private Long id;
+
+    @Size(min = 3, max = 100, message = "Title must be between 3 and 100 characters")
+    private String title;
+
+    @Size(max = 500, message = "Description cannot exceed 500 characters")
+    private String description;
+
+    private TaskStatus status;
+
+    private TaskPriority priority;
+
+    public TaskPatch() {
+    }
+
+    // Builder pattern
+    public static TaskPatchBuilder builder() {
+        return new TaskPatchBuilder();
+    }
+
+    public static class TaskPatchBuilder {
+        private final TaskPatch patch = new TaskPatch();
+
+        public TaskPatchBuilder id(Long id) {
+            patch.id = id;
+            return this;
+        }
+
+        public TaskPatchBuilder title(String title) {
+            patch.title = title;
+            return this;
+        }
+
+        public TaskPatchBuilder description(String description) {
+            patch.description = description;
+            return this;
+        }
+
+        public TaskPatchBuilder status(TaskStatus status) {
+            patch.status = status;
+            return this;
+        }
+
+        public TaskPatchBuilder priority(TaskPriority priority) {
+            patch.priority = priority;
+            return this;
+        }
+
+        public TaskPatch build() {
+            return patch;
+        }
+    }
+
+    /**
+     * Copies the set fields onto {@code task} and returns it.
+     */
+    public Task applyTo(Task task) {
+        if (title != null) {
+            task.setTitle(title);
+        }
+        if (description != null) {
+            task.setDescription(description);
+        }
+        if (status != null) {
+            task.setStatus(status);
+        }
+        if (priority != null) {
+            task.setPriority(priority);
+        }
+        return task;
+    }
+
+    /**
+     * A patch that sets the fields of both this and {@code later}, taking {@code later}'s value where both
+     * set one.
+     */
+    public TaskPatch mergedWith(TaskPatch later) {
+        return builder()
+                .id(id)
+                .title(later.title != null ? later.title : title)
+                .description(later.description != null ? later.description : description)
+                .status(later.status != null ? later.status : status)
+                .priority(later.priority != null ? later.priority : priority)
+                .build();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(TaskPriority priority) {
+        this.priority = priority;
+    }
+}
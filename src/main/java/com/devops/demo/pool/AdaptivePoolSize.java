@@ -0,0 +1,67 @@
+package com.devops.demo.pool;
+
+/**
+ * Decides the connection pool size from one interval's measurements. Callers waiting for a connection
+ * grow the pool, unless connections are also being held noticeably longer than the long-term baseline:
+ * then the database itself is the bottleneck and more connections would only add contention, so the
+ * pool backs off instead. A pool that stays under half used shrinks by one connection per interval.
+ */
+public class AdaptivePoolSize {
+
+    private static final double BASELINE_WEIGHT = 0.05;
+    private static final double GROWTH_RATIO = 0.25;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetWaitNanos;
+    private final double latencyTolerance;
+
+    private int size;
+    private double baselineUsageNanos;
+
+    public AdaptivePoolSize(int initialSize, int minSize, int maxSize, long targetWaitNanos, double latencyTolerance) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetWaitNanos = targetWaitNanos;
+        this.latencyTolerance = latencyTolerance;
+        this.size = clamp(initialSize);
+    }
+
+    /**
+     * Feeds one interval and returns the new size.
+     *
+     * @param meanWaitNanos  mean time callers waited for a connection
+     * @param waiting        callers waiting right now
+     * @param meanUsageNanos mean time a connection was held, 0 if none was returned
+     * @param peakInUse      most connections in use at once
+     */
+    public synchronized int update(long meanWaitNanos, int waiting, long meanUsageNanos, int peakInUse) {
+        if (meanUsageNanos > 0 && baselineUsageNanos == 0) {
+            baselineUsageNanos = meanUsageNanos;
+        }
+
+        boolean queueing = waiting > 0 || meanWaitNanos > targetWaitNanos;
+        if (queueing) {
+            if (meanUsageNanos <= baselineUsageNanos * latencyTolerance) {
+                size = clamp(size + Math.max(1, (int) (size * GROWTH_RATIO)));
+            } else {
+                size = clamp(size - 1);
+            }
+        } else if (peakInUse < size / 2) {
+            size = clamp(size - 1);
+        }
+
+        if (meanUsageNanos > 0) {
+            baselineUsageNanos = baselineUsageNanos * (1 - BASELINE_WEIGHT) + meanUsageNanos * BASELINE_WEIGHT;
+        }
+        return size;
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    private int clamp(int value) {
+        return Math.max(minSize, Math.min(maxSize, value));
+    }
+}
@@ -0,0 +1,88 @@
+package com.devops.demo.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Resizes the Hikari pool within {@code app.pool.auto-size.min-size} and {@code max-size}
+ * ({@code app.pool.auto-size.enabled}), using the acquire and hold times {@link InstrumentedDataSource}
+ * measured over the last interval. See {@link AdaptivePoolSize} for the policy.
+ */
+@Component
+public class ConnectionPoolSizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolSizer.class);
+
+    private final InstrumentedDataSource instrumented;
+    private final HikariDataSource hikari;
+    private final boolean enabled;
+    private final int configuredMinimumIdle;
+    private final AdaptivePoolSize poolSize;
+    private final Counter grownCounter;
+    private final Counter shrunkCounter;
+
+    public ConnectionPoolSizer(DataSource dataSource,
+                               @Value("${app.pool.auto-size.enabled:true}") boolean enabled,
+                               @Value("${app.pool.auto-size.min-size:8}") int minSize,
+                               @Value("${app.pool.auto-size.max-size:30}") int maxSize,
+                               @Value("${app.pool.auto-size.target-wait:PT0.005S}") Duration targetWait,
+                               @Value("${app.pool.auto-size.latency-tolerance:1.5}") double latencyTolerance,
+                               MeterRegistry meterRegistry) {
+        this.instrumented = DataSourceUnwrapper.unwrap(dataSource, InstrumentedDataSource.class);
+        this.hikari = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+        this.enabled = enabled && instrumented != null && hikari != null;
+        this.configuredMinimumIdle = hikari != null ? hikari.getMinimumIdle() : 0;
+        this.poolSize = new AdaptivePoolSize(hikari != null ? hikari.getMaximumPoolSize() : minSize,
+                minSize, maxSize, targetWait.toNanos(), latencyTolerance);
+
+        this.grownCounter = Counter.builder("db.pool.resize")
+                .description("Connection pool size changes made by the auto-sizer")
+                .tag("direction", "grow")
+                .register(meterRegistry);
+        this.shrunkCounter = Counter.builder("db.pool.resize")
+                .description("Connection pool size changes made by the auto-sizer")
+                .tag("direction", "shrink")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.pool.auto-size.interval:PT10S}",
+            fixedDelayString = "${app.pool.auto-size.interval:PT10S}")
+    public void adjust() {
+        if (!enabled) {
+            return;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            // Hikari starts the pool on the first connection request
+            return;
+        }
+
+        InstrumentedDataSource.Interval interval = instrumented.drain();
+        int current = hikari.getMaximumPoolSize();
+        int size = poolSize.update(interval.meanAcquireNanos(), pool.getThreadsAwaitingConnection(),
+                interval.meanUsageNanos(), interval.peakInUse());
+        if (size == current) {
+            return;
+        }
+
+        HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(Math.min(configuredMinimumIdle, size));
+        (size > current ? grownCounter : shrunkCounter).increment();
+        log.info("Connection pool resized from {} to {} (mean wait {} us, mean hold {} us, peak in use {})",
+                current, size, interval.meanAcquireNanos() / 1000, interval.meanUsageNanos() / 1000,
+                interval.peakInUse());
+    }
+}
@@ -0,0 +1,143 @@
+package com.devops.demo.pool;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times how long each connection took to acquire and how long it was held, tagged with the repository
+ * method that ran the first statement on it ({@code db.connection.acquire} / {@code db.connection.usage}).
+ * Connections are usually taken when a transaction begins, before any repository call, so the tag is
+ * resolved lazily and both timings are recorded when the connection is returned.
+ *
+ * <p>Also keeps per-interval totals for {@link ConnectionPoolSizer}.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer[]> timersByMethod = new ConcurrentHashMap<>();
+
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAdder usageNanos = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    public InstrumentedDataSource(DataSource target, MeterRegistry meterRegistry) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        return track(super.getConnection(), start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        return track(super.getConnection(username, password), start);
+    }
+
+    /**
+     * Totals since the previous call, then starts a new interval.
+     */
+    public synchronized Interval drain() {
+        long count = returned.sumThenReset();
+        long acquire = acquireNanos.sumThenReset();
+        long usage = usageNanos.sumThenReset();
+        int peak = peakInUse.getAndSet(inUse.get());
+        return new Interval(count, count > 0 ? acquire / count : 0, count > 0 ? usage / count : 0, peak);
+    }
+
+    /**
+     * Connections returned in the interval, their mean acquire and hold times, and the most
+     * connections in use at once.
+     */
+    public record Interval(long connections, long meanAcquireNanos, long meanUsageNanos, int peakInUse) {}
+
+    private Connection track(Connection connection, long start) {
+        long acquired = System.nanoTime();
+        peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new TrackedConnection(connection, acquired - start, acquired));
+    }
+
+    private void onReturned(String method, long acquire, long usage) {
+        inUse.decrementAndGet();
+        acquireNanos.add(acquire);
+        usageNanos.add(usage);
+        returned.increment();
+
+        Timer[] timers = timersByMethod.computeIfAbsent(method, key -> new Timer[]{
+                Timer.builder("db.connection.acquire")
+                        .description("Time waiting for a pooled connection, by the repository method that used it")
+                        .tag("method", key)
+                        .register(meterRegistry),
+                Timer.builder("db.connection.usage")
+                        .description("Time a pooled connection was held, by the repository method that used it")
+                        .tag("method", key)
+                        .register(meterRegistry)
+        });
+        timers[0].record(acquire, TimeUnit.NANOSECONDS);
+        timers[1].record(usage, TimeUnit.NANOSECONDS);
+    }
+
+    private final class TrackedConnection implements InvocationHandler {
+        private final Connection target;
+        private final long acquireNanos;
+        private final long acquiredAt;
+        private String method;
+        private boolean closed;
+
+        TrackedConnection(Connection target, long acquireNanos, long acquiredAt) {
+            this.target = target;
+            this.acquireNanos = acquireNanos;
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method invoked, Object[] args) throws Throwable {
+            switch (invoked.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement", "prepareCall", "createStatement":
+                    if (method == null) {
+                        method = RepositoryMethodContext.current();
+                    }
+                    break;
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        onReturned(method != null ? method : OTHER, acquireNanos, System.nanoTime() - acquiredAt);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return invoked.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
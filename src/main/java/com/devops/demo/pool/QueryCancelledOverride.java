@@ -0,0 +1,20 @@
+package com.devops.demo.pool;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps connections whose statement was cancelled by its query timeout (SQLSTATE 57014) in the pool.
+ * Hikari evicts a connection on any {@link java.sql.SQLTimeoutException}, which closes it under the open
+ * transaction, so the rollback fails and hides the timeout.
+ */
+public class QueryCancelledOverride implements SQLExceptionOverride {
+
+    private static final String QUERY_CANCELED = "57014";
+
+    @java.lang.Override
+    public Override adjudicate(SQLException e) {
+        return QUERY_CANCELED.equals(e.getSQLState()) ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+}
@@ -0,0 +1,35 @@
+package com.devops.demo.pool;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.data.repository.core.RepositoryInformation;
+
+/**
+ * Remembers which repository method the current thread is in, e.g. {@code TaskRepository.findByStatus},
+ * so connection metrics can be attributed to it. Nested repository calls keep the outermost name.
+ */
+public final class RepositoryMethodContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static MethodInterceptor interceptor(RepositoryInformation repository) {
+        String prefix = repository.getRepositoryInterface().getSimpleName() + ".";
+        return invocation -> {
+            if (CURRENT.get() != null) {
+                return invocation.proceed();
+            }
+            CURRENT.set(prefix + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+}
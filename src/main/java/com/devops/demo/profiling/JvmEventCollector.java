@@ -0,0 +1,309 @@
+package com.devops.demo.profiling;
+
+import com.devops.demo.model.JvmEventMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Streams a handful of cheap JFR events for as long as the application runs and turns them into
+ * Micrometer meters plus a rolling {@link JvmEventMetrics} window for {@code /api/v1/metrics/system} and
+ * the {@code /topic/metrics} broadcast:
+ * <ul>
+ *   <li>{@code jdk.GarbageCollection}: pause time per collection ({@code jvm.jfr.gc.pause})</li>
+ *   <li>{@code jdk.ThreadAllocationStatistics}: bytes allocated ({@code jvm.jfr.allocated})</li>
+ *   <li>{@code jdk.G1EvacuationOldStatistics}: bytes promoted to the old generation ({@code jvm.jfr.promoted});
+ *       G1 only, other collectors report no promotion</li>
+ *   <li>{@code jdk.SafepointBegin}: time for all threads to reach a safepoint ({@code jvm.jfr.safepoint.sync})</li>
+ *   <li>{@code jdk.JavaMonitorEnter} above {@code app.jvm-events.contention-threshold}
+ *       ({@code jvm.jfr.monitor.contended})</li>
+ *   <li>{@code jdk.ThreadCPULoad}: CPU per thread, published per thread pool ({@code jvm.jfr.thread.cpu})</li>
+ * </ul>
+ * None of these take stack traces, so the stream costs far less than a profiling recording.
+ */
+@Component
+public class JvmEventCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(JvmEventCollector.class);
+
+    private static final long[] PAUSE_BUCKETS_MS = {1, 5, 10, 50, 100, 500};
+    private static final Duration ALLOCATION_PERIOD = Duration.ofSeconds(1);
+    // Thread pools and monitor classes beyond this are tagged "other"
+    private static final int MAX_TAG_VALUES = 50;
+    private static final String OTHER = "other";
+    // http-nio-8080-exec-12 -> http-nio-8080-exec
+    private static final Pattern THREAD_NUMBER = Pattern.compile("[-#_ ]?\\d+$");
+
+    private final Duration window;
+    private final int topThreads;
+    private final Duration threadCpuPeriod;
+    private final MeterRegistry meterRegistry;
+
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder promotedBytes = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final Timer safepointTimer;
+    private final Map<String, Timer> pauseTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> contentionCounters = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> threadPools = new ConcurrentHashMap<>();
+
+    // Stream thread only
+    private final Map<Long, long[]> allocatedByThread = new HashMap<>();
+    // Latest CPU load per Java thread id
+    private final Map<Long, ThreadCpuSample> threadCpu = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final Deque<long[]> pauses = new ArrayDeque<>();
+    private final Deque<WindowSample> samples = new ArrayDeque<>();
+
+    private final RecordingStream stream;
+
+    public JvmEventCollector(@Value("${app.jvm-events.enabled:true}") boolean enabled,
+                             @Value("${app.jvm-events.window:PT1M}") Duration window,
+                             @Value("${app.jvm-events.top-threads:5}") int topThreads,
+                             @Value("${app.jvm-events.thread-cpu-period:PT5S}") Duration threadCpuPeriod,
+                             @Value("${app.jvm-events.contention-threshold:PT0.01S}") Duration contentionThreshold,
+                             MeterRegistry meterRegistry) {
+        this.window = window;
+        this.topThreads = topThreads;
+        this.threadCpuPeriod = threadCpuPeriod;
+        this.meterRegistry = meterRegistry;
+
+        FunctionCounter.builder("jvm.jfr.allocated", allocatedBytes, LongAdder::sum)
+                .description("Bytes allocated by Java threads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("jvm.jfr.promoted", promotedBytes, LongAdder::sum)
+                .description("Bytes promoted to the old generation during young and mixed collections")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.safepointTimer = Timer.builder("jvm.jfr.safepoint.sync")
+                .description("Time for all threads to reach a safepoint")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.stream = enabled ? start(contentionThreshold) : null;
+    }
+
+    /**
+     * The current window, or {@code null} when the stream is not running.
+     */
+    public JvmEventMetrics snapshot() {
+        if (stream == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (long bound : PAUSE_BUCKETS_MS) {
+            histogram.put("<=" + bound + "ms", 0L);
+        }
+        histogram.put(">" + PAUSE_BUCKETS_MS[PAUSE_BUCKETS_MS.length - 1] + "ms", 0L);
+        long pauseCount = 0;
+        long pauseTotal = 0;
+        long pauseMax = 0;
+        WindowSample first;
+        WindowSample last;
+        synchronized (this) {
+            trim(now);
+            for (long[] pause : pauses) {
+                pauseCount++;
+                pauseTotal += pause[1];
+                pauseMax = Math.max(pauseMax, pause[1]);
+                histogram.merge(bucket(pause[1]), 1L, Long::sum);
+            }
+            first = samples.peekFirst();
+            last = samples.peekLast();
+        }
+
+        double seconds = first != null && last != first ? (last.nanoTime() - first.nanoTime()) / 1e9 : 0;
+        return new JvmEventMetrics(round(seconds), pauseCount, millis(pauseTotal), millis(pauseMax), histogram,
+                seconds > 0 ? round((last.allocated() - first.allocated()) / seconds / (1024 * 1024)) : 0,
+                seconds > 0 ? round((last.promoted() - first.promoted()) / seconds / (1024 * 1024)) : 0,
+                seconds > 0 ? last.safepoints() - first.safepoints() : 0,
+                seconds > 0 ? millis(last.safepointNanos() - first.safepointNanos()) : 0,
+                seconds > 0 ? last.contentions() - first.contentions() : 0,
+                threadCpu.values().stream()
+                        .sorted(Comparator.comparingDouble(ThreadCpuSample::load).reversed())
+                        .limit(topThreads)
+                        .map(sample -> new JvmEventMetrics.ThreadCpu(sample.name(), round(sample.load() * 100)))
+                        .toList());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private RecordingStream start(Duration contentionThreshold) {
+        RecordingStream recording;
+        try {
+            recording = new RecordingStream();
+        } catch (RuntimeException e) {
+            // e.g. a native image built without JFR support
+            log.warn("JFR event streaming unavailable, JVM event metrics disabled: {}", e.getMessage());
+            return null;
+        }
+        recording.enable("jdk.GarbageCollection");
+        recording.enable("jdk.G1EvacuationOldStatistics");
+        recording.enable("jdk.SafepointBegin");
+        recording.enable("jdk.JavaMonitorEnter").withThreshold(contentionThreshold).withoutStackTrace();
+        recording.enable("jdk.ThreadAllocationStatistics").withPeriod(ALLOCATION_PERIOD);
+        recording.enable("jdk.ThreadCPULoad").withPeriod(threadCpuPeriod);
+        // Only a window's worth is ever needed; let JFR drop older chunks
+        recording.setMaxAge(window);
+
+        recording.onEvent("jdk.GarbageCollection", this::onGarbageCollection);
+        recording.onEvent("jdk.G1EvacuationOldStatistics", event -> promotedBytes.add(
+                event.getLong("statistics.used") + event.getLong("statistics.directAllocated")));
+        recording.onEvent("jdk.SafepointBegin", event -> safepointTimer.record(event.getDuration()));
+        recording.onEvent("jdk.JavaMonitorEnter", this::onMonitorEnter);
+        recording.onEvent("jdk.ThreadAllocationStatistics", this::onAllocationStatistics);
+        recording.onEvent("jdk.ThreadCPULoad", this::onThreadCpuLoad);
+        recording.onFlush(this::onFlush);
+        recording.startAsync();
+        log.info("Streaming JFR events for JVM metrics over a {} window", window);
+        return recording;
+    }
+
+    private void onGarbageCollection(RecordedEvent event) {
+        long pause = event.getDuration("sumOfPauses").toNanos();
+        String collector = event.getString("name");
+        pauseTimers.computeIfAbsent(collector, name -> Timer.builder("jvm.jfr.gc.pause")
+                        .description("Stop-the-world pause time per garbage collection")
+                        .tag("collector", name)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(pause, TimeUnit.NANOSECONDS);
+        synchronized (this) {
+            pauses.addLast(new long[]{System.nanoTime(), pause});
+        }
+    }
+
+    private void onMonitorEnter(RecordedEvent event) {
+        contentions.increment();
+        String monitor = event.getClass("monitorClass") != null ? event.getClass("monitorClass").getName() : OTHER;
+        Counter counter = contentionCounters.get(monitor);
+        if (counter == null) {
+            counter = contentionCounters.computeIfAbsent(contentionCounters.size() < MAX_TAG_VALUES ? monitor : OTHER,
+                    name -> Counter.builder("jvm.jfr.monitor.contended")
+                            .description("Contended synchronized entries that waited above the threshold")
+                            .tag("monitor", name)
+                            .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
+    private void onAllocationStatistics(RecordedEvent event) {
+        RecordedThread thread = event.getThread("thread");
+        if (thread == null) {
+            return;
+        }
+        long allocated = event.getLong("allocated");
+        long[] previous = allocatedByThread.get(thread.getJavaThreadId());
+        if (previous == null) {
+            // First sighting is the baseline, not allocation within the window
+            allocatedByThread.put(thread.getJavaThreadId(), new long[]{allocated, System.nanoTime()});
+        } else {
+            allocatedBytes.add(Math.max(0, allocated - previous[0]));
+            previous[0] = allocated;
+            previous[1] = System.nanoTime();
+        }
+    }
+
+    private void onThreadCpuLoad(RecordedEvent event) {
+        RecordedThread thread = event.getThread("eventThread");
+        if (thread == null) {
+            return;
+        }
+        String name = thread.getJavaName() != null ? thread.getJavaName() : thread.getOSName();
+        String pool = THREAD_NUMBER.matcher(name).replaceFirst("");
+        if (threadPools.size() < MAX_TAG_VALUES && threadPools.putIfAbsent(pool, Boolean.TRUE) == null) {
+            Gauge.builder("jvm.jfr.thread.cpu", threadCpu, samples -> samples.values().stream()
+                            .filter(sample -> sample.pool().equals(pool))
+                            .mapToDouble(ThreadCpuSample::load)
+                            .sum())
+                    .description("Share of machine CPU used by the threads of a pool")
+                    .tag("pool", pool)
+                    .register(meterRegistry);
+        }
+        threadCpu.put(thread.getJavaThreadId(), new ThreadCpuSample(name, pool,
+                event.getFloat("user") + event.getFloat("system"), System.nanoTime()));
+    }
+
+    private void onFlush() {
+        long now = System.nanoTime();
+        // Threads that stopped reporting have exited
+        long cpuCutoff = now - threadCpuPeriod.toNanos() * 3;
+        threadCpu.values().removeIf(sample -> sample.nanoTime() < cpuCutoff);
+        long allocationCutoff = now - ALLOCATION_PERIOD.toNanos() * 3;
+        allocatedByThread.values().removeIf(previous -> previous[1] < allocationCutoff);
+
+        synchronized (this) {
+            samples.addLast(new WindowSample(now, allocatedBytes.sum(), promotedBytes.sum(),
+                    safepointTimer.count(), (long) safepointTimer.totalTime(TimeUnit.NANOSECONDS),
+                    contentions.sum()));
+            trim(now);
+        }
+    }
+
+    private void trim(long now) {
+        long cutoff = now - window.toNanos();
+        while (!pauses.isEmpty() && pauses.peekFirst()[0] < cutoff) {
+            pauses.removeFirst();
+        }
+        // Keep one sample at or before the cutoff as the baseline for rates
+        while (samples.size() > 1) {
+            WindowSample oldest = samples.removeFirst();
+            if (samples.peekFirst().nanoTime() > cutoff) {
+                samples.addFirst(oldest);
+                break;
+            }
+        }
+    }
+
+    private static String bucket(long pauseNanos) {
+        for (long bound : PAUSE_BUCKETS_MS) {
+            if (pauseNanos <= TimeUnit.MILLISECONDS.toNanos(bound)) {
+                return "<=" + bound + "ms";
+            }
+        }
+        return ">" + PAUSE_BUCKETS_MS[PAUSE_BUCKETS_MS.length - 1] + "ms";
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private record ThreadCpuSample(String name, String pool, double load, long nanoTime) {}
+
+    private record WindowSample(long nanoTime, long allocated, long promoted, long safepoints, long safepointNanos,
+                                long contentions) {}
+}
@@ -0,0 +1,96 @@
+package com.devops.demo.profiling;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * {@code /actuator/profiling}: on-demand JFR recordings. It is an actuator endpoint so that it is served
+ * with the other operational endpoints, on the management port under the production profile, and never
+ * on the port the API is published on.
+ *
+ * <ul>
+ *   <li>{@code POST /actuator/profiling?settings=&durationSeconds=} starts a recording</li>
+ *   <li>{@code GET /actuator/profiling} lists running and recent recordings</li>
+ *   <li>{@code GET /actuator/profiling/{id}} returns a recording's progress and summary</li>
+ *   <li>{@code POST /actuator/profiling/{id}/stop} ends a recording early</li>
+ *   <li>{@code GET /actuator/profiling/{id}/recording} downloads the {@code .jfr} file</li>
+ * </ul>
+ */
+@Component
+@WebEndpoint(id = "profiling")
+public class ProfilingEndpoint {
+
+    private static final int MAX_DURATION_SECONDS = 600;
+
+    private final ProfilingService profilingService;
+
+    public ProfilingEndpoint(ProfilingService profilingService) {
+        this.profilingService = profilingService;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<ProfilingSession> start(@Nullable ProfilingSession.Settings settings,
+                                                       @Nullable Integer durationSeconds) {
+        if (!profilingService.isEnabled()) {
+            return new WebEndpointResponse<>(HttpStatus.FORBIDDEN.value());
+        }
+        int duration = durationSeconds != null ? durationSeconds : 60;
+        if (duration < 1 || duration > MAX_DURATION_SECONDS) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        return profilingService.start(settings != null ? settings : ProfilingSession.Settings.DEFAULT, duration)
+                .map(session -> new WebEndpointResponse<>(session, HttpStatus.ACCEPTED.value()))
+                .orElse(new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS));
+    }
+
+    @ReadOperation
+    public Collection<ProfilingSession> sessions() {
+        return profilingService.getSessions();
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<ProfilingSession> session(@Selector String id) {
+        return profilingService.getSession(id)
+                .map(WebEndpointResponse::new)
+                .orElse(new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<ProfilingSession> stop(@Selector String id, @Selector String action) {
+        if (!action.equals("stop")) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return profilingService.stop(id)
+                .map(WebEndpointResponse::new)
+                .orElse(new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> recording(@Selector String id, @Selector String file) {
+        if (!file.equals("recording")) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return profilingService.getSession(id)
+                .map(session -> {
+                    if (session.getStatus() == ProfilingSession.Status.RUNNING) {
+                        return new WebEndpointResponse<Resource>(HttpStatus.CONFLICT.value());
+                    }
+                    FileSystemResource recording = new FileSystemResource(session.getFile());
+                    if (!recording.exists() || session.getRecordingBytes() == 0) {
+                        return new WebEndpointResponse<Resource>(WebEndpointResponse.STATUS_NOT_FOUND);
+                    }
+                    return new WebEndpointResponse<Resource>(recording);
+                })
+                .orElse(new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+}
@@ -0,0 +1,206 @@
+package com.devops.demo.profiling;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes Java Flight Recorder recordings of the running application on demand. Overhead is kept bounded:
+ * only the JDK's {@code default} and {@code profile} settings are offered, one recording runs at a time,
+ * its on-disk size is capped at {@code app.profiling.max-size}, and the summary is built afterwards on a
+ * single low-priority thread. Recordings and summaries are kept for {@code app.profiling.retention}.
+ * Recordings are served by {@link ProfilingEndpoint} and leave out the process environment and system
+ * properties.
+ */
+@Service
+public class ProfilingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfilingService.class);
+
+    private final boolean enabled;
+    private final long maxSizeBytes;
+    private final Duration retention;
+    private final int summarySize;
+    private final Map<String, ProfilingSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, ActiveRecording> active = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final Timer summaryTimer;
+
+    public ProfilingService(@Value("${app.profiling.enabled:false}") boolean enabled,
+                            @Value("${app.profiling.max-size:64MB}") DataSize maxSize,
+                            @Value("${app.profiling.retention:PT30M}") Duration retention,
+                            @Value("${app.profiling.summary-size:10}") int summarySize,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSizeBytes = maxSize.toBytes();
+        this.retention = retention;
+        this.summarySize = summarySize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jfr-profiler");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        Gauge.builder("profiling.active", sessions,
+                        all -> all.values().stream().filter(ProfilingSession::isActive).count())
+                .description("JFR recordings running or being summarized")
+                .register(meterRegistry);
+        this.summaryTimer = Timer.builder("profiling.summary")
+                .description("Time to summarize a finished JFR recording")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a recording that stops on its own after {@code durationSeconds}. Empty while another one is
+     * still running or being summarized.
+     */
+    public synchronized Optional<ProfilingSession> start(ProfilingSession.Settings settings, int durationSeconds) {
+        if (sessions.values().stream().anyMatch(ProfilingSession::isActive)) {
+            log.warn("Rejecting JFR recording: another recording is in progress");
+            return Optional.empty();
+        }
+
+        String id = UUID.randomUUID().toString();
+        Recording recording;
+        Path file;
+        try {
+            recording = new Recording(withoutEnvironment(Configuration.getConfiguration(settings.configurationName())));
+            file = Files.createTempFile("profile-" + id, ".jfr");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Cannot read JFR settings " + settings.configurationName(), e);
+        }
+        recording.setName("devops-demo-" + id);
+        recording.setToDisk(true);
+        recording.setMaxSize(maxSizeBytes);
+        recording.start();
+
+        ProfilingSession session = new ProfilingSession(id, settings, durationSeconds, file);
+        sessions.put(id, session);
+        active.put(id, new ActiveRecording(recording,
+                executor.schedule(() -> finish(id), durationSeconds, TimeUnit.SECONDS)));
+        log.info("Started JFR recording {} with {} settings for {}s", id, settings.configurationName(),
+                durationSeconds);
+        return Optional.of(session);
+    }
+
+    /**
+     * Stops a running recording early; it is still written out and summarized.
+     */
+    public Optional<ProfilingSession> stop(String id) {
+        ActiveRecording recording = active.get(id);
+        if (recording != null && recording.stopTask().cancel(false)) {
+            log.info("Stopping JFR recording {} early", id);
+            executor.execute(() -> finish(id));
+        }
+        return Optional.ofNullable(sessions.get(id));
+    }
+
+    public Optional<ProfilingSession> getSession(String id) {
+        return Optional.ofNullable(sessions.get(id));
+    }
+
+    public Collection<ProfilingSession> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinished() {
+        Instant cutoff = Instant.now().minus(retention);
+        sessions.values().removeIf(session -> {
+            if (session.isActive() || session.getFinishedAt() == null || !session.getFinishedAt().isBefore(cutoff)) {
+                return false;
+            }
+            delete(session.getFile());
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        active.values().forEach(recording -> recording.recording().close());
+        active.clear();
+        sessions.values().forEach(session -> delete(session.getFile()));
+    }
+
+    private void finish(String id) {
+        ActiveRecording recording = active.remove(id);
+        ProfilingSession session = sessions.get(id);
+        if (recording == null || session == null) {
+            return;
+        }
+
+        try (Recording jfr = recording.recording()) {
+            jfr.stop();
+            jfr.dump(session.getFile());
+            session.recorded(Files.size(session.getFile()));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write JFR recording {}", id, e);
+            session.failed(e.getMessage());
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            session.summarized(RecordingSummarizer.summarize(session.getFile(), summarySize));
+            summaryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.info("JFR recording {} finished: {} bytes", id, session.getRecordingBytes());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to summarize JFR recording {}", id, e);
+            session.failed(e.getMessage());
+        }
+    }
+
+    // Recordings can be downloaded: leave out environment variables and system properties, which hold secrets
+    private static Map<String, String> withoutEnvironment(Configuration configuration) {
+        Map<String, String> settings = new HashMap<>(configuration.getSettings());
+        settings.put("jdk.InitialEnvironmentVariable#enabled", "false");
+        settings.put("jdk.InitialSystemProperty#enabled", "false");
+        return settings;
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete JFR recording {}", file, e);
+        }
+    }
+
+    private record ActiveRecording(Recording recording, ScheduledFuture<?> stopTask) {}
+}
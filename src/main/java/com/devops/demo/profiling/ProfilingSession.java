@@ -0,0 +1,109 @@
+package com.devops.demo.profiling;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+public class ProfilingSession {
+
+    private final String id;
+    private final Settings settings;
+    private final int durationSeconds;
+    private final Instant startedAt;
+    private final Path file;
+    private volatile Status status = Status.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile long recordingBytes;
+    private volatile ProfilingSummary summary;
+    private volatile String error;
+
+    public ProfilingSession(String id, Settings settings, int durationSeconds, Path file) {
+        this.id = id;
+        this.settings = settings;
+        this.durationSeconds = durationSeconds;
+        this.startedAt = Instant.now();
+        this.file = file;
+    }
+
+    public boolean isActive() {
+        return status == Status.RUNNING || status == Status.SUMMARIZING;
+    }
+
+    void recorded(long bytes) {
+        recordingBytes = bytes;
+        finishedAt = Instant.now();
+        status = Status.SUMMARIZING;
+    }
+
+    void summarized(ProfilingSummary summary) {
+        this.summary = summary;
+        status = Status.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        if (finishedAt == null) {
+            finishedAt = Instant.now();
+        }
+        status = Status.FAILED;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getRecordingBytes() {
+        return recordingBytes;
+    }
+
+    public ProfilingSummary getSummary() {
+        return summary;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @JsonIgnore
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * The JFR settings shipped with the JDK: {@code default} is meant to stay around 1% overhead and
+     * is safe to leave running in production, {@code profile} samples more often (around 2%).
+     */
+    public enum Settings {
+        DEFAULT, PROFILE;
+
+        public String configurationName() {
+            return name().toLowerCase();
+        }
+    }
+
+    public enum Status {
+        RUNNING, SUMMARIZING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,30 @@
+package com.devops.demo.profiling;
+
+import java.util.List;
+
+/**
+ * What a recording says about where the time went: hottest methods by CPU samples, largest allocation
+ * sites by sampled bytes, the most contended locks and the collector pauses.
+ */
+public record ProfilingSummary(long executionSamples,
+                               long allocationSamples,
+                               List<MethodSample> topCpuMethods,
+                               List<AllocationSite> topAllocationSites,
+                               List<LockContention> lockContention,
+                               List<GcPauses> gcPauses) {
+
+    /** A method seen on top of the stack in {@code samples} CPU samples. */
+    public record MethodSample(String method, long samples, double percent) {}
+
+    /** Estimated bytes of {@code objectClass} allocated at {@code site}. */
+    public record AllocationSite(String site, String objectClass, long bytes, double percent) {}
+
+    /**
+     * Time threads spent blocked on {@code lock}: a monitor class for {@code synchronized}, or the code
+     * that called into a {@code java.util.concurrent} lock. Only waits above the settings' threshold
+     * (10 ms for {@code profile}, 20 ms for {@code default}) are recorded.
+     */
+    public record LockContention(String lock, String kind, long count, double totalMs, double maxMs) {}
+
+    public record GcPauses(String collector, long count, double totalPauseMs, double maxPauseMs) {}
+}
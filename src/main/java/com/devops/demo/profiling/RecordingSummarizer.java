@@ -0,0 +1,155 @@
+package com.devops.demo.profiling;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduces a {@code .jfr} file to a {@link ProfilingSummary} in one streaming pass, keeping only
+ * per-key totals so memory stays flat however long the recording is.
+ */
+public final class RecordingSummarizer {
+
+    private static final String LOCKS_PACKAGE = "java.util.concurrent.locks.";
+
+    private RecordingSummarizer() {
+    }
+
+    public static ProfilingSummary summarize(Path recording, int top) throws IOException {
+        Map<String, Long> cpu = new HashMap<>();
+        Map<List<String>, Long> allocations = new HashMap<>();
+        Map<List<String>, long[]> locks = new HashMap<>();
+        Map<String, long[]> gc = new HashMap<>();
+        long executionSamples = 0;
+        long allocationSamples = 0;
+        long allocatedBytes = 0;
+
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> {
+                        executionSamples++;
+                        cpu.merge(topFrame(event.getStackTrace(), false), 1L, Long::sum);
+                    }
+                    case "jdk.ObjectAllocationSample" -> {
+                        long weight = event.getLong("weight");
+                        allocationSamples++;
+                        allocatedBytes += weight;
+                        allocations.merge(List.of(topFrame(event.getStackTrace(), true),
+                                className(event.getClass("objectClass"))), weight, Long::sum);
+                    }
+                    case "jdk.JavaMonitorEnter" -> addWait(locks,
+                            List.of(className(event.getClass("monitorClass")), "monitor"), event.getDuration());
+                    case "jdk.ThreadPark" -> {
+                        String caller = lockCaller(event.getStackTrace());
+                        if (caller != null) {
+                            addWait(locks, List.of(caller, "lock"), event.getDuration());
+                        }
+                    }
+                    case "jdk.GarbageCollection" -> {
+                        long[] totals = gc.computeIfAbsent(event.getString("name"), name -> new long[3]);
+                        long pause = event.getDuration("sumOfPauses").toNanos();
+                        totals[0]++;
+                        totals[1] += pause;
+                        totals[2] = Math.max(totals[2], event.getDuration("longestPause").toNanos());
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        long samples = executionSamples;
+        long bytes = allocatedBytes;
+        return new ProfilingSummary(executionSamples, allocationSamples,
+                cpu.entrySet().stream()
+                        .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                        .limit(top)
+                        .map(e -> new ProfilingSummary.MethodSample(e.getKey(), e.getValue(),
+                                percent(e.getValue(), samples)))
+                        .toList(),
+                allocations.entrySet().stream()
+                        .sorted(Map.Entry.<List<String>, Long>comparingByValue().reversed())
+                        .limit(top)
+                        .map(e -> new ProfilingSummary.AllocationSite(e.getKey().get(0), e.getKey().get(1),
+                                e.getValue(), percent(e.getValue(), bytes)))
+                        .toList(),
+                locks.entrySet().stream()
+                        .sorted(Comparator.comparingLong((Map.Entry<List<String>, long[]> e) -> e.getValue()[1])
+                                .reversed())
+                        .limit(top)
+                        .map(e -> new ProfilingSummary.LockContention(e.getKey().get(0), e.getKey().get(1),
+                                e.getValue()[0], millis(e.getValue()[1]), millis(e.getValue()[2])))
+                        .toList(),
+                gc.entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .map(e -> new ProfilingSummary.GcPauses(e.getKey(), e.getValue()[0],
+                                millis(e.getValue()[1]), millis(e.getValue()[2])))
+                        .toList());
+    }
+
+    private static void addWait(Map<List<String>, long[]> locks, List<String> key, Duration duration) {
+        long[] totals = locks.computeIfAbsent(key, k -> new long[3]);
+        totals[0]++;
+        totals[1] += duration.toNanos();
+        totals[2] = Math.max(totals[2], duration.toNanos());
+    }
+
+    /**
+     * The first frame outside {@code java.util.concurrent.locks} when a park is waiting to acquire a lock,
+     * {@code null} for other parks such as idle pool threads waiting on a condition or a queue.
+     */
+    private static String lockCaller(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+        boolean acquiring = false;
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            RecordedMethod method = frame.getMethod();
+            String type = method.getType().getName();
+            if (type.startsWith(LOCKS_PACKAGE)) {
+                if (type.endsWith("$ConditionObject")) {
+                    return null;
+                }
+                acquiring |= method.getName().startsWith("acquire");
+            } else if (!type.equals("jdk.internal.misc.Unsafe") && !type.equals("java.lang.invoke.LambdaForm$MH")) {
+                return acquiring ? type + "." + method.getName() : null;
+            }
+        }
+        return null;
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace, boolean withLine) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame frame = stackTrace.getFrames().get(0);
+        RecordedMethod method = frame.getMethod();
+        String name = method.getType().getName() + "." + method.getName();
+        return withLine && frame.getLineNumber() > 0 ? name + ":" + frame.getLineNumber() : name;
+    }
+
+    private static String className(RecordedClass recordedClass) {
+        return recordedClass != null ? recordedClass.getName() : "unknown";
+    }
+
+    private static double percent(long part, long total) {
+        return total > 0 ? Math.round(part * 10000.0 / total) / 100.0 : 0;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+}
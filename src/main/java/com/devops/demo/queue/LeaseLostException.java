@@ -0,0 +1,19 @@
+package com.devops.demo.queue;
+
+/**
+ * The worker no longer holds the task: its lease expired (whether or not the task was re-queued yet),
+ * the task left IN_PROGRESS, or another worker claimed it since.
+ */
+public class LeaseLostException extends RuntimeException {
+
+    private final Long taskId;
+
+    public LeaseLostException(Long taskId, String workerId) {
+        super("Task " + taskId + " is not claimed by worker " + workerId);
+        this.taskId = taskId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+}
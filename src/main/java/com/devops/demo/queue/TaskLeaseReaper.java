@@ -0,0 +1,64 @@
+package com.devops.demo.queue;
+
+import com.devops.demo.service.TaskService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Puts tasks whose claim lease ran out back to PENDING, so work held by a crashed or stalled worker is
+ * picked up by another one. Each batch is its own transaction and skips rows a claim has locked.
+ */
+@Component
+public class TaskLeaseReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskLeaseReaper.class);
+
+    private final TaskService taskService;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Counter requeuedCounter;
+
+    public TaskLeaseReaper(TaskService taskService,
+                           @Value("${app.queue.reaper.batch-size:500}") int batchSize,
+                           @Value("${app.queue.reaper.max-batches-per-run:20}") int maxBatchesPerRun,
+                           MeterRegistry meterRegistry) {
+        this.taskService = taskService;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.requeuedCounter = Counter.builder("tasks.queue.requeued")
+                .description("Claimed tasks put back to PENDING after their lease expired")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.queue.reaper.interval:PT15S}",
+            fixedDelayString = "${app.queue.reaper.interval:PT15S}")
+    public void scheduledRun() {
+        try {
+            requeueExpired();
+        } catch (RuntimeException e) {
+            log.warn("Re-queueing expired task leases failed, retrying next interval", e);
+        }
+    }
+
+    /**
+     * Re-queues expired claims until none are left or the per-run batch limit is reached.
+     * Returns the number of tasks re-queued.
+     */
+    public synchronized int requeueExpired() {
+        int requeued = 0;
+        int batches = 0;
+        int moved;
+        do {
+            moved = taskService.requeueExpiredLeases(batchSize);
+            requeuedCounter.increment(moved);
+            requeued += moved;
+            batches++;
+        } while (moved == batchSize && batches < maxBatchesPerRun);
+        return requeued;
+    }
+}
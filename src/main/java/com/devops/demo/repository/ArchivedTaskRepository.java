@@ -0,0 +1,21 @@
+package com.devops.demo.repository;
+
+import com.devops.demo.model.ArchivedTask;
+import com.devops.demo.model.Task.TaskPriority;
+import com.devops.demo.model.Task.TaskStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long> {
+
+    List<ArchivedTask> findByStatus(TaskStatus status);
+
+    List<ArchivedTask> findByStatusAndPriority(TaskStatus status, TaskPriority priority);
+
+    @Query("SELECT t FROM ArchivedTask t ORDER BY t.createdAt DESC")
+    List<ArchivedTask> findAllOrderByCreatedAtDesc();
+}
@@ -3,26 +3,103 @@ package com.devops.demo.repository;
 import com.devops.demo.model.Task;
 import com.devops.demo.model.Task.TaskStatus;
 import com.devops.demo.model.Task.TaskPriority;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "task-queries")
+    })
     List<Task> findByStatus(TaskStatus status);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "task-queries")
+    })
     List<Task> findByPriority(TaskPriority priority);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "task-queries")
+    })
     List<Task> findByStatusAndPriority(TaskStatus status, TaskPriority priority);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "task-queries")
+    })
     @Query("SELECT COUNT(t) FROM Task t WHERE t.status = ?1")
     long countByStatus(TaskStatus status);
 
     @Query("SELECT t FROM Task t ORDER BY t.createdAt DESC")
     List<Task> findAllOrderByCreatedAtDesc();
 
+    @Query("SELECT t.id FROM Task t ORDER BY t.createdAt DESC")
+    List<Long> findRecentIds(Pageable pageable);
+
+    // updatedAt is only set by updates, so new tasks are found by createdAt
+    @Query("SELECT t FROM Task t WHERE t.updatedAt >= ?1 OR (t.updatedAt IS NULL AND t.createdAt >= ?1)")
+    List<Task> findChangedSince(LocalDateTime since);
+
     List<Task> findByTitleContainingIgnoreCase(String title);
+
+    /**
+     * Terminal tasks that reached their final state before {@code cutoff}, oldest id first, locked
+     * for the archiving transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.status IN ?1"
+            + " AND COALESCE(t.completedAt, t.updatedAt, t.createdAt) < ?2 ORDER BY t.id")
+    List<Task> findArchivable(Collection<TaskStatus> statuses, LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Oldest tasks with the given status and priority, locked for the claiming transaction. Rows locked by
+     * a concurrent claim are skipped instead of waited for (a lock timeout of -2 is SKIP LOCKED; dialects
+     * without it, such as H2, fall back to a plain FOR UPDATE).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT t FROM Task t WHERE t.status = ?1 AND t.priority = ?2 ORDER BY t.createdAt, t.id")
+    List<Task> findClaimable(TaskStatus status, TaskPriority priority, Pageable pageable);
+
+    /**
+     * The task, locked for a worker extending or ending its claim, so the lease reaper skips it meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.id = ?1")
+    Optional<Task> findByIdForUpdate(Long id);
+
+    /**
+     * The tasks, locked while buffered updates are applied to them, so no other write lands in between.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.id IN ?1")
+    List<Task> findAllByIdForUpdate(Collection<Long> ids);
+
+    /**
+     * Claimed tasks whose lease ran out before {@code now}, locked like {@link #findClaimable}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT t FROM Task t WHERE t.status = ?1 AND t.leaseExpiresAt < ?2 ORDER BY t.leaseExpiresAt")
+    List<Task> findExpiredLeases(TaskStatus status, LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT MIN(COALESCE(t.completedAt, t.updatedAt, t.createdAt)) FROM Task t WHERE t.status IN ?1")
+    Optional<LocalDateTime> findOldestFinishedAt(Collection<TaskStatus> statuses);
 }
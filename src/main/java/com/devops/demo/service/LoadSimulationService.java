@@ -0,0 +1,240 @@
+package com.devops.demo.service;
+
+import com.devops.demo.model.LoadSimulation;
+import com.devops.demo.model.LoadSimulationRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs CPU and allocation load on a dedicated fork-join pool so that autoscaling tests
+ * never tie up request threads. Each simulation spreads a duty cycle over the requested
+ * cores and, optionally, churns memory at a fixed rate while retaining a bounded live set.
+ */
+@Service
+public class LoadSimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadSimulationService.class);
+
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long ALLOCATION_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // Share of the maximum heap that the live sets of all running simulations may hold together
+    private static final double LIVE_SET_HEAP_SHARE = 0.5;
+
+    private final ForkJoinPool pool;
+    private final Map<String, LoadSimulation> simulations = new ConcurrentHashMap<>();
+    private final int maxCores;
+    private final int maxConcurrent;
+    private final long maxLiveSetMb;
+    private final Duration retention;
+
+    public LoadSimulationService(@Value("${app.simulation.max-concurrent:4}") int maxConcurrent,
+                                 @Value("${app.simulation.retention:PT10M}") Duration retention,
+                                 MeterRegistry meterRegistry) {
+        this.maxCores = Runtime.getRuntime().availableProcessors();
+        this.maxConcurrent = maxConcurrent;
+        this.maxLiveSetMb = (long) (Runtime.getRuntime().maxMemory() * LIVE_SET_HEAP_SHARE) / (1024 * 1024);
+        this.retention = retention;
+        // One extra worker per simulation for the allocation loop
+        this.pool = new ForkJoinPool(maxCores + maxConcurrent, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("load-sim-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        Gauge.builder("simulation.active", simulations,
+                        sims -> sims.values().stream().filter(LoadSimulation::isActive).count())
+                .description("Load simulations currently running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Largest live set a single simulation may retain, a share of the maximum heap.
+     */
+    public long getMaxLiveSetMb() {
+        return maxLiveSetMb;
+    }
+
+    /**
+     * Starts a simulation unless {@code max-concurrent} are already running or its live set would take the
+     * retained memory of all running simulations past {@link #getMaxLiveSetMb()}.
+     */
+    public Optional<LoadSimulation> start(LoadSimulationRequest request) {
+        int cores = request.getTargetCpuPercent() > 0 ? Math.min(request.getCores(), maxCores) : 0;
+        boolean allocates = request.getAllocationRateMb() > 0 || request.getLiveSetMb() > 0;
+        int workers = cores + (allocates ? 1 : 0);
+
+        LoadSimulation simulation = new LoadSimulation(UUID.randomUUID().toString(), request, Math.max(workers, 1));
+        // Checking and registering under one lock, so concurrent starts cannot both take the last slot
+        synchronized (simulations) {
+            List<LoadSimulation> active = simulations.values().stream().filter(LoadSimulation::isActive).toList();
+            if (active.size() >= maxConcurrent) {
+                log.warn("Rejecting load simulation: {} already running", maxConcurrent);
+                return Optional.empty();
+            }
+            long liveSetMb = active.stream().mapToLong(sim -> sim.getRequest().getLiveSetMb()).sum();
+            if (liveSetMb + request.getLiveSetMb() > maxLiveSetMb) {
+                log.warn("Rejecting load simulation: live sets would retain {} MB of at most {} MB",
+                        liveSetMb + request.getLiveSetMb(), maxLiveSetMb);
+                return Optional.empty();
+            }
+            simulations.put(simulation.getId(), simulation);
+        }
+        log.info("Starting load simulation {}: cpu={}% cores={} duration={}s allocation={}MB/s liveSet={}MB",
+                simulation.getId(), request.getTargetCpuPercent(), cores, request.getDurationSeconds(),
+                request.getAllocationRateMb(), request.getLiveSetMb());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(request.getDurationSeconds());
+        if (workers == 0) {
+            pool.execute(() -> runWorker(simulation, () -> idle(simulation, deadline)));
+        }
+        for (int i = 0; i < cores; i++) {
+            pool.execute(() -> runWorker(simulation, () -> burnCpu(simulation, deadline)));
+        }
+        if (allocates) {
+            pool.execute(() -> runWorker(simulation, () -> churnMemory(simulation, deadline)));
+        }
+        return Optional.of(simulation);
+    }
+
+    public Optional<LoadSimulation> getSimulation(String id) {
+        return Optional.ofNullable(simulations.get(id));
+    }
+
+    public Collection<LoadSimulation> getSimulations() {
+        return new ArrayList<>(simulations.values());
+    }
+
+    public Optional<LoadSimulation> cancel(String id) {
+        LoadSimulation simulation = simulations.get(id);
+        if (simulation != null && simulation.cancel()) {
+            log.info("Cancelled load simulation {}", id);
+        }
+        return Optional.ofNullable(simulation);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinished() {
+        Instant cutoff = Instant.now().minus(retention);
+        simulations.values().removeIf(sim -> sim.getFinishedAt() != null && sim.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        simulations.values().forEach(LoadSimulation::cancel);
+        pool.shutdownNow();
+    }
+
+    private void runWorker(LoadSimulation simulation, Runnable work) {
+        try {
+            work.run();
+        } catch (Throwable e) {
+            log.error("Load simulation {} failed", simulation.getId(), e);
+            simulation.fail();
+        } finally {
+            simulation.workerFinished();
+        }
+    }
+
+    private void burnCpu(LoadSimulation simulation, long deadline) {
+        long busyNanos = SLICE_NANOS * simulation.getRequest().getTargetCpuPercent() / 100;
+        double result = 0;
+        long i = 0;
+        while (simulation.isActive() && System.nanoTime() < deadline) {
+            long sliceStart = System.nanoTime();
+            long busyUntil = sliceStart + busyNanos;
+            long iterations = 0;
+            while (System.nanoTime() < busyUntil) {
+                result += Math.sqrt(i) * Math.sin(i);
+                i++;
+                iterations++;
+            }
+            simulation.recordCpuWork(iterations, result);
+            parkUntil(Math.min(sliceStart + SLICE_NANOS, deadline));
+        }
+    }
+
+    private void churnMemory(LoadSimulation simulation, long deadline) {
+        LoadSimulationRequest request = simulation.getRequest();
+        long liveSetBytes = (long) request.getLiveSetMb() * 1024 * 1024;
+        byte[][] liveSet = new byte[(int) (liveSetBytes / CHUNK_SIZE)][];
+        long bytesPerSlice = (long) request.getAllocationRateMb() * 1024 * 1024
+                * ALLOCATION_SLICE_NANOS / TimeUnit.SECONDS.toNanos(1);
+        long retained = 0;
+        int next = 0;
+        // Rates below one chunk per slice allocate a chunk every few slices instead of rounding up
+        long owed = 0;
+
+        try {
+            // Build the live set up front, then replace its oldest chunks at the requested rate
+            for (int i = 0; i < liveSet.length && simulation.isActive(); i++) {
+                liveSet[i] = allocateChunk();
+                retained += CHUNK_SIZE;
+                simulation.recordAllocation(CHUNK_SIZE, retained);
+            }
+            while (simulation.isActive() && System.nanoTime() < deadline) {
+                long sliceStart = System.nanoTime();
+                long allocated = 0;
+                owed += bytesPerSlice;
+                while (owed >= CHUNK_SIZE) {
+                    byte[] chunk = allocateChunk();
+                    if (liveSet.length > 0) {
+                        liveSet[next] = chunk;
+                        next = (next + 1) % liveSet.length;
+                    }
+                    allocated += CHUNK_SIZE;
+                    owed -= CHUNK_SIZE;
+                }
+                simulation.recordAllocation(allocated, retained);
+                parkUntil(Math.min(sliceStart + ALLOCATION_SLICE_NANOS, deadline));
+            }
+        } finally {
+            // Drop references and let the collector reclaim them on its own schedule
+            Arrays.fill(liveSet, null);
+            simulation.recordAllocation(0, 0);
+        }
+    }
+
+    private void idle(LoadSimulation simulation, long deadline) {
+        while (simulation.isActive() && System.nanoTime() < deadline) {
+            parkUntil(Math.min(System.nanoTime() + SLICE_NANOS, deadline));
+        }
+    }
+
+    private static byte[] allocateChunk() {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        // Touch each page so the allocation is backed by real memory
+        for (int i = 0; i < CHUNK_SIZE; i += 4096) {
+            chunk[i] = 1;
+        }
+        return chunk;
+    }
+
+    private static void parkUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.devops.demo.service;
 
 import com.devops.demo.model.SystemMetrics;
+import com.devops.demo.profiling.JvmEventCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -19,8 +20,10 @@ public class MetricsService {
     private final MemoryMXBean memoryMXBean;
     private final RuntimeMXBean runtimeMXBean;
     private final com.sun.management.OperatingSystemMXBean osMXBean;
+    private final JvmEventCollector jvmEventCollector;
 
-    public MetricsService() {
+    public MetricsService(JvmEventCollector jvmEventCollector) {
+        this.jvmEventCollector = jvmEventCollector;
         this.memoryMXBean = ManagementFactory.getMemoryMXBean();
         this.runtimeMXBean = ManagementFactory.getRuntimeMXBean();
         this.osMXBean = (com.sun.management.OperatingSystemMXBean)
@@ -64,6 +67,7 @@ public class MetricsService {
                 .heapUsed(heapUsed / (1024 * 1024))
                 .heapMax(heapMax / (1024 * 1024))
                 .heapUsagePercent(Math.round(heapUsagePercent * 100.0) / 100.0)
+                .jvmEvents(jvmEventCollector.snapshot())
                 .build();
     }
 }
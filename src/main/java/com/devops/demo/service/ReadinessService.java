@@ -0,0 +1,262 @@
+package com.devops.demo.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates readiness on a dedicated thread and caches the outcome, so the probe endpoint
+ * only reads a precomputed report and never touches the database itself.
+ */
+@Service
+public class ReadinessService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadinessService.class);
+
+    public static final String UP = "UP";
+    public static final String NOT_READY = "NOT_READY";
+
+    private final DataSource dataSource;
+    private final ObjectProvider<AbstractBrokerMessageHandler> brokerHandlers;
+    private final Map<String, ThreadPoolTaskExecutor> executors;
+    private final TaskService taskService;
+    private final ApplicationAvailability availability;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration checkInterval;
+    private final Duration maxDbLatency;
+    private final int maxQueueDepth;
+    private final int maxPendingConnections;
+    private final int warmUpTasks;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean cacheWarm;
+    private volatile ReadinessReport report;
+
+    public ReadinessService(DataSource dataSource,
+                            ObjectProvider<AbstractBrokerMessageHandler> brokerHandlers,
+                            Map<String, ThreadPoolTaskExecutor> executors,
+                            TaskService taskService,
+                            ApplicationAvailability availability,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${app.readiness.check-interval:PT5S}") Duration checkInterval,
+                            @Value("${app.readiness.max-db-latency:PT0.5S}") Duration maxDbLatency,
+                            @Value("${app.readiness.max-queue-depth:100}") int maxQueueDepth,
+                            @Value("${app.readiness.max-pending-connections:5}") int maxPendingConnections,
+                            @Value("${app.readiness.warm-up-tasks:50}") int warmUpTasks) {
+        this.dataSource = dataSource;
+        this.brokerHandlers = brokerHandlers;
+        this.executors = executors;
+        this.taskService = taskService;
+        this.availability = availability;
+        this.eventPublisher = eventPublisher;
+        this.checkInterval = checkInterval;
+        this.maxDbLatency = maxDbLatency;
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxPendingConnections = maxPendingConnections;
+        this.warmUpTasks = warmUpTasks;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "readiness-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.report = ReadinessReport.initial();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        warmUpCaches();
+        runChecks();
+        scheduler.scheduleWithFixedDelay(this::runChecks,
+                checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public ReadinessReport getReport() {
+        ReadinessReport current = report;
+        // A stuck checker must not keep reporting a stale UP
+        if (current.checkedAt().plus(checkInterval.multipliedBy(3)).isBefore(Instant.now())) {
+            return current.stale();
+        }
+        return current;
+    }
+
+    public boolean isCacheWarm() {
+        return cacheWarm;
+    }
+
+    // Bounded so that a large table cannot hold readiness back: the counts plus the most recent tasks,
+    // loaded one by one through the task cache rather than with the full listing
+    private void warmUpCaches() {
+        try {
+            long total = taskService.getStatistics().total();
+            List<Long> recent = taskService.getRecentTaskIds(warmUpTasks);
+            recent.forEach(taskService::getTaskById);
+            cacheWarm = true;
+            log.info("Task cache warmed with {} of {} tasks", recent.size(), total);
+        } catch (Exception e) {
+            log.warn("Cache warm-up failed, will retry on next readiness check", e);
+        }
+    }
+
+    void runChecks() {
+        try {
+            if (!cacheWarm) {
+                warmUpCaches();
+            }
+
+            Map<String, CheckResult> checks = new LinkedHashMap<>();
+            checks.put("database", checkDatabase());
+            checks.put("broker", checkBroker());
+            checks.put("cache", cacheWarm ? CheckResult.up("warm", 0) : CheckResult.down("warming up", 0));
+            checks.put("executors", checkExecutors());
+
+            ReadinessReport next = ReadinessReport.of(checks);
+            if (!next.status().equals(report.status())) {
+                log.warn("Readiness changed from {} to {}: {}", report.status(), next.status(), checks);
+            }
+            report = next;
+            publishAvailability(next.isReady());
+        } catch (Exception e) {
+            log.error("Readiness check failed", e);
+        }
+    }
+
+    private CheckResult checkDatabase() {
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            int pending = pool.getThreadsAwaitingConnection();
+            if (pending > maxPendingConnections) {
+                // Shed load without joining the queue for a connection ourselves
+                return CheckResult.down(pending + " threads waiting for a connection", 0);
+            }
+        }
+
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean valid = connection.isValid((int) Math.max(1, maxDbLatency.toSeconds()));
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (!valid) {
+                return CheckResult.down("connection validation failed", latencyMs);
+            }
+            if (latencyMs > maxDbLatency.toMillis()) {
+                return CheckResult.down("latency " + latencyMs + "ms exceeds " + maxDbLatency.toMillis() + "ms",
+                        latencyMs);
+            }
+            return CheckResult.up("reachable", latencyMs);
+        } catch (Exception e) {
+            return CheckResult.down(e.getMessage(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private CheckResult checkBroker() {
+        for (AbstractBrokerMessageHandler handler : brokerHandlers) {
+            if (!handler.isRunning() || !handler.isBrokerAvailable()) {
+                return CheckResult.down(handler.getClass().getSimpleName() + " unavailable", 0);
+            }
+        }
+        return CheckResult.up("available", 0);
+    }
+
+    private CheckResult checkExecutors() {
+        StringBuilder saturated = new StringBuilder();
+        int deepest = 0;
+        for (Map.Entry<String, ThreadPoolTaskExecutor> entry : executors.entrySet()) {
+            int depth = queueDepth(entry.getValue());
+            deepest = Math.max(deepest, depth);
+            if (depth > maxQueueDepth) {
+                saturated.append(entry.getKey()).append('=').append(depth).append(' ');
+            }
+        }
+        if (!saturated.isEmpty()) {
+            return CheckResult.down("queue depth exceeded: " + saturated.toString().trim(), 0);
+        }
+        return CheckResult.up("max queue depth " + deepest, 0);
+    }
+
+    private static int queueDepth(ThreadPoolTaskExecutor executor) {
+        try {
+            return executor.getThreadPoolExecutor().getQueue().size();
+        } catch (IllegalStateException e) {
+            // Not initialized yet
+            return 0;
+        }
+    }
+
+    private void publishAvailability(boolean ready) {
+        ReadinessState state = ready ? ReadinessState.ACCEPTING_TRAFFIC : ReadinessState.REFUSING_TRAFFIC;
+        if (availability.getReadinessState() != state) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, state);
+        }
+    }
+
+    public record CheckResult(String status, String detail, long latencyMs) {
+        static CheckResult up(String detail, long latencyMs) {
+            return new CheckResult(UP, detail, latencyMs);
+        }
+
+        static CheckResult down(String detail, long latencyMs) {
+            return new CheckResult(NOT_READY, detail, latencyMs);
+        }
+    }
+
+    public record ReadinessReport(String status, Instant checkedAt, Map<String, Object> body) {
+
+        static ReadinessReport initial() {
+            Instant now = Instant.now();
+            return new ReadinessReport(NOT_READY, now, Map.of(
+                    "status", NOT_READY,
+                    "reason", "checks not run yet",
+                    "timestamp", now.toString()));
+        }
+
+        static ReadinessReport of(Map<String, CheckResult> checks) {
+            boolean ready = checks.values().stream().allMatch(check -> UP.equals(check.status()));
+            String status = ready ? UP : NOT_READY;
+            Instant now = Instant.now();
+            return new ReadinessReport(status, now, Map.of(
+                    "status", status,
+                    "checks", Collections.unmodifiableMap(checks),
+                    "timestamp", now.toString()));
+        }
+
+        ReadinessReport stale() {
+            return new ReadinessReport(NOT_READY, checkedAt, Map.of(
+                    "status", NOT_READY,
+                    "reason", "readiness checks are stale",
+                    "timestamp", checkedAt.toString()));
+        }
+
+        public boolean isReady() {
+            return UP.equals(status);
+        }
+    }
+}
@@ -1,20 +1,50 @@
 package com.devops.demo.service;
 
+import com.devops.demo.index.TaskIndex;
+import com.devops.demo.model.ArchivedTask;
 import com.devops.demo.model.Task;
+import com.devops.demo.model.Task.TaskPriority;
 import com.devops.demo.model.Task.TaskStatus;
+import com.devops.demo.model.TaskChangedEvent;
+import com.devops.demo.model.TaskPatch;
+import com.devops.demo.queue.LeaseLostException;
+import com.devops.demo.repository.ArchivedTaskRepository;
 import com.devops.demo.repository.TaskRepository;
+import com.devops.demo.shard.TaskShards;
+import com.devops.demo.snapshot.TaskSnapshotService;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
@@ -22,13 +52,42 @@ public class TaskService {
 
     private static final Logger log = LoggerFactory.getLogger(TaskService.class);
 
+    // Final states; tasks in these are eligible for archiving once old enough
+    private static final Set<TaskStatus> FINISHED_STATUSES = EnumSet.of(TaskStatus.COMPLETED, TaskStatus.CANCELLED);
+
+    private static final List<TaskPriority> CLAIM_ORDER =
+            List.of(TaskPriority.CRITICAL, TaskPriority.HIGH, TaskPriority.MEDIUM, TaskPriority.LOW);
+
     private final TaskRepository taskRepository;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final TaskShards shards;
+    private final TaskSnapshotService snapshotService;
+    private final TaskIndex taskIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final int multiGetChunkSize;
     private final Counter tasksCreatedCounter;
     private final Counter tasksCompletedCounter;
+    private final Counter tasksClaimedCounter;
     private final Timer taskOperationTimer;
+    private final Counter multiGetCacheHits;
+    private final Counter multiGetLoaded;
+    private final Counter multiGetMissing;
 
-    public TaskService(TaskRepository taskRepository, MeterRegistry meterRegistry) {
+    public TaskService(TaskRepository taskRepository, ArchivedTaskRepository archivedTaskRepository,
+                       TaskShards shards, TaskSnapshotService snapshotService, TaskIndex taskIndex,
+                       ApplicationEventPublisher eventPublisher, CacheManager cacheManager,
+                       EntityManagerFactory entityManagerFactory,
+                       @Value("${app.multi-get.chunk-size:1000}") int multiGetChunkSize,
+                       MeterRegistry meterRegistry) {
         this.taskRepository = taskRepository;
+        this.archivedTaskRepository = archivedTaskRepository;
+        this.shards = shards;
+        this.snapshotService = snapshotService;
+        this.taskIndex = taskIndex;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.multiGetChunkSize = inClauseLimit(entityManagerFactory, multiGetChunkSize);
 
         // Custom metrics for DevOps monitoring
         this.tasksCreatedCounter = Counter.builder("tasks.created.total")
@@ -39,76 +98,495 @@ public class TaskService {
                 .description("Total number of tasks completed")
                 .register(meterRegistry);
 
+        this.tasksClaimedCounter = Counter.builder("tasks.queue.claimed")
+                .description("Tasks handed to workers through the claim API")
+                .register(meterRegistry);
+
         this.taskOperationTimer = Timer.builder("tasks.operation.duration")
                 .description("Time taken for task operations")
                 .register(meterRegistry);
+
+        this.multiGetCacheHits = multiGetCounter(meterRegistry, "cache");
+        this.multiGetLoaded = multiGetCounter(meterRegistry, "database");
+        this.multiGetMissing = multiGetCounter(meterRegistry, "missing");
     }
 
-    @Cacheable(value = "tasks")
+    // While a startup snapshot is served the caches are bypassed, so nothing stale is cached from it.
+    // sync: concurrent misses for the same key share one database load (see SingleFlightCache)
+    @Cacheable(value = "tasks", sync = true, condition = "!@taskSnapshotService.serving")
     public List<Task> getAllTasks() {
-        log.info("Fetching all tasks from database");
-        return taskRepository.findAllOrderByCreatedAtDesc();
+        return snapshotService.findAll().orElseGet(() -> {
+            log.info("Fetching all tasks from database");
+            return TaskShards.merge(shards.onAllShards(shard -> taskRepository.findAllOrderByCreatedAtDesc()),
+                    TaskShards.NEWEST_FIRST);
+        });
     }
 
-    @Cacheable(value = "task", key = "#id")
+    /**
+     * Ids of up to {@code limit} recently created tasks per shard, for warming the {@code task} cache.
+     */
+    public List<Long> getRecentTaskIds(int limit) {
+        return shards.onAllShards(shard -> taskRepository.findRecentIds(PageRequest.of(0, limit))).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    @Cacheable(value = "task", key = "#id", sync = true, condition = "!@taskSnapshotService.serving")
     public Optional<Task> getTaskById(Long id) {
+        Optional<Task> snapshot = snapshotService.findById(id);
+        if (snapshot.isPresent()) {
+            return snapshot;
+        }
         log.info("Fetching task with id: {}", id);
-        return taskRepository.findById(id);
+        return shards.onShardOf(id, () -> taskRepository.findById(id));
+    }
+
+    /**
+     * Looks up many tasks at once: ids found in the {@code task} cache (or the snapshot while it is served)
+     * are answered from there, the rest are loaded with {@code IN} queries of at most the chunk size.
+     * Tasks come back in request order, without duplicates, and ids that match no task are listed as missing.
+     *
+     * <p>Tasks loaded here are not written back to the cache: unlike the {@code @Cacheable} path, a write
+     * committed during the load would not keep an older copy out of it.
+     */
+    @Transactional(readOnly = true)
+    public TaskBatch getTasksByIds(Collection<Long> ids) {
+        Map<Long, Task> found = new HashMap<>();
+        List<Long> toLoad = new ArrayList<>();
+        Cache cache = snapshotService.isServing() ? null : cacheManager.getCache("task");
+
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        for (Long id : requested) {
+            Optional<Task> snapshot = snapshotService.findById(id);
+            Cache.ValueWrapper cached = cache != null ? cache.get(id) : null;
+            if (snapshot.isPresent()) {
+                found.put(id, snapshot.get());
+            } else if (cached != null) {
+                // getTaskById caches the unwrapped task, or null for an unknown id; snapshot reloads cache Optionals
+                Object value = cached.get() instanceof Optional<?> optional ? optional.orElse(null) : cached.get();
+                if (value instanceof Task task) {
+                    found.put(id, task);
+                }
+            } else {
+                toLoad.add(id);
+            }
+        }
+
+        multiGetCacheHits.increment(found.size());
+        if (!toLoad.isEmpty()) {
+            log.info("Fetching {} of {} requested tasks from database", toLoad.size(), requested.size());
+        }
+        int loaded = 0;
+        for (List<Task> shardTasks : shards.onAllShards(shard -> {
+            List<Long> shardIds = toLoad.stream().filter(id -> shards.shardOf(id) == shard).toList();
+            List<Task> tasks = new ArrayList<>(shardIds.size());
+            for (int from = 0; from < shardIds.size(); from += multiGetChunkSize) {
+                List<Long> chunk = shardIds.subList(from, Math.min(from + multiGetChunkSize, shardIds.size()));
+                tasks.addAll(taskRepository.findAllById(chunk));
+            }
+            return tasks;
+        })) {
+            for (Task task : shardTasks) {
+                found.put(task.getId(), task);
+                loaded++;
+            }
+        }
+        multiGetLoaded.increment(loaded);
+
+        List<Task> tasks = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            Task task = found.get(id);
+            if (task != null) {
+                tasks.add(task);
+            } else {
+                missing.add(id);
+            }
+        }
+        multiGetMissing.increment(missing.size());
+        return new TaskBatch(tasks, missing);
     }
 
     @CacheEvict(value = {"tasks", "task"}, allEntries = true)
     public Task createTask(Task task) {
         return taskOperationTimer.record(() -> {
             log.info("Creating new task: {}", task.getTitle());
-            Task savedTask = taskRepository.save(task);
-            tasksCreatedCounter.increment();
-            return savedTask;
+            snapshotService.recordWrite(null);
+            int shard = shards.nextShard();
+            return shards.onShard(shard, () -> {
+                Task savedTask = taskRepository.save(task);
+                if (shards.shardOf(savedTask.getId()) != shard) {
+                    // Rolls the insert back rather than store a task where lookups by id will not find it
+                    throw new IllegalStateException("Task id " + savedTask.getId() + " generated on shard " + shard
+                            + " belongs to shard " + shards.shardOf(savedTask.getId())
+                            + "; the shard's tasks.id identity is not set up for " + shards.getShardCount() + " shards");
+                }
+                tasksCreatedCounter.increment();
+                eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, savedTask, null));
+                return savedTask;
+            });
         });
     }
 
     @CacheEvict(value = {"tasks", "task"}, allEntries = true)
     public Optional<Task> updateTask(Long id, Task taskDetails) {
+        return update(id, existingTask -> {
+            existingTask.setTitle(taskDetails.getTitle());
+            existingTask.setDescription(taskDetails.getDescription());
+            existingTask.setStatus(taskDetails.getStatus());
+            existingTask.setPriority(taskDetails.getPriority());
+        });
+    }
+
+    /**
+     * Like {@link #updateTask}, but changes only the fields set in {@code patch}.
+     */
+    @CacheEvict(value = {"tasks", "task"}, allEntries = true)
+    public Optional<Task> patchTask(TaskPatch patch) {
+        return update(patch.getId(), patch::applyTo);
+    }
+
+    private Optional<Task> update(Long id, Consumer<Task> changes) {
         return taskOperationTimer.record(() -> {
             log.info("Updating task with id: {}", id);
-            return taskRepository.findById(id)
+            snapshotService.recordWrite(id);
+            return shards.onShardOf(id, () -> taskRepository.findById(id)
                     .map(existingTask -> {
-                        existingTask.setTitle(taskDetails.getTitle());
-                        existingTask.setDescription(taskDetails.getDescription());
-                        existingTask.setStatus(taskDetails.getStatus());
-                        existingTask.setPriority(taskDetails.getPriority());
+                        Task previous = existingTask.copy();
+                        changes.accept(existingTask);
 
-                        if (taskDetails.getStatus() == TaskStatus.COMPLETED &&
-                                existingTask.getStatus() != TaskStatus.COMPLETED) {
+                        if (existingTask.getStatus() == TaskStatus.COMPLETED &&
+                                previous.getStatus() != TaskStatus.COMPLETED) {
                             tasksCompletedCounter.increment();
                         }
 
-                        return taskRepository.save(existingTask);
-                    });
+                        Task savedTask = taskRepository.save(existingTask);
+                        eventPublisher.publishEvent(
+                                new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, savedTask, previous));
+                        return savedTask;
+                    }));
         });
     }
 
+    /**
+     * Applies coalesced updates from {@link TaskWriteBehindBuffer}, one transaction per shard. Only the
+     * fields each patch sets are written, onto the row as it is now (locked until commit), so writes made
+     * since the update was buffered keep the fields it leaves out. Tasks deleted in the meantime are
+     * skipped. Returns the number of rows written.
+     */
+    @CacheEvict(value = {"tasks", "task"}, allEntries = true)
+    public int applyBufferedUpdates(Collection<TaskPatch> patches) {
+        return taskOperationTimer.record(() -> shards.onAllShards(shard -> {
+            Map<Long, TaskPatch> byId = new HashMap<>();
+            for (TaskPatch patch : patches) {
+                if (shards.shardOf(patch.getId()) == shard) {
+                    snapshotService.recordWrite(patch.getId());
+                    byId.put(patch.getId(), patch);
+                }
+            }
+            if (byId.isEmpty()) {
+                return 0;
+            }
+
+            List<Task> existing = taskRepository.findAllByIdForUpdate(byId.keySet());
+            for (Task existingTask : existing) {
+                Task previous = existingTask.copy();
+                byId.get(existingTask.getId()).applyTo(existingTask);
+                if (existingTask.getStatus() == TaskStatus.COMPLETED &&
+                        previous.getStatus() != TaskStatus.COMPLETED) {
+                    tasksCompletedCounter.increment();
+                }
+                eventPublisher.publishEvent(
+                        new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, existingTask, previous));
+            }
+
+            log.info("Flushing {} buffered task updates", existing.size());
+            taskRepository.saveAll(existing);
+            return existing.size();
+        }).stream().mapToInt(Integer::intValue).sum());
+    }
+
     @CacheEvict(value = {"tasks", "task"}, allEntries = true)
     public boolean deleteTask(Long id) {
         log.info("Deleting task with id: {}", id);
-        if (taskRepository.existsById(id)) {
-            taskRepository.deleteById(id);
-            return true;
+        snapshotService.recordWrite(id);
+        return shards.onShardOf(id, () -> taskRepository.findById(id)
+                .map(existingTask -> {
+                    Task previous = existingTask.copy();
+                    taskRepository.delete(existingTask);
+                    eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.DELETED,
+                            Task.builder().id(id).build(), previous));
+                    return true;
+                })
+                .orElse(false));
+    }
+
+    /**
+     * Claims up to {@code batchSize} pending tasks for {@code workerId}, highest priority first (or only
+     * {@code priority} when given) and oldest first within a priority. Claimed tasks move to IN_PROGRESS
+     * with a lease of {@code lease}; rows a concurrent claim has locked are skipped, so workers polling
+     * at the same time get disjoint tasks without waiting on each other.
+     */
+    @CacheEvict(value = {"tasks", "task"}, allEntries = true)
+    public List<Task> claimTasks(String workerId, TaskPriority priority, int batchSize, Duration lease) {
+        return taskOperationTimer.record(() -> {
+            LocalDateTime leaseExpiresAt = LocalDateTime.now().plus(lease);
+            List<Task> claimed = new ArrayList<>(batchSize);
+            for (TaskPriority candidate : CLAIM_ORDER) {
+                if (claimed.size() == batchSize) {
+                    break;
+                }
+                if (priority != null && candidate != priority) {
+                    continue;
+                }
+                claimed.addAll(shards.collectInTurn(batchSize - claimed.size(), limit -> {
+                    List<Task> tasks = taskRepository.findClaimable(TaskStatus.PENDING, candidate,
+                            PageRequest.of(0, limit));
+                    for (Task task : tasks) {
+                        Task previous = task.copy();
+                        snapshotService.recordWrite(task.getId());
+                        task.claim(workerId, leaseExpiresAt);
+                        eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, task, previous));
+                    }
+                    return tasks;
+                }));
+            }
+            tasksClaimedCounter.increment(claimed.size());
+            log.info("Worker {} claimed {} tasks", workerId, claimed.size());
+            return claimed;
+        });
+    }
+
+    /**
+     * Extends the lease {@code workerId} holds on a task to {@code lease} from now. Empty when the task
+     * does not exist; {@link LeaseLostException} when the worker no longer holds it.
+     */
+    @CacheEvict(value = {"tasks", "task"}, allEntries = true)
+    public Optional<Task> extendLease(Long id, String workerId, Duration lease) {
+        return withLease(id, workerId, task -> task.extendLease(LocalDateTime.now().plus(lease)));
+    }
+
+    /**
+     * Marks the task {@code workerId} holds as COMPLETED, ending the claim. Empty when the task does not
+     * exist; {@link LeaseLostException} when the worker no longer holds it.
+     */
+    @CacheEvict(value = {"tasks", "task"}, allEntries = true)
+    public Optional<Task> completeClaimedTask(Long id, String workerId) {
+        return withLease(id, workerId, task -> {
+            task.setStatus(TaskStatus.COMPLETED);
+            tasksCompletedCounter.increment();
+        });
+    }
+
+    /**
+     * Gives the task {@code workerId} holds back to the queue as PENDING, ending the claim. Empty when the
+     * task does not exist; {@link LeaseLostException} when the worker no longer holds it.
+     */
+    @CacheEvict(value = {"tasks", "task"}, allEntries = true)
+    public Optional<Task> releaseClaimedTask(Long id, String workerId) {
+        return withLease(id, workerId, task -> task.setStatus(TaskStatus.PENDING));
+    }
+
+    // The lease counts as lost once it has run out, whether or not the reaper has re-queued the task yet
+    private Optional<Task> withLease(Long id, String workerId, Consumer<Task> changes) {
+        return shards.onShardOf(id, () -> taskRepository.findByIdForUpdate(id).map(task -> {
+            if (task.getStatus() != TaskStatus.IN_PROGRESS || !workerId.equals(task.getClaimedBy())
+                    || task.getLeaseExpiresAt() == null || !task.getLeaseExpiresAt().isAfter(LocalDateTime.now())) {
+                throw new LeaseLostException(id, workerId);
+            }
+            Task previous = task.copy();
+            snapshotService.recordWrite(id);
+            // Leaving IN_PROGRESS clears the claim on flush (Task.onUpdate)
+            changes.accept(task);
+            eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, task, previous));
+            return task;
+        }));
+    }
+
+    /**
+     * Puts up to {@code batchSize} claimed tasks whose lease has expired back to PENDING in one
+     * transaction. Returns the number of tasks re-queued.
+     *
+     * <p>The reaper calls this every few seconds and it usually finds nothing, so the task caches are
+     * cleared only after something was re-queued, once that has committed.
+     */
+    public int requeueExpiredLeases(int batchSize) {
+        List<Task> expired = shards.collectInTurn(batchSize, limit -> {
+            List<Task> tasks = taskRepository.findExpiredLeases(TaskStatus.IN_PROGRESS, LocalDateTime.now(),
+                    PageRequest.of(0, limit));
+            for (Task task : tasks) {
+                Task previous = task.copy();
+                snapshotService.recordWrite(task.getId());
+                // Clears the claim on flush (Task.onUpdate)
+                task.setStatus(TaskStatus.PENDING);
+                eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, task, previous));
+            }
+            return tasks;
+        });
+        if (!expired.isEmpty()) {
+            log.info("Re-queued {} tasks with expired leases", expired.size());
+            clearTaskCachesAfterCommit();
         }
-        return false;
+        return expired.size();
+    }
+
+    // What @CacheEvict(allEntries = true) does, but only when called and not before the changes are visible
+    private void clearTaskCachesAfterCommit() {
+        Runnable clear = () -> List.of("tasks", "task").forEach(name -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear.run();
+                }
+            });
+        } else {
+            clear.run();
+        }
+    }
+
+    /**
+     * Moves up to {@code batchSize} completed or cancelled tasks that finished before {@code cutoff}
+     * to the archive in one transaction, oldest id first. Returns the number of tasks moved.
+     */
+    @CacheEvict(value = {"tasks", "task"}, allEntries = true)
+    public int archiveFinishedTasks(LocalDateTime cutoff, int batchSize) {
+        // Archived tasks stay on their shard, in the same transaction as their removal from tasks
+        List<Task> batch = shards.collectInTurn(batchSize, limit -> {
+            List<Task> tasks = taskRepository.findArchivable(FINISHED_STATUSES, cutoff, PageRequest.of(0, limit));
+            if (tasks.isEmpty()) {
+                return tasks;
+            }
+            LocalDateTime archivedAt = LocalDateTime.now();
+            archivedTaskRepository.saveAll(tasks.stream().map(task -> ArchivedTask.from(task, archivedAt)).toList());
+            taskRepository.deleteAll(tasks);
+            for (Task task : tasks) {
+                snapshotService.recordWrite(task.getId());
+                eventPublisher.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.ARCHIVED, task, task.copy()));
+            }
+            return tasks;
+        });
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        log.info("Archived {} tasks finished before {}", batch.size(), cutoff);
+        return batch.size();
+    }
+
+    /**
+     * When the longest-finished task still in the live table reached its final state.
+     */
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getOldestFinishedAt() {
+        return shards.onAllShards(shard -> taskRepository.findOldestFinishedAt(FINISHED_STATUSES)).stream()
+                .flatMap(Optional::stream)
+                .min(Comparator.naturalOrder());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Task> getAllTasksIncludingArchived() {
+        List<Task> tasks = new ArrayList<>(TaskShards.concat(shards.onAllShards(shard -> {
+            List<Task> shardTasks = new ArrayList<>(taskRepository.findAllOrderByCreatedAtDesc());
+            archivedTaskRepository.findAllOrderByCreatedAtDesc().forEach(archived -> shardTasks.add(archived.toTask()));
+            return shardTasks;
+        })));
+        tasks.sort(Comparator.comparing(Task::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return tasks;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Task> getArchivedTaskById(Long id) {
+        return shards.onShardOf(id, () -> archivedTaskRepository.findById(id).map(ArchivedTask::toTask));
+    }
+
+    /**
+     * Archived tasks with the given status and, if not null, priority.
+     */
+    @Transactional(readOnly = true)
+    public List<Task> getArchivedTasksByStatus(TaskStatus status, TaskPriority priority) {
+        List<ArchivedTask> archived = TaskShards.concat(shards.onAllShards(shard -> priority != null
+                ? archivedTaskRepository.findByStatusAndPriority(status, priority)
+                : archivedTaskRepository.findByStatus(status)));
+        return archived.stream().map(ArchivedTask::toTask).toList();
     }
 
     public List<Task> getTasksByStatus(TaskStatus status) {
-        return taskRepository.findByStatus(status);
+        if (taskIndex.isReady()) {
+            return taskIndex.find(status, null);
+        }
+        return newestFirst(shards.onAllShards(shard -> taskRepository.findByStatus(status)));
+    }
+
+    public List<Task> getTasksByStatusAndPriority(TaskStatus status, TaskPriority priority) {
+        if (taskIndex.isReady()) {
+            return taskIndex.find(status, priority);
+        }
+        return newestFirst(shards.onAllShards(shard -> taskRepository.findByStatusAndPriority(status, priority)));
     }
 
     public TaskStatistics getStatistics() {
-        long total = taskRepository.count();
-        long pending = taskRepository.countByStatus(TaskStatus.PENDING);
-        long inProgress = taskRepository.countByStatus(TaskStatus.IN_PROGRESS);
-        long completed = taskRepository.countByStatus(TaskStatus.COMPLETED);
-        long cancelled = taskRepository.countByStatus(TaskStatus.CANCELLED);
+        if (taskIndex.isReady()) {
+            return new TaskStatistics(
+                    taskIndex.count(null, null),
+                    taskIndex.count(TaskStatus.PENDING, null),
+                    taskIndex.count(TaskStatus.IN_PROGRESS, null),
+                    taskIndex.count(TaskStatus.COMPLETED, null),
+                    taskIndex.count(TaskStatus.CANCELLED, null));
+        }
+
+        return shards.onAllShards(shard -> {
+            long total = taskRepository.count();
+            long pending = taskRepository.countByStatus(TaskStatus.PENDING);
+            long inProgress = taskRepository.countByStatus(TaskStatus.IN_PROGRESS);
+            long completed = taskRepository.countByStatus(TaskStatus.COMPLETED);
+            long cancelled = taskRepository.countByStatus(TaskStatus.CANCELLED);
 
-        return new TaskStatistics(total, pending, inProgress, completed, cancelled);
+            return new TaskStatistics(total, pending, inProgress, completed, cancelled);
+        }).stream().reduce(TaskStatistics::plus).orElseThrow();
+    }
+
+    /**
+     * Result of {@link #getTasksByIds}: the tasks found, in request order, and the ids that matched none.
+     */
+    public record TaskBatch(List<Task> tasks, List<Long> missing) {}
+
+    // Status queries have no order of their own; across shards they are listed newest first, like getAllTasks
+    private List<Task> newestFirst(List<List<Task>> perShard) {
+        if (!shards.isSharded()) {
+            return perShard.get(0);
+        }
+        List<Task> tasks = new ArrayList<>(TaskShards.concat(perShard));
+        tasks.sort(TaskShards.NEWEST_FIRST);
+        return tasks;
+    }
+
+    private static Counter multiGetCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("tasks.multiget.lookups")
+                .description("Ids looked up by multi-get: found in the cache, loaded from the database, or not found")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The configured chunk size, lowered to the dialect's limit on {@code IN} list size or bind parameters.
+     */
+    private static int inClauseLimit(EntityManagerFactory entityManagerFactory, int chunkSize) {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        int limit = chunkSize;
+        // 0 means the dialect has no limit
+        if (dialect.getInExpressionCountLimit() > 0) {
+            limit = Math.min(limit, dialect.getInExpressionCountLimit());
+        }
+        if (dialect.getParameterCountLimit() > 0) {
+            limit = Math.min(limit, dialect.getParameterCountLimit());
+        }
+        return limit;
     }
 
     public record TaskStatistics(
@@ -117,5 +595,10 @@ public class TaskService {
             long inProgress,
             long completed,
             long cancelled
-    ) {}
+    ) {
+        TaskStatistics plus(TaskStatistics other) {
+            return new TaskStatistics(total + other.total, pending + other.pending, inProgress + other.inProgress,
+                    completed + other.completed, cancelled + other.cancelled);
+        }
+    }
 }
@@ -0,0 +1,216 @@
+package com.devops.demo.service;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.model.TaskPatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind mode for task updates ({@code app.write-behind.enabled}). Updates to the same
+ * task within one flush window are merged in memory and written as a single batched transaction,
+ * while callers get the merged state back immediately. What is buffered is the merged patch, not the
+ * task: a flush writes only the fields the updates set, so other writes in the meantime are kept.
+ * Pending updates are flushed when the context stops, after the web server has drained in-flight
+ * requests during graceful shutdown.
+ */
+@Service
+public class TaskWriteBehindBuffer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskWriteBehindBuffer.class);
+
+    // Stop after the web server and message broker, before the DataSource is destroyed
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final TaskService taskService;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int maxBuffered;
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final Counter coalescedCounter;
+    private final Counter flushedCounter;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public TaskWriteBehindBuffer(TaskService taskService,
+                                 @Value("${app.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${app.write-behind.flush-interval:PT0.2S}") Duration flushInterval,
+                                 @Value("${app.write-behind.max-buffered:1000}") int maxBuffered,
+                                 MeterRegistry meterRegistry) {
+        this.taskService = taskService;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.maxBuffered = maxBuffered;
+
+        this.coalescedCounter = Counter.builder("tasks.write_behind.coalesced")
+                .description("Task updates merged into an already pending update")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("tasks.write_behind.flushed")
+                .description("Task rows written by write-behind flushes")
+                .register(meterRegistry);
+        Gauge.builder("tasks.write_behind.pending", pending, Map::size)
+                .description("Task updates waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether updates should go through {@link #submit(TaskPatch)}. False when disabled or once
+     * shutdown has started, so late callers fall back to synchronous writes.
+     */
+    public boolean isActive() {
+        return enabled && running;
+    }
+
+    /**
+     * Buffers an update and returns the merged state, or empty if the task does not exist.
+     * Fields set in {@code patch} overwrite the pending (or stored) values; the others are kept.
+     */
+    public Optional<Task> submit(TaskPatch patch) {
+        Long id = patch.getId();
+        while (true) {
+            // Loaded outside compute(), which holds a lock on the map bin for as long as it runs
+            Task stored = null;
+            if (!pending.containsKey(id)) {
+                stored = taskService.getTaskById(id).orElse(null);
+                if (stored == null) {
+                    return Optional.empty();
+                }
+            }
+            Task base = stored;
+
+            Pending merged = pending.compute(id, (key, current) -> {
+                if (current != null) {
+                    coalescedCounter.increment();
+                    return current.then(patch);
+                }
+                if (base == null) {
+                    // A flush drained the entry since the check above; load its committed state again
+                    return null;
+                }
+                return Pending.of(patch, base);
+            });
+            if (merged == null) {
+                continue;
+            }
+
+            if (pending.size() >= maxBuffered) {
+                // Back-pressure: the submitting thread pays for the flush instead of growing the buffer
+                flush();
+            }
+            return Optional.of(merged.preview().copy());
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Pending> batch = new ArrayList<>(pending.size());
+            for (Long id : List.copyOf(pending.keySet())) {
+                Pending entry = pending.remove(id);
+                if (entry != null) {
+                    batch.add(entry);
+                }
+            }
+            try {
+                flushedCounter.increment(taskService.applyBufferedUpdates(
+                        batch.stream().map(Pending::patch).toList()));
+            } catch (RuntimeException e) {
+                // Requeue; fields set by a newer update that arrived in the meantime win
+                batch.forEach(entry -> pending.merge(entry.patch().getId(), entry,
+                        (newer, failed) -> new Pending(failed.patch().mergedWith(newer.patch()), newer.preview())));
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledFlush,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("Task write-behind enabled, flushing every {}", flushInterval);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushInterval.toMillis() + 5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = pending.size();
+        flush();
+        log.info("Task write-behind stopped, flushed {} pending updates", remaining);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * The merged patch waiting to be written, and the merged state returned to callers (the task as read
+     * when the first update arrived, with the updates applied).
+     */
+    private record Pending(TaskPatch patch, Task preview) {
+        static Pending of(TaskPatch patch, Task stored) {
+            return new Pending(patch, applied(patch, stored));
+        }
+
+        Pending then(TaskPatch later) {
+            return new Pending(patch.mergedWith(later), applied(later, preview));
+        }
+
+        private static Task applied(TaskPatch patch, Task task) {
+            Task next = patch.applyTo(task.copy());
+            next.setUpdatedAt(LocalDateTime.now());
+            return next;
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Write-behind flush failed, will retry", e);
+        }
+    }
+}
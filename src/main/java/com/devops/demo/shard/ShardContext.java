@@ -0,0 +1,27 @@
+package com.devops.demo.shard;
+
+/**
+ * The task shard the current thread works on, set by {@link TaskShards}. {@link ShardRoutingDataSource}
+ * hands out connections to that shard's database; threads without one use the primary (shard 0).
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    static Integer set(Integer shard) {
+        Integer previous = CURRENT.get();
+        if (shard != null) {
+            CURRENT.set(shard);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+}
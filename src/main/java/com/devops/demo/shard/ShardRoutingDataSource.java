@@ -0,0 +1,54 @@
+package com.devops.demo.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes each connection request to the database of the current {@link ShardContext}, or to the primary
+ * when there is none. Connections are chosen when they are opened, so this sits behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: a transaction then takes its
+ * connection at its first statement, after the shard has been picked.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+
+    /**
+     * @param shards shard 0 (the primary) first
+     */
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        // An unknown shard number is a bug, not a reason to write to the primary
+        setLenientFallback(false);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    // The primary is a bean of its own and closed by the context
+    @Override
+    public void close() {
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            if (shard instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.devops.demo.shard;
+
+import com.devops.demo.config.ShardingProperties;
+import com.devops.demo.deadline.Deadline;
+import com.devops.demo.model.Task;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.relational.SchemaManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Spreads tasks over the databases configured under {@code app.sharding}. A task lives on shard
+ * {@code id % shardCount}: each shard's {@code tasks.id} identity counts up in steps of the shard count from
+ * its own offset, so ids are unique across shards and name their shard. New tasks go to the shards in turn.
+ * Archived tasks keep their id and stay on their shard; other tables are only used on the primary (shard 0).
+ *
+ * <p>With sharding off there is a single shard, and work runs directly on the calling thread in the
+ * caller's transaction.
+ */
+@Component
+public class TaskShards {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskShards.class);
+
+    public static final Comparator<Task> NEWEST_FIRST =
+            Comparator.comparing(Task::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final int shardCount;
+    private final TransactionTemplate shardTransaction;
+    private final ExecutorService queryExecutor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final AtomicInteger rotation = new AtomicInteger();
+    private final Timer gatherTimer;
+
+    public TaskShards(ShardingProperties properties,
+                      ObjectProvider<ShardRoutingDataSource> routingDataSource,
+                      PlatformTransactionManager transactionManager,
+                      JdbcTemplate jdbcTemplate,
+                      EntityManagerFactory entityManagerFactory,
+                      @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto,
+                      MeterRegistry meterRegistry) {
+        // ShardingConfig is a build-time condition in an AOT-processed build (processed with sharding off)
+        if (properties.isEnabled() && routingDataSource.getIfAvailable() == null) {
+            throw new IllegalStateException("app.sharding.enabled is set, but this build was AOT-processed "
+                    + "without sharding; start it without spring.aot.enabled or rebuild with sharding on");
+        }
+        this.shardCount = properties.getShardCount();
+        // A transaction of its own, so its connection is taken for the shard picked, not joined from the caller
+        this.shardTransaction = new TransactionTemplate(transactionManager);
+        shardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.gatherTimer = Timer.builder("tasks.shard.gather")
+                .description("Time for a query run on all task shards in parallel")
+                .register(meterRegistry);
+
+        if (isSharded()) {
+            int threads = properties.getQueryThreads() > 0 ? properties.getQueryThreads() : 2 * shardCount;
+            AtomicInteger threadCount = new AtomicInteger();
+            this.queryExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "shard-query-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            prepareSchema(jdbcTemplate, entityManagerFactory, ddlAuto);
+        } else {
+            this.queryExecutor = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) shardCount);
+    }
+
+    /**
+     * The shard to store a new task on.
+     */
+    public int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+
+    /**
+     * Runs {@code work} against one shard, in a transaction of its own that has committed when this returns.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        Integer previous = ShardContext.set(shard);
+        try {
+            return shardTransaction.execute(status -> work.get());
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public <T> T onShardOf(long id, Supplier<T> work) {
+        return onShard(shardOf(id), work);
+    }
+
+    /**
+     * Runs {@code work} on every shard in parallel, each in its own transaction and under the caller's
+     * {@link Deadline}, and returns the results in shard order. A failure on any shard fails the whole call
+     * once all shards have finished.
+     */
+    public <T> List<T> onAllShards(IntFunction<T> work) {
+        if (!isSharded()) {
+            return Collections.singletonList(work.apply(0));
+        }
+        Timer.Sample sample = Timer.start();
+        Deadline deadline = Deadline.current();
+        List<CompletableFuture<T>> results = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            results.add(CompletableFuture.supplyAsync(() -> {
+                Deadline.Scope scope = Deadline.attach(deadline);
+                try {
+                    return onShard(target, () -> work.apply(target));
+                } finally {
+                    scope.close();
+                }
+            }, queryExecutor));
+        }
+        try {
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        } finally {
+            sample.stop(gatherTimer);
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Collects up to {@code limit} items from the shards one after the other, starting at a different shard
+     * on each call so that none is always served first. {@code work} is given the number still wanted and
+     * runs in the shard's own transaction.
+     */
+    public <T> List<T> collectInTurn(int limit, IntFunction<List<T>> work) {
+        if (!isSharded()) {
+            return work.apply(limit);
+        }
+        List<T> collected = new ArrayList<>(limit);
+        int first = Math.floorMod(rotation.getAndIncrement(), shardCount);
+        for (int i = 0; i < shardCount && collected.size() < limit; i++) {
+            int wanted = limit - collected.size();
+            collected.addAll(onShard((first + i) % shardCount, () -> work.apply(wanted)));
+        }
+        return collected;
+    }
+
+    /**
+     * Merges lists that are each sorted by {@code order}, such as one query's results from every shard,
+     * into one list sorted the same way.
+     */
+    public static <T> List<T> merge(List<? extends List<T>> sorted, Comparator<? super T> order) {
+        if (sorted.size() == 1) {
+            return sorted.get(0);
+        }
+        int total = sorted.stream().mapToInt(List::size).sum();
+        List<T> merged = new ArrayList<>(total);
+        // Head of each list, ties going to the lower shard
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) -> {
+            int byValue = order.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1]));
+            return byValue != 0 ? byValue : Integer.compare(a[0], b[0]);
+        });
+        for (int list = 0; list < sorted.size(); list++) {
+            if (!sorted.get(list).isEmpty()) {
+                heads.add(new int[] {list, 0});
+            }
+        }
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> list = sorted.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (++head[1] < list.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Concatenates the per-shard lists of an {@link #onAllShards} call.
+     */
+    public static <T> List<T> concat(List<? extends List<T>> perShard) {
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        List<T> all = new ArrayList<>(perShard.stream().mapToInt(List::size).sum());
+        perShard.forEach(all::addAll);
+        return all;
+    }
+
+    // When Hibernate creates the schema (ddl-auto create or create-drop) it only does so on the primary:
+    // create it on the other shards too, and start each shard's task ids at its own offset. An existing
+    // schema must already be set up that way; TaskService checks the id of every task it inserts.
+    private void prepareSchema(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory, String ddlAuto) {
+        if (!ddlAuto.equals("create") && !ddlAuto.equals("create-drop")) {
+            log.info("Tasks are sharded over {} databases; on shard k the tasks.id identity must start at k"
+                    + " (shard 0 at {}) and increment by {}", shardCount, shardCount, shardCount);
+            return;
+        }
+        SchemaManager schemaManager = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getSchemaManager();
+        for (int shard = 0; shard < shardCount; shard++) {
+            Integer previous = ShardContext.set(shard);
+            try {
+                if (shard > 0) {
+                    schemaManager.dropMappedObjects(false);
+                    schemaManager.exportMappedObjects(false);
+                }
+                jdbcTemplate.execute("ALTER TABLE tasks ALTER COLUMN id SET INCREMENT BY " + shardCount);
+                jdbcTemplate.execute("ALTER TABLE tasks ALTER COLUMN id RESTART WITH " + (shard > 0 ? shard : shardCount));
+            } finally {
+                ShardContext.set(previous);
+            }
+        }
+        log.info("Created the task schema on {} shards", shardCount);
+    }
+}
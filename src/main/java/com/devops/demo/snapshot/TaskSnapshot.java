@@ -0,0 +1,301 @@
+package com.devops.demo.snapshot;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.model.Task.TaskPriority;
+import com.devops.demo.model.Task.TaskStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only view over a memory-mapped task snapshot file. Records stay in the mapping (outside the
+ * Java heap) and are decoded on access; only a sorted id index is kept on the heap.
+ *
+ * <pre>
+ * header:  magic:int version:int schema:int count:int createdAt:long crc32:long payloadLength:long
+ * record:  id:long status:byte priority:byte createdAt:long updatedAt:long completedAt:long
+ *          leaseExpiresAt:long titleLength:int title:utf8 descriptionLength:int (-1 = null) description:utf8
+ *          claimedByLength:int (-1 = null) claimedBy:utf8
+ * </pre>
+ */
+public final class TaskSnapshot {
+
+    static final int MAGIC = 0x54534E50; // "TSNP"
+    // 2: claimedBy and leaseExpiresAt
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 40;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    private final ByteBuffer payload;
+    private final Instant createdAt;
+    // Record offsets in file order, and the same offsets sorted by task id for lookups
+    private final int[] offsets;
+    private final long[] sortedIds;
+    private final int[] sortedOffsets;
+
+    private TaskSnapshot(ByteBuffer payload, Instant createdAt, int count) {
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.offsets = new int[count];
+
+        long[] ids = new long[count];
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = position;
+            ids[i] = payload.getLong(position);
+            position = skipRecord(position);
+        }
+        if (position != payload.limit()) {
+            throw new IllegalStateException("Record data does not match payload length");
+        }
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+        this.sortedIds = new long[count];
+        this.sortedOffsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedOffsets[i] = offsets[order[i]];
+        }
+    }
+
+    /**
+     * Maps and validates a snapshot file. Fails with {@link InvalidSnapshotException} when the file
+     * is truncated, was written by another format or enum layout, or does not match its checksum.
+     */
+    public static TaskSnapshot open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new InvalidSnapshotException("unexpected file size " + channel.size());
+            }
+            // The mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.getInt(0) != MAGIC) {
+            throw new InvalidSnapshotException("not a task snapshot");
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw new InvalidSnapshotException("unsupported version " + mapped.getInt(4));
+        }
+        if (mapped.getInt(8) != schemaHash()) {
+            throw new InvalidSnapshotException("written for a different TaskStatus/TaskPriority layout");
+        }
+        int count = mapped.getInt(12);
+        Instant createdAt = Instant.ofEpochMilli(mapped.getLong(16));
+        long expectedCrc = mapped.getLong(24);
+        long payloadLength = mapped.getLong(32);
+        if (count < 0 || payloadLength != mapped.capacity() - HEADER_SIZE) {
+            throw new InvalidSnapshotException("truncated snapshot");
+        }
+
+        ByteBuffer payload = mapped.slice(HEADER_SIZE, (int) payloadLength);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != expectedCrc) {
+            throw new InvalidSnapshotException("checksum mismatch");
+        }
+
+        try {
+            return new TaskSnapshot(payload, createdAt, count);
+        } catch (IndexOutOfBoundsException | IllegalStateException e) {
+            throw new InvalidSnapshotException("corrupt record data");
+        }
+    }
+
+    /**
+     * Writes {@code tasks} to {@code file} through a memory mapping. The data is written to a
+     * sibling temp file, forced to disk and then atomically moved into place.
+     */
+    public static void write(Path file, List<Task> tasks) throws IOException {
+        List<byte[]> titles = new ArrayList<>(tasks.size());
+        List<byte[]> descriptions = new ArrayList<>(tasks.size());
+        List<byte[]> claimants = new ArrayList<>(tasks.size());
+        long payloadLength = 0;
+        for (Task task : tasks) {
+            byte[] title = task.getTitle() != null ? task.getTitle().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            byte[] description = utf8(task.getDescription());
+            byte[] claimedBy = utf8(task.getClaimedBy());
+            titles.add(title);
+            descriptions.add(description);
+            claimants.add(claimedBy);
+            payloadLength += 8 + 1 + 1 + 8 * 4 + 4 + title.length + 4 + (description != null ? description.length : 0)
+                    + 4 + (claimedBy != null ? claimedBy.length : 0);
+        }
+        if (HEADER_SIZE + payloadLength > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot would exceed 2 GB");
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + payloadLength);
+                out.position(HEADER_SIZE);
+                for (int i = 0; i < tasks.size(); i++) {
+                    Task task = tasks.get(i);
+                    out.putLong(task.getId());
+                    out.put((byte) task.getStatus().ordinal());
+                    out.put((byte) task.getPriority().ordinal());
+                    out.putLong(toMillis(task.getCreatedAt()));
+                    out.putLong(toMillis(task.getUpdatedAt()));
+                    out.putLong(toMillis(task.getCompletedAt()));
+                    out.putLong(toMillis(task.getLeaseExpiresAt()));
+                    out.putInt(titles.get(i).length);
+                    out.put(titles.get(i));
+                    putNullable(out, descriptions.get(i));
+                    putNullable(out, claimants.get(i));
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(out.slice(HEADER_SIZE, (int) payloadLength));
+                out.putInt(0, MAGIC);
+                out.putInt(4, VERSION);
+                out.putInt(8, schemaHash());
+                out.putInt(12, tasks.size());
+                out.putLong(16, System.currentTimeMillis());
+                out.putLong(24, crc.getValue());
+                out.putLong(32, payloadLength);
+                out.force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+
+    public Optional<Task> findById(long id) {
+        int index = Arrays.binarySearch(sortedIds, id);
+        return index >= 0 ? Optional.of(decode(sortedOffsets[index])) : Optional.empty();
+    }
+
+    /**
+     * All tasks in the order they were written (newest first).
+     */
+    public List<Task> findAll() {
+        List<Task> tasks = new ArrayList<>(offsets.length);
+        for (int offset : offsets) {
+            tasks.add(decode(offset));
+        }
+        return tasks;
+    }
+
+    private Task decode(int offset) {
+        ByteBuffer in = payload.duplicate().position(offset);
+        Task task = new Task();
+        task.setId(in.getLong());
+        TaskStatus status = STATUSES[in.get()];
+        task.setPriority(PRIORITIES[in.get()]);
+        task.setCreatedAt(fromMillis(in.getLong()));
+        task.setUpdatedAt(fromMillis(in.getLong()));
+        task.setCompletedAt(fromMillis(in.getLong()));
+        LocalDateTime leaseExpiresAt = fromMillis(in.getLong());
+        task.setTitle(readString(in, in.getInt()));
+        task.setDescription(readNullable(in));
+        String claimedBy = readNullable(in);
+        if (claimedBy != null) {
+            task.claim(claimedBy, leaseExpiresAt);
+        }
+        // After claim(), which moves the task to IN_PROGRESS
+        task.setStatus(status);
+        return task;
+    }
+
+    private int skipRecord(int offset) {
+        int status = payload.get(offset + 8);
+        int priority = payload.get(offset + 9);
+        if (status < 0 || status >= STATUSES.length || priority < 0 || priority >= PRIORITIES.length) {
+            throw new IllegalStateException("Unknown enum ordinal at offset " + offset);
+        }
+        int position = offset + 8 + 1 + 1 + 8 * 4;
+        int titleLength = payload.getInt(position);
+        if (titleLength < 0) {
+            throw new IllegalStateException("Negative title length at offset " + offset);
+        }
+        position += 4 + titleLength;
+        int descriptionLength = payload.getInt(position);
+        position += 4 + Math.max(descriptionLength, 0);
+        int claimedByLength = payload.getInt(position);
+        position += 4 + Math.max(claimedByLength, 0);
+        return position;
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putNullable(ByteBuffer out, byte[] value) {
+        out.putInt(value != null ? value.length : -1);
+        if (value != null) {
+            out.put(value);
+        }
+    }
+
+    private static String readNullable(ByteBuffer in) {
+        int length = in.getInt();
+        return length >= 0 ? readString(in, length) : null;
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : NULL_TIME;
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return millis != NULL_TIME ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC) : null;
+    }
+
+    // Ordinals are stored, so the enum constants must match the ones the snapshot was written with
+    static int schemaHash() {
+        return (Arrays.toString(STATUSES) + Arrays.toString(PRIORITIES)).hashCode();
+    }
+
+    public static class InvalidSnapshotException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidSnapshotException(String message) {
+            super("Invalid task snapshot: " + message);
+        }
+    }
+}
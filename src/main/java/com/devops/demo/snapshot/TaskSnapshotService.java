@@ -0,0 +1,268 @@
+package com.devops.demo.snapshot;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.repository.TaskRepository;
+import com.devops.demo.shard.TaskShards;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a memory-mapped snapshot of the hot task set ({@code app.snapshot.enabled}). After a restart
+ * the snapshot serves {@code TaskService} reads until the task caches have been reloaded from the
+ * database in the background; tasks written since startup are always read from the database.
+ */
+@Service
+public class TaskSnapshotService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskSnapshotService.class);
+
+    // Start before the web server accepts requests and write the final snapshot after the write-behind flush
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+
+    private final TaskRepository taskRepository;
+    private final TaskShards shards;
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration interval;
+    private final Duration maxAge;
+    private final int maxTasks;
+    private final Timer writeTimer;
+    private final Timer loadTimer;
+
+    // Ids written since startup, plus a marker for creates; both make the snapshot stale for that read
+    private final Set<Long> dirtyIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong writes = new AtomicLong();
+    private volatile boolean created;
+
+    private volatile TaskSnapshot serving;
+    private volatile boolean running;
+    private ScheduledExecutorService scheduler;
+
+    public TaskSnapshotService(TaskRepository taskRepository,
+                               TaskShards shards,
+                               CacheManager cacheManager,
+                               @Value("${app.snapshot.enabled:false}") boolean enabled,
+                               @Value("${app.snapshot.path:data/tasks.snapshot}") Path path,
+                               @Value("${app.snapshot.interval:PT1M}") Duration interval,
+                               @Value("${app.snapshot.max-age:PT1H}") Duration maxAge,
+                               @Value("${app.snapshot.max-tasks:100000}") int maxTasks,
+                               MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.shards = shards;
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+        this.path = path;
+        this.interval = interval;
+        this.maxAge = maxAge;
+        this.maxTasks = maxTasks;
+
+        this.writeTimer = Timer.builder("tasks.snapshot.write")
+                .description("Time taken to write the task snapshot")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("tasks.snapshot.load")
+                .description("Time taken to map and validate the task snapshot at startup")
+                .register(meterRegistry);
+        Gauge.builder("tasks.snapshot.serving", this, service -> service.isServing() ? 1 : 0)
+                .description("1 while reads are served from the snapshot")
+                .register(meterRegistry);
+    }
+
+    public boolean isServing() {
+        return serving != null;
+    }
+
+    /**
+     * All snapshot tasks, or empty when not serving or once any task has been written since startup.
+     */
+    public Optional<List<Task>> findAll() {
+        TaskSnapshot snapshot = serving;
+        if (snapshot == null || created || !dirtyIds.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.findAll());
+    }
+
+    /**
+     * The snapshot copy of a task, or empty when not serving, not in the snapshot or written since startup.
+     */
+    public Optional<Task> findById(Long id) {
+        TaskSnapshot snapshot = serving;
+        if (snapshot == null || dirtyIds.contains(id)) {
+            return Optional.empty();
+        }
+        return snapshot.findById(id);
+    }
+
+    /**
+     * Called by every task write before it reaches the database; {@code id} is null for new tasks.
+     */
+    public void recordWrite(Long id) {
+        writes.incrementAndGet();
+        if (serving == null) {
+            return;
+        }
+        if (id == null) {
+            created = true;
+        } else {
+            dirtyIds.add(id);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        loadSnapshot();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::writeSnapshot,
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        if (serving != null) {
+            scheduler.execute(this::reloadCaches);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeSnapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void loadSnapshot() {
+        if (!Files.exists(path)) {
+            log.info("No task snapshot at {}, starting cold", path);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            TaskSnapshot snapshot = TaskSnapshot.open(path);
+            Duration age = Duration.between(snapshot.getCreatedAt(), Instant.now());
+            if (age.compareTo(maxAge) > 0) {
+                log.info("Ignoring task snapshot from {}, older than {}", snapshot.getCreatedAt(), maxAge);
+                return;
+            }
+            serving = snapshot;
+            log.info("Serving {} tasks from snapshot taken {} ago", snapshot.size(), age);
+        } catch (Exception e) {
+            log.warn("Could not load task snapshot {}, starting cold", path, e);
+        } finally {
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Loads the current task set from the database into the task caches, then stops serving from the
+     * snapshot. Retried until the database answers.
+     */
+    void reloadCaches() {
+        long writesBefore = writes.get();
+        try {
+            List<Task> tasks = TaskShards.merge(
+                    shards.onAllShards(shard -> taskRepository.findAllOrderByCreatedAtDesc()), TaskShards.NEWEST_FIRST);
+            // A write since the load started may already have evicted the caches; don't refill them with older data
+            if (writes.get() == writesBefore) {
+                Cache all = cacheManager.getCache("tasks");
+                Cache byId = cacheManager.getCache("task");
+                if (all != null && byId != null) {
+                    all.put(SimpleKey.EMPTY, tasks);
+                    tasks.forEach(task -> byId.put(task.getId(), Optional.of(task)));
+                }
+            }
+            log.info("Task caches reloaded with {} tasks, no longer serving from snapshot", tasks.size());
+            serving = null;
+            dirtyIds.clear();
+            created = false;
+        } catch (Exception e) {
+            log.warn("Database not ready for cache reload, serving from snapshot for now", e);
+            if (running) {
+                scheduler.schedule(this::reloadCaches, 1, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    void writeSnapshot() {
+        if (serving != null) {
+            // Rewriting the snapshot from itself would only extend its lifetime
+            return;
+        }
+        try {
+            writeTimer.recordCallable(() -> {
+                List<Task> tasks = hotTasks();
+                TaskSnapshot.write(path, tasks);
+                log.debug("Wrote {} tasks to snapshot {}", tasks.size(), path);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Could not write task snapshot {}", path, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Task> hotTasks() {
+        Cache all = cacheManager.getCache("tasks");
+        List<Task> cached = all != null ? all.get(SimpleKey.EMPTY, List.class) : null;
+        if (cached != null && cached.size() <= maxTasks) {
+            return cached;
+        }
+        // The newest maxTasks overall are among the newest maxTasks of each shard
+        List<Task> newest = TaskShards.merge(shards.onAllShards(shard -> taskRepository.findAll(
+                PageRequest.of(0, maxTasks, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent()),
+                TaskShards.NEWEST_FIRST);
+        return newest.size() > maxTasks ? newest.subList(0, maxTasks) : newest;
+    }
+}
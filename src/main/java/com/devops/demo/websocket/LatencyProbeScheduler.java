@@ -0,0 +1,65 @@
+package com.devops.demo.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every {@code app.websocket.probe.interval}, sends a probe to each session subscribed to
+ * {@code /user/queue/probe}; the client echoes its {@code id} to {@code /app/probe} and
+ * {@link WebSocketSessionTracker} records the round trip. Also refreshes the per-session message rates.
+ */
+@Component
+public class LatencyProbeScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyProbeScheduler.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketSessionTracker tracker;
+    private final boolean enabled;
+
+    public LatencyProbeScheduler(SimpMessagingTemplate messagingTemplate, WebSocketSessionTracker tracker,
+                                 @Value("${app.websocket.probe.enabled:true}") boolean enabled) {
+        this.messagingTemplate = messagingTemplate;
+        this.tracker = tracker;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(initialDelayString = "${app.websocket.probe.interval:PT10S}",
+            fixedDelayString = "${app.websocket.probe.interval:PT10S}")
+    public void probe() {
+        tracker.sample();
+        if (!enabled) {
+            return;
+        }
+        List<WebSocketSessionTracker.Probe> probes = tracker.startProbes();
+        for (WebSocketSessionTracker.Probe probe : probes) {
+            try {
+                messagingTemplate.convertAndSendToUser(probe.sessionId(), WebSocketSessionTracker.PROBE_DESTINATION,
+                        Map.of("id", probe.id(), "sentAt", System.currentTimeMillis()),
+                        sessionHeaders(probe.sessionId()));
+            } catch (Exception e) {
+                log.debug("Could not probe WebSocket session {}", probe.sessionId(), e);
+            }
+        }
+        if (!probes.isEmpty()) {
+            log.debug("Probed {} of {} WebSocket sessions", probes.size(), tracker.getSessionCount());
+        }
+    }
+
+    // Addressing the user destination by session id reaches that session only, with or without a principal
+    private static Map<String, Object> sessionHeaders(String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        return headers.getMessageHeaders();
+    }
+}
@@ -0,0 +1,162 @@
+package com.devops.demo.websocket;
+
+import org.HdrHistogram.IntCountsHistogram;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Round-trip times, message counts and send-buffer occupancy of one WebSocket session.
+ */
+class SessionStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    // Weight of a new sample in the smoothed RTT, as for TCP's SRTT (RFC 6298)
+    private static final double SMOOTHING = 0.125;
+
+    private final String id;
+    private final String user;
+    private final Instant connectedAt;
+
+    private final LongAdder inboundMessages = new LongAdder();
+    private final LongAdder inboundBytes = new LongAdder();
+    private final LongAdder outboundMessages = new LongAdder();
+    private final LongAdder outboundBytes = new LongAdder();
+    // Messages handed to the outbound channel and not yet written to the socket
+    private final AtomicInteger sendBuffer = new AtomicInteger();
+    private final AtomicInteger peakSendBuffer = new AtomicInteger();
+
+    private volatile String probeSubscription;
+
+    // Guarded by this
+    private final IntCountsHistogram rtt = new IntCountsHistogram(HIGHEST_TRACKABLE_MICROS, 2);
+    private double smoothedRttMicros = -1;
+    private long lastRttMicros = -1;
+    private long pendingProbeId = -1;
+    private long pendingProbeSentAt;
+    private long probesSent;
+    private long probesLost;
+    private long sampledAt;
+    private long sampledInbound;
+    private long sampledOutbound;
+    private double inboundRate;
+    private double outboundRate;
+
+    SessionStats(String id, String user, long now) {
+        this.id = id;
+        this.user = user;
+        this.connectedAt = Instant.now();
+        this.sampledAt = now;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    void received(int bytes) {
+        inboundMessages.increment();
+        inboundBytes.add(bytes);
+    }
+
+    void queued() {
+        peakSendBuffer.accumulateAndGet(sendBuffer.incrementAndGet(), Math::max);
+    }
+
+    void sent(int bytes) {
+        outboundMessages.increment();
+        outboundBytes.add(bytes);
+    }
+
+    void unqueued() {
+        // Frames the STOMP handler writes on its own (e.g. ERROR) were never queued
+        sendBuffer.updateAndGet(n -> n > 0 ? n - 1 : 0);
+    }
+
+    int getSendBuffer() {
+        return sendBuffer.get();
+    }
+
+    boolean isProbed() {
+        return probeSubscription != null;
+    }
+
+    void subscribed(String subscriptionId) {
+        probeSubscription = subscriptionId;
+    }
+
+    void unsubscribed(String subscriptionId) {
+        if (subscriptionId != null && subscriptionId.equals(probeSubscription)) {
+            probeSubscription = null;
+        }
+    }
+
+    /**
+     * Starts a probe and reports whether the previous one went unanswered.
+     */
+    synchronized boolean probe(long probeId, long now) {
+        boolean lost = pendingProbeId >= 0;
+        if (lost) {
+            probesLost++;
+        }
+        probesSent++;
+        pendingProbeId = probeId;
+        pendingProbeSentAt = now;
+        return lost;
+    }
+
+    /**
+     * Completes the outstanding probe, returning its round-trip time in nanoseconds, or -1 when
+     * {@code probeId} is not the outstanding probe (late, duplicate or forged replies).
+     */
+    synchronized long answered(long probeId, long now) {
+        if (probeId != pendingProbeId) {
+            return -1;
+        }
+        pendingProbeId = -1;
+        long nanos = now - pendingProbeSentAt;
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS);
+        rtt.recordValue(micros);
+        lastRttMicros = micros;
+        smoothedRttMicros = smoothedRttMicros < 0 ? micros : smoothedRttMicros + SMOOTHING * (micros - smoothedRttMicros);
+        return nanos;
+    }
+
+    /**
+     * Recomputes the message rates over the time since the previous call.
+     */
+    synchronized void sample(long now) {
+        long inbound = inboundMessages.sum();
+        long outbound = outboundMessages.sum();
+        double seconds = (now - sampledAt) / 1e9;
+        if (seconds > 0) {
+            inboundRate = (inbound - sampledInbound) / seconds;
+            outboundRate = (outbound - sampledOutbound) / seconds;
+        }
+        sampledAt = now;
+        sampledInbound = inbound;
+        sampledOutbound = outbound;
+    }
+
+    synchronized double getSmoothedRttMicros() {
+        return smoothedRttMicros;
+    }
+
+    synchronized WebSocketSessionTracker.SessionLatency report() {
+        boolean measured = rtt.getTotalCount() > 0;
+        return new WebSocketSessionTracker.SessionLatency(id, user, connectedAt, isProbed(), probesSent, probesLost,
+                measured ? millis(lastRttMicros) : null,
+                measured ? smoothedRttMicros / 1000.0 : null,
+                measured ? millis(rtt.getValueAtPercentile(50)) : null,
+                measured ? millis(rtt.getValueAtPercentile(95)) : null,
+                measured ? millis(rtt.getValueAtPercentile(99)) : null,
+                measured ? millis(rtt.getMaxValue()) : null,
+                inboundMessages.sum(), inboundBytes.sum(), outboundMessages.sum(), outboundBytes.sum(),
+                inboundRate, outboundRate, sendBuffer.get(), peakSendBuffer.get());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -1,12 +1,21 @@
 package com.devops.demo.websocket;
 
+import com.devops.demo.admission.AdmissionControlService;
+import com.devops.demo.admission.AdmissionRejectedException;
+import com.devops.demo.idempotency.IdempotencyConflictException;
+import com.devops.demo.idempotency.IdempotencyService;
 import com.devops.demo.model.Task;
+import com.devops.demo.model.TaskPatch;
 import com.devops.demo.service.TaskService;
+import com.devops.demo.service.TaskWriteBehindBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
 import java.time.Instant;
@@ -19,29 +28,47 @@ public class TaskWebSocketController {
 
     private final TaskService taskService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final AdmissionControlService admissionControl;
+    private final TaskWriteBehindBuffer writeBehind;
+    private final IdempotencyService idempotency;
+    private final WebSocketSessionTracker sessionTracker;
 
-    public TaskWebSocketController(TaskService taskService, SimpMessagingTemplate messagingTemplate) {
+    public TaskWebSocketController(TaskService taskService, SimpMessagingTemplate messagingTemplate,
+                                   AdmissionControlService admissionControl, TaskWriteBehindBuffer writeBehind,
+                                   IdempotencyService idempotency, WebSocketSessionTracker sessionTracker) {
         this.taskService = taskService;
         this.messagingTemplate = messagingTemplate;
+        this.admissionControl = admissionControl;
+        this.writeBehind = writeBehind;
+        this.idempotency = idempotency;
+        this.sessionTracker = sessionTracker;
     }
 
     @MessageMapping("/task/create")
     @SendTo("/topic/tasks")
-    public Map<String, Object> createTask(Task task) {
+    public Map<String, Object> createTask(Task task, SimpMessageHeaderAccessor headers) {
         log.info("WebSocket: Creating task - {}", task.getTitle());
-        Task created = taskService.createTask(task);
+        // Same key space as the REST Idempotency-Key header, sent as a STOMP header on the SEND frame
+        IdempotencyService.Result<Task> created = idempotency.execute("task.create",
+                headers.getFirstNativeHeader("Idempotency-Key"), task.creationFields(), Task.class,
+                () -> admissionControl.admit(clientId(headers), () -> taskService.createTask(task)));
         return Map.of(
                 "action", "CREATED",
-                "task", created,
+                "task", created.value(),
+                "replayed", created.replayed(),
                 "timestamp", Instant.now().toString()
         );
     }
 
     @MessageMapping("/task/update")
     @SendTo("/topic/tasks")
-    public Map<String, Object> updateTask(Task task) {
-        log.info("WebSocket: Updating task - {}", task.getId());
-        return taskService.updateTask(task.getId(), task)
+    public Map<String, Object> updateTask(TaskPatch patch, SimpMessageHeaderAccessor headers) {
+        log.info("WebSocket: Updating task - {}", patch.getId());
+        // Fields left out of the message keep their value. In write-behind mode clients are acknowledged
+        // with the merged state before it is persisted
+        return admissionControl.admit(clientId(headers), () -> writeBehind.isActive()
+                        ? writeBehind.submit(patch)
+                        : taskService.patchTask(patch))
                 .map(updated -> Map.<String, Object>of(
                         "action", "UPDATED",
                         "task", updated,
@@ -55,7 +82,7 @@ public class TaskWebSocketController {
     }
 
     @MessageMapping("/ping")
-    @SendTo("/topic/pong")
+    @SendToUser(destinations = "/queue/pong", broadcast = false)
     public Map<String, Object> ping(Map<String, Object> message) {
         log.debug("WebSocket: Ping received");
         return Map.of(
@@ -65,6 +92,36 @@ public class TaskWebSocketController {
         );
     }
 
+    // Answer to a server probe sent to /user/queue/probe
+    @MessageMapping("/probe")
+    public void probe(Map<String, Object> message, SimpMessageHeaderAccessor headers) {
+        if (message.get("id") instanceof Number id) {
+            sessionTracker.probeAnswered(headers.getSessionId(), id.longValue());
+        }
+    }
+
+    @MessageExceptionHandler(AdmissionRejectedException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> handleAdmissionRejected(AdmissionRejectedException e) {
+        return Map.of(
+                "action", "REJECTED",
+                "reason", e.getReason(),
+                "retryAfterSeconds", e.getRetryAfterSeconds(),
+                "timestamp", Instant.now().toString()
+        );
+    }
+
+    @MessageExceptionHandler(IdempotencyConflictException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> handleIdempotencyConflict(IdempotencyConflictException e) {
+        return Map.of(
+                "action", "REJECTED",
+                "reason", e.getReason(),
+                "message", e.getMessage(),
+                "timestamp", Instant.now().toString()
+        );
+    }
+
     // Method to broadcast task updates from REST endpoints
     public void broadcastTaskUpdate(String action, Task task) {
         messagingTemplate.convertAndSend("/topic/tasks", Map.of(
@@ -73,4 +130,8 @@ public class TaskWebSocketController {
                 "timestamp", Instant.now().toString()
         ));
     }
+
+    private static String clientId(SimpMessageHeaderAccessor headers) {
+        return headers.getUser() != null ? headers.getUser().getName() : headers.getSessionId();
+    }
 }
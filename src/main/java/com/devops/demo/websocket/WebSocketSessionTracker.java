@@ -0,0 +1,291 @@
+package com.devops.demo.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-session WebSocket telemetry: round-trip times measured by {@link LatencyProbeScheduler}, inbound and
+ * outbound message rates, and send-buffer occupancy, i.e. messages queued for a session that have not been
+ * written to its socket yet. Sessions are registered by the transport decorator from {@link #decorator()},
+ * and the channel interceptors count messages on the way in and out.
+ *
+ * <p>Round-trip times are aggregated into {@code websocket.rtt} (percentiles and a Prometheus histogram);
+ * per-session histograms are only kept in memory and listed by {@link #slowest(int)}.
+ */
+@Component
+public class WebSocketSessionTracker {
+
+    /**
+     * Where probes are sent; clients answer on {@code /app/probe}.
+     */
+    public static final String PROBE_DESTINATION = "/queue/probe";
+    private static final String PROBE_SUBSCRIPTION = "/user" + PROBE_DESTINATION;
+
+    private final Map<String, SessionStats> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong probeIds = new AtomicLong();
+    private final LongAdder inboundMessages = new LongAdder();
+    private final LongAdder inboundBytes = new LongAdder();
+    private final LongAdder outboundMessages = new LongAdder();
+    private final LongAdder outboundBytes = new LongAdder();
+    private final Timer rttTimer;
+    private final Counter probesSent;
+    private final Counter probesAnswered;
+    private final Counter probesLost;
+
+    public WebSocketSessionTracker(MeterRegistry meterRegistry) {
+        this.rttTimer = Timer.builder("websocket.rtt")
+                .description("Round-trip time of server-initiated probes, including time queued for the socket")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        this.probesSent = probeCounter(meterRegistry, "sent");
+        this.probesAnswered = probeCounter(meterRegistry, "answered");
+        this.probesLost = probeCounter(meterRegistry, "lost");
+
+        Gauge.builder("websocket.sessions", sessions, Map::size)
+                .description("Open WebSocket sessions")
+                .register(meterRegistry);
+        Gauge.builder("websocket.send.buffer", sessions, map -> map.values().stream()
+                        .mapToInt(SessionStats::getSendBuffer).sum())
+                .description("Messages queued for all sessions and not yet written to their sockets")
+                .register(meterRegistry);
+        Gauge.builder("websocket.send.buffer.max", sessions, map -> map.values().stream()
+                        .mapToInt(SessionStats::getSendBuffer).max().orElse(0))
+                .description("Messages queued for the most backed-up session")
+                .register(meterRegistry);
+        messageCounters(meterRegistry, "inbound", inboundMessages, inboundBytes);
+        messageCounters(meterRegistry, "outbound", outboundMessages, outboundBytes);
+    }
+
+    /**
+     * Wraps every WebSocket (and SockJS) session so writes to the socket are counted.
+     */
+    public WebSocketHandlerDecoratorFactory decorator() {
+        return handler -> new TrackingHandler(handler);
+    }
+
+    /**
+     * Counts client messages and notices subscriptions to {@link #PROBE_DESTINATION}.
+     */
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                MessageHeaders headers = message.getHeaders();
+                SessionStats stats = stats(headers);
+                if (stats == null) {
+                    return message;
+                }
+                int bytes = message.getPayload() instanceof byte[] payload ? payload.length : 0;
+                stats.received(bytes);
+                inboundMessages.increment();
+                inboundBytes.add(bytes);
+
+                SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+                if (type == SimpMessageType.SUBSCRIBE
+                        && PROBE_SUBSCRIPTION.equals(SimpMessageHeaderAccessor.getDestination(headers))) {
+                    stats.subscribed(SimpMessageHeaderAccessor.getSubscriptionId(headers));
+                } else if (type == SimpMessageType.UNSUBSCRIBE) {
+                    stats.unsubscribed(SimpMessageHeaderAccessor.getSubscriptionId(headers));
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * Counts messages queued for a session; they leave the send buffer once written to the socket.
+     */
+    public ChannelInterceptor outboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                SessionStats stats = stats(message.getHeaders());
+                if (stats != null) {
+                    stats.queued();
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * Starts a probe for every session subscribed to {@link #PROBE_DESTINATION}. A session whose previous
+     * probe is still unanswered counts it as lost.
+     */
+    public List<Probe> startProbes() {
+        long now = System.nanoTime();
+        List<Probe> probes = new ArrayList<>();
+        for (SessionStats stats : sessions.values()) {
+            if (!stats.isProbed()) {
+                continue;
+            }
+            long id = probeIds.incrementAndGet();
+            if (stats.probe(id, now)) {
+                probesLost.increment();
+            }
+            probesSent.increment();
+            probes.add(new Probe(stats.getId(), id));
+        }
+        return probes;
+    }
+
+    /**
+     * Records the answer to a probe; answers that do not match the session's outstanding probe are ignored.
+     */
+    public boolean probeAnswered(String sessionId, long probeId) {
+        SessionStats stats = sessionId != null ? sessions.get(sessionId) : null;
+        if (stats == null) {
+            return false;
+        }
+        long rtt = stats.answered(probeId, System.nanoTime());
+        if (rtt < 0) {
+            return false;
+        }
+        probesAnswered.increment();
+        rttTimer.record(rtt, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    /**
+     * Recomputes every session's message rates over the time since the previous call.
+     */
+    public void sample() {
+        long now = System.nanoTime();
+        sessions.values().forEach(stats -> stats.sample(now));
+    }
+
+    /**
+     * Up to {@code limit} sessions with the highest smoothed round-trip time; sessions without a measurement
+     * come last.
+     */
+    public List<SessionLatency> slowest(int limit) {
+        return sessions.values().stream()
+                .sorted(Comparator.comparingDouble(SessionStats::getSmoothedRttMicros).reversed())
+                .limit(limit)
+                .map(SessionStats::report)
+                .toList();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * A probe to send to one session.
+     */
+    public record Probe(String sessionId, long id) {}
+
+    /**
+     * One session's round-trip times in milliseconds ({@code null} until a probe was answered), message
+     * totals, message rates per second over the last probe interval, and send-buffer occupancy in messages.
+     */
+    public record SessionLatency(String sessionId, String user, Instant connectedAt, boolean probed,
+                                 long probesSent, long probesLost, Double lastRttMillis, Double smoothedRttMillis,
+                                 Double p50RttMillis, Double p95RttMillis, Double p99RttMillis, Double maxRttMillis,
+                                 long inboundMessages, long inboundBytes, long outboundMessages, long outboundBytes,
+                                 double inboundPerSecond, double outboundPerSecond,
+                                 int sendBuffer, int peakSendBuffer) {}
+
+    private SessionStats stats(MessageHeaders headers) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    private static Counter probeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("websocket.probes")
+                .description("Round-trip probes sent to WebSocket sessions, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static void messageCounters(MeterRegistry meterRegistry, String direction,
+                                        LongAdder messages, LongAdder bytes) {
+        FunctionCounter.builder("websocket.messages", messages, LongAdder::sum)
+                .description("STOMP frames exchanged with WebSocket clients")
+                .tag("direction", direction)
+                .register(meterRegistry);
+        FunctionCounter.builder("websocket.bytes", bytes, LongAdder::sum)
+                .description("Payload bytes exchanged with WebSocket clients")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    private final class TrackingHandler extends WebSocketHandlerDecorator {
+
+        TrackingHandler(WebSocketHandler delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            SessionStats stats = new SessionStats(session.getId(),
+                    session.getPrincipal() != null ? session.getPrincipal().getName() : null, System.nanoTime());
+            sessions.put(session.getId(), stats);
+            super.afterConnectionEstablished(new TrackedSession(session, stats));
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+            try {
+                super.afterConnectionClosed(session, closeStatus);
+            } finally {
+                sessions.remove(session.getId());
+            }
+        }
+    }
+
+    private final class TrackedSession extends WebSocketSessionDecorator {
+
+        private final SessionStats stats;
+
+        TrackedSession(WebSocketSession delegate, SessionStats stats) {
+            super(delegate);
+            this.stats = stats;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+                stats.sent(message.getPayloadLength());
+                outboundMessages.increment();
+                outboundBytes.add(message.getPayloadLength());
+            } finally {
+                stats.unqueued();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+-- PostgreSQL schema for the production profile, which only validates it (spring.jpa.hibernate.ddl-auto=validate).
+-- Safe to re-run: it creates what is missing and adds the columns introduced since a database was created.
+-- With sharding, apply it to every shard and then, on shard k of n, start the ids at the shard's offset:
+--   ALTER TABLE tasks ALTER COLUMN id SET INCREMENT BY n;
+--   ALTER TABLE tasks ALTER COLUMN id RESTART WITH k;   -- n on shard 0
+
+CREATE TABLE IF NOT EXISTS tasks (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title            varchar(100) NOT NULL,
+    description      varchar(500),
+    status           varchar(255) CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED')),
+    priority         varchar(255) CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH', 'CRITICAL')),
+    created_at       timestamp(6),
+    updated_at       timestamp(6),
+    completed_at     timestamp(6)
+);
+
+-- Claim queue (POST /api/v1/tasks/claim)
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS claimed_by varchar(100);
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_expires_at timestamp(6);
+
+CREATE INDEX IF NOT EXISTS idx_tasks_claim ON tasks (status, priority, created_at);
+CREATE INDEX IF NOT EXISTS idx_tasks_lease ON tasks (status, lease_expires_at);
+
+-- Completed and cancelled tasks moved out of tasks by app.archive
+CREATE TABLE IF NOT EXISTS archived_tasks (
+    id               bigint PRIMARY KEY,
+    title            varchar(100) NOT NULL,
+    description      varchar(500),
+    status           varchar(255) CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED')),
+    priority         varchar(255) CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH', 'CRITICAL')),
+    created_at       timestamp(6),
+    updated_at       timestamp(6),
+    completed_at     timestamp(6),
+    archived_at      timestamp(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_archived_tasks_status ON archived_tasks (status, priority);
+
+-- Idempotency keys; mapped, and so validated, even when app.idempotency.persistent is off
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key  varchar(64) PRIMARY KEY,
+    fingerprint      varchar(64) NOT NULL,
+    response         varchar(8000),
+    created_at       timestamp(6) NOT NULL,
+    expires_at       timestamp(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,114 @@
+package com.devops.demo;
+
+import com.devops.demo.admission.AdmissionControlService;
+import com.devops.demo.admission.AdmissionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Admission control with a client bucket of two writes that practically does not refill. Each test writes
+ * from its own remote address, so they do not share buckets.
+ */
+@SpringBootTest(properties = {
+        "app.admission.client-rate=0.01",
+        "app.admission.client-burst=2"
+})
+@AutoConfigureMockMvc
+class AdmissionControlTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("A client over its rate gets 429 with Retry-After, counted in tasks.admission.rejected")
+    void clientOverRateIsRejected() throws Exception {
+        double rejectedBefore = rejected("client_rate");
+
+        createTask("10.0.0.1").andExpect(status().isCreated());
+        createTask("10.0.0.1").andExpect(status().isCreated());
+        createTask("10.0.0.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", matchesPattern("[1-9][0-9]*")))
+                .andExpect(jsonPath("$.reason", is("client_rate")));
+
+        assertThat(rejected("client_rate")).isEqualTo(rejectedBefore + 1);
+    }
+
+    @Test
+    @DisplayName("A new X-Client-Id header does not give a client a fresh bucket")
+    void clientIdHeaderIsIgnored() throws Exception {
+        createTask("10.0.0.2").andExpect(status().isCreated());
+        createTask("10.0.0.2").andExpect(status().isCreated());
+
+        mockMvc.perform(taskRequest("10.0.0.2").header("X-Client-Id", "someone-else"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @DisplayName("Authenticated users have a bucket of their own")
+    void principalHasOwnBucket() throws Exception {
+        createTask("10.0.0.3").andExpect(status().isCreated());
+        createTask("10.0.0.3").andExpect(status().isCreated());
+        createTask("10.0.0.3").andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(taskRequest("10.0.0.3").principal(() -> "alice"))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @DisplayName("A write rejected by the concurrency limit gives its rate tokens back")
+    void rejectedWriteRefundsTokens() {
+        // One write at a time, and one client token that never refills
+        AdmissionControlService admission = new AdmissionControlService(true, 1000, 1000, 0, 1, 100,
+                Duration.ofMinutes(5), 1, 1, 1, new SimpleMeterRegistry());
+
+        admission.admit("holder", () -> {
+            assertThatThrownBy(() -> admission.admit("client", () -> "nested"))
+                    .isInstanceOf(AdmissionRejectedException.class)
+                    .hasFieldOrPropertyWithValue("reason", "concurrency");
+            return null;
+        });
+
+        assertThat(admission.admit("client", () -> "admitted")).isEqualTo("admitted");
+    }
+
+    private ResultActions createTask(String remoteAddress) throws Exception {
+        return mockMvc.perform(taskRequest(remoteAddress));
+    }
+
+    private MockHttpServletRequestBuilder taskRequest(String remoteAddress) {
+        return post("/api/v1/tasks")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddress);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Admission test task\"}");
+    }
+
+    private double rejected(String reason) {
+        Counter counter = meterRegistry.find("tasks.admission.rejected").tag("reason", reason).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
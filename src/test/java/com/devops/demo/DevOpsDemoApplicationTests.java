@@ -1,21 +1,89 @@
 package com.devops.demo;
 
+import com.devops.demo.analytics.TaskAnalytics;
+import com.devops.demo.analytics.TaskAnalyticsService;
+import com.devops.demo.archive.TaskArchiveService;
+import com.devops.demo.cache.SingleFlightCache;
+import com.devops.demo.config.MeterLimitsProperties;
+import com.devops.demo.config.NativeHintsConfig;
+import com.devops.demo.deadline.Deadline;
+import com.devops.demo.deadline.DeadlineExceededException;
+import com.devops.demo.idempotency.IdempotencyService;
+import com.devops.demo.index.TaskIndex;
+import com.devops.demo.metrics.CachingPrometheusScrapeEndpoint;
+import com.devops.demo.metrics.CardinalityGuard;
+import com.devops.demo.model.IdempotencyRecord;
+import com.devops.demo.model.LoadSimulation;
+import com.devops.demo.model.LoadSimulationRequest;
+import com.devops.demo.model.SystemMetrics;
 import com.devops.demo.model.Task;
+import com.devops.demo.model.TaskChangedEvent;
+import com.devops.demo.model.TaskPatch;
+import com.devops.demo.pool.AdaptivePoolSize;
+import com.devops.demo.queue.TaskLeaseReaper;
+import com.devops.demo.repository.ArchivedTaskRepository;
+import com.devops.demo.repository.IdempotencyRecordRepository;
 import com.devops.demo.repository.TaskRepository;
+import com.devops.demo.service.LoadSimulationService;
 import com.devops.demo.service.TaskService;
+import com.devops.demo.service.TaskWriteBehindBuffer;
+import com.devops.demo.shard.TaskShards;
+import com.devops.demo.snapshot.TaskSnapshot;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.metrics.export.prometheus.TextOutputFormat;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.junit.jupiter.api.Disabled;
 
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -36,9 +104,55 @@ class DevOpsDemoApplicationTests {
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TaskWriteBehindBuffer writeBehind;
+
+    @Autowired
+    private TaskIndex taskIndex;
+
+    @Autowired
+    private TaskShards shards;
+
+    @Autowired
+    private TaskAnalyticsService taskAnalyticsService;
+
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Autowired
+    private TaskArchiveService taskArchiveService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskLeaseReaper taskLeaseReaper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LoadSimulationService loadSimulationService;
+
     @BeforeEach
     void setUp() {
         taskRepository.deleteAll();
+        archivedTaskRepository.deleteAll();
+        // The repository bypasses TaskService, so resync the in-memory index and analytics
+        taskIndex.rebuild();
+        taskAnalyticsService.rebuild();
     }
 
     @Test
@@ -46,6 +160,27 @@ class DevOpsDemoApplicationTests {
         assertThat(taskService).isNotNull();
     }
 
+    @Test
+    @DisplayName("Application becomes ready within the startup budget")
+    void startupTimeWithinBudget() {
+        long budgetMs = Long.getLong("startup.budget.ms", 30_000);
+        double readyMs = meterRegistry.get("application.ready.time").timeGauge().value(TimeUnit.MILLISECONDS);
+
+        assertThat(readyMs).isPositive().isLessThan(budgetMs);
+    }
+
+    @Test
+    @DisplayName("Native image hints cover entities, payloads and static resources")
+    void nativeRuntimeHintsAreRegistered() {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeHintsConfig.ApplicationRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(Task.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(SystemMetrics.SystemMetricsBuilder.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(TaskService.TaskStatistics.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("static/index.html")).accepts(hints);
+    }
+
     // ==================== Health Check Tests ====================
 
     @Test
@@ -72,6 +207,17 @@ class DevOpsDemoApplicationTests {
                 .andExpect(jsonPath("$.status", is("UP")));
     }
 
+    @Test
+    @DisplayName("Readiness probe reports cached dependency checks")
+    void readinessProbeReportsChecks() throws Exception {
+        mockMvc.perform(get("/api/v1/health/ready"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.checks.database.status", is("UP")))
+                .andExpect(jsonPath("$.checks.broker.status", is("UP")))
+                .andExpect(jsonPath("$.checks.cache.status", is("UP")))
+                .andExpect(jsonPath("$.checks.executors.status", is("UP")));
+    }
+
     @Test
     @Disabled("Prometheus endpoint not exposed in test context")
     @DisplayName("Prometheus metrics endpoint is accessible")
@@ -81,6 +227,106 @@ class DevOpsDemoApplicationTests {
                 .andExpect(content().string(containsString("jvm_memory")));
     }
 
+    @Test
+    @DisplayName("Meters beyond their series limit are dropped; denied meters and ignored tags never register")
+    void cardinalityGuard() {
+        MeterLimitsProperties properties = new MeterLimitsProperties();
+        properties.setMaxSeriesPerMeter(3);
+        MeterLimitsProperties.MeterPolicy denied = new MeterLimitsProperties.MeterPolicy();
+        denied.setName("noisy");
+        denied.setDeny(true);
+        MeterLimitsProperties.MeterPolicy stripped = new MeterLimitsProperties.MeterPolicy();
+        stripped.setName("requests");
+        stripped.setIgnoredTags(List.of("client"));
+        properties.setMeters(List.of(denied, stripped));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CardinalityGuard guard = new CardinalityGuard(properties);
+        registry.config().meterFilter(guard);
+        guard.bindTo(registry);
+
+        for (int i = 0; i < 5; i++) {
+            registry.counter("orders", "customer", "c" + i).increment();
+        }
+        assertThat(registry.find("orders").counters()).hasSize(3);
+        assertThat(guard.getRejected()).isEqualTo(2);
+        // Existing series keep recording
+        registry.counter("orders", "customer", "c0").increment();
+        assertThat(registry.get("orders").tag("customer", "c0").counter().count()).isEqualTo(2);
+
+        // Removing a series frees its slot
+        registry.remove(registry.get("orders").tag("customer", "c1").counter());
+        registry.counter("orders", "customer", "c4").increment();
+        assertThat(registry.find("orders").tag("customer", "c4").counter()).isNotNull();
+
+        registry.counter("noisy.events").increment();
+        assertThat(registry.find("noisy.events").counter()).isNull();
+
+        for (int i = 0; i < 10; i++) {
+            registry.counter("requests", "client", "client-" + i, "status", "200").increment();
+        }
+        assertThat(registry.find("requests").counters()).hasSize(1);
+        assertThat(registry.get("requests").counter().count()).isEqualTo(10);
+        assertThat(registry.get("metrics.cardinality.rejected").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Prometheus scrapes within the TTL are served from one render")
+    void prometheusScrapeCache() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        CachingPrometheusScrapeEndpoint endpoint = new CachingPrometheusScrapeEndpoint(
+                registry.getPrometheusRegistry(), Duration.ofMinutes(1), registry);
+        Counter counter = registry.counter("scraped.things");
+
+        WebEndpointResponse<String> first = endpoint.scrape(TextOutputFormat.CONTENT_TYPE_004, null);
+        counter.increment();
+        WebEndpointResponse<String> second = endpoint.scrape(TextOutputFormat.CONTENT_TYPE_004, null);
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getBody()).isEqualTo(first.getBody()).contains("scraped_things_total 0.0");
+        assertThat(registry.get("prometheus.scrape.requests").tag("result", "cached").counter().count()).isEqualTo(1);
+        assertThat(registry.get("prometheus.scrape").timer().count()).isEqualTo(1);
+
+        // Scrapes for specific metrics bypass the cache
+        WebEndpointResponse<String> filtered = endpoint.scrape(TextOutputFormat.CONTENT_TYPE_004,
+                Set.of("scraped_things_total"));
+        assertThat(filtered.getBody()).contains("scraped_things_total 1.0");
+    }
+
+    @Test
+    @DisplayName("Requests whose deadline has passed do not start a transaction")
+    void expiredDeadlineRejectsBeforeDatabase() throws Exception {
+        try (Deadline.Scope scope = Deadline.start(Duration.ofNanos(1))) {
+            assertThatThrownBy(taskService::getStatistics)
+                    .isInstanceOfSatisfying(DeadlineExceededException.class, e -> assertThat(e.isStarted()).isFalse());
+        }
+
+        mockMvc.perform(get("/api/v1/tasks/statistics").header("X-Request-Timeout", "soon"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/tasks/statistics").header("X-Request-Timeout", "2000"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("The deadline becomes the query timeout and stops later repository calls")
+    void deadlineCancelsSlowQuery() {
+        // About ten seconds of 1 ms sleeps; H2 checks for cancellation between rows
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS SLEEP FOR \"java.lang.Thread.sleep(long)\"");
+        long start = System.nanoTime();
+        try (Deadline.Scope scope = Deadline.start(Duration.ofMillis(500))) {
+            assertThatThrownBy(() -> transactionTemplate.execute(status -> jdbcTemplate.queryForObject(
+                    "SELECT COUNT(SLEEP(1)) FROM SYSTEM_RANGE(1, 10000)", Long.class)))
+                    .isInstanceOf(QueryTimeoutException.class);
+            // JDBC query timeouts are whole seconds
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(3));
+
+            assertThatThrownBy(() -> transactionTemplate.execute(status -> taskRepository.count()))
+                    .isInstanceOf(DeadlineExceededException.class);
+        }
+        // The cancelled connection went back to the pool in working order
+        assertThat(taskRepository.count()).isZero();
+    }
+
     // ==================== Task API Tests ====================
 
     @Test
@@ -102,6 +348,135 @@ class DevOpsDemoApplicationTests {
                 .andExpect(jsonPath("$.priority", is("HIGH")));
     }
 
+    @Test
+    @DisplayName("Create a task - retries with the same Idempotency-Key replay the first response")
+    void createTaskIdempotent() throws Exception {
+        // As a client would send it: no createdAt, so each retry deserializes with a different one
+        String body = "{\"title\": \"Exactly Once\"}";
+        String key = UUID.randomUUID().toString();
+        double created = meterRegistry.get("tasks.created.total").counter().count();
+
+        MvcResult first = mockMvc.perform(post("/api/v1/tasks")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+        Task original = objectMapper.readValue(first.getResponse().getContentAsString(), Task.class);
+
+        mockMvc.perform(post("/api/v1/tasks")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id", is(original.getId().intValue())));
+
+        assertThat(taskRepository.count()).isEqualTo(1);
+        assertThat(meterRegistry.get("tasks.created.total").counter().count() - created).isEqualTo(1);
+
+        // The same key with a different body is a client error, not a replay
+        mockMvc.perform(post("/api/v1/tasks")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Task.builder().title("Something Else").build())))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.reason", is("KEY_REUSED")));
+    }
+
+    @Test
+    @DisplayName("Concurrent requests with one Idempotency-Key run the write once")
+    void idempotentRequestsInFlightWaitForFirst() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<IdempotencyService.Result<Task>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                // Each retry carries its own copy of the body, as a deserialized request would
+                Task request = Task.builder().title("In Flight").build();
+                results.add(executor.submit(() -> idempotencyService.execute("test", key, request.creationFields(),
+                        Task.class, () -> {
+                            calls.incrementAndGet();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return taskService.createTask(request);
+                        })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            List<Long> ids = new ArrayList<>();
+            for (Future<IdempotencyService.Result<Task>> result : results) {
+                ids.add(result.get(10, TimeUnit.SECONDS).value().getId());
+            }
+            assertThat(ids).containsOnly(ids.get(0));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(taskRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Persistent idempotency keys are replayed by another replica")
+    void idempotencyKeysSharedThroughTable() {
+        IdempotencyService first = new IdempotencyService(idempotencyRecordRepository, transactionTemplate,
+                objectMapper, true, Duration.ofHours(1), 100, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        IdempotencyService second = new IdempotencyService(idempotencyRecordRepository, transactionTemplate,
+                objectMapper, true, Duration.ofHours(1), 100, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        String key = UUID.randomUUID().toString();
+        Task request = Task.builder().title("Replicated").build();
+        Task retry = Task.builder().title("Replicated").build();
+
+        IdempotencyService.Result<Task> created = first.execute("test", key, request.creationFields(), Task.class,
+                () -> taskService.createTask(request));
+        IdempotencyService.Result<Task> replayed = second.execute("test", key, retry.creationFields(), Task.class,
+                () -> {
+                    throw new AssertionError("Replayed request must not run again");
+                });
+
+        assertThat(created.replayed()).isFalse();
+        assertThat(replayed.replayed()).isTrue();
+        assertThat(replayed.value().getId()).isEqualTo(created.value().getId());
+        assertThat(replayed.value().getTitle()).isEqualTo("Replicated");
+        assertThat(taskRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Persistent idempotency runs the write outside the key's transaction and frees the key on failure")
+    void persistentIdempotencyWritesOutsideClaim() {
+        IdempotencyService service = new IdempotencyService(idempotencyRecordRepository, transactionTemplate,
+                objectMapper, true, Duration.ofHours(1), 100, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        String key = UUID.randomUUID().toString();
+        Task request = Task.builder().title("Claimed first").build();
+        long keys = idempotencyRecordRepository.count();
+
+        assertThatThrownBy(() -> service.execute("test", key, request.creationFields(), Task.class, () -> {
+            throw new IllegalStateException("Write failed");
+        })).hasMessage("Write failed");
+        assertThat(idempotencyRecordRepository.count()).isEqualTo(keys);
+
+        IdempotencyService.Result<Task> created = service.execute("test", key, request.creationFields(), Task.class,
+                () -> {
+                    // The claim has committed and the write gets a transaction of its own
+                    assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+                    assertThat(idempotencyRecordRepository.count()).isEqualTo(keys + 1);
+                    return taskService.createTask(request);
+                });
+
+        assertThat(created.replayed()).isFalse();
+        assertThat(idempotencyRecordRepository.findAll()).extracting(IdempotencyRecord::getResponse)
+                .anySatisfy(response -> assertThat(response).contains("Claimed first"));
+    }
+
     @Test
     @DisplayName("Get all tasks")
     void getAllTasks() throws Exception {
@@ -134,6 +509,48 @@ class DevOpsDemoApplicationTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Get tasks by IDs keeps request order, reports missing ids and reads cached tasks first")
+    void getTasksByIds() throws Exception {
+        Task first = taskService.createTask(Task.builder().title("First").build());
+        Task second = taskService.createTask(Task.builder().title("Second").build());
+        Task third = taskService.createTask(Task.builder().title("Third").build());
+        taskService.getTaskById(second.getId());
+        double cached = meterRegistry.get("tasks.multiget.lookups").tag("source", "cache").counter().count();
+        double loaded = meterRegistry.get("tasks.multiget.lookups").tag("source", "database").counter().count();
+
+        mockMvc.perform(get("/api/v1/tasks").param("ids",
+                        third.getId() + ",9999," + first.getId() + "," + second.getId() + "," + first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[*].title", contains("Third", "First", "Second")))
+                .andExpect(jsonPath("$.missing", contains(9999)));
+
+        assertThat(meterRegistry.get("tasks.multiget.lookups").tag("source", "cache").counter().count() - cached)
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("tasks.multiget.lookups").tag("source", "database").counter().count() - loaded)
+                .isEqualTo(2);
+
+        mockMvc.perform(post("/api/v1/tasks/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(second.getId(), first.getId()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[*].title", contains("Second", "First")))
+                .andExpect(jsonPath("$.missing", empty()));
+    }
+
+    @Test
+    @DisplayName("Get tasks by IDs - empty or oversized id lists are rejected")
+    void getTasksByIdsInvalid() throws Exception {
+        List<Long> tooMany = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        mockMvc.perform(post("/api/v1/tasks/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tooMany)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/tasks").param("ids", ""))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Update a task")
     void updateTask() throws Exception {
@@ -171,6 +588,163 @@ class DevOpsDemoApplicationTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Claim hands out the highest-priority oldest pending tasks")
+    void claimTasks() throws Exception {
+        Task low = taskService.createTask(Task.builder().title("Low").priority(Task.TaskPriority.LOW).build());
+        taskService.createTask(Task.builder().title("High").priority(Task.TaskPriority.HIGH).build());
+        taskService.createTask(Task.builder().title("Critical").priority(Task.TaskPriority.CRITICAL).build());
+        taskService.createTask(Task.builder().title("Medium").priority(Task.TaskPriority.MEDIUM).build());
+
+        mockMvc.perform(post("/api/v1/tasks/claim").header("X-Worker-Id", "worker-1").param("batch", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", contains("Critical", "High")))
+                .andExpect(jsonPath("$[*].status", everyItem(is("IN_PROGRESS"))))
+                .andExpect(jsonPath("$[*].claimedBy", everyItem(is("worker-1"))))
+                .andExpect(jsonPath("$[0].leaseExpiresAt", notNullValue()));
+
+        mockMvc.perform(post("/api/v1/tasks/claim").header("X-Worker-Id", "worker-2")
+                        .param("priority", "LOW").param("batch", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(low.getId().intValue())));
+
+        mockMvc.perform(post("/api/v1/tasks/claim").param("batch", "1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/tasks/claim").header("X-Worker-Id", "worker-1").param("batch", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Concurrent workers never claim the same task")
+    void concurrentClaimsAreDisjoint() throws Exception {
+        int taskCount = 30;
+        for (int i = 0; i < taskCount; i++) {
+            taskService.createTask(Task.builder().title("Queued " + i).build());
+        }
+
+        int workers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        try {
+            for (int w = 0; w < workers; w++) {
+                String workerId = "worker-" + w;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<Long> ids = new ArrayList<>();
+                    List<Task> claimed;
+                    while (!(claimed = taskService.claimTasks(workerId, null, 3, Duration.ofMinutes(1))).isEmpty()) {
+                        claimed.forEach(task -> ids.add(task.getId()));
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            List<Long> all = new ArrayList<>();
+            for (Future<List<Long>> result : results) {
+                all.addAll(result.get(30, TimeUnit.SECONDS));
+            }
+            Set<Long> distinct = new HashSet<>(all);
+            assertThat(all).hasSize(taskCount);
+            assertThat(distinct).hasSize(taskCount);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(taskRepository.findByStatus(Task.TaskStatus.PENDING)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Heartbeats extend a claim; expired claims are re-queued and can no longer be extended")
+    void claimLeaseExpiry() throws Exception {
+        Task task = taskService.createTask(Task.builder().title("Leased").build());
+
+        Task claimed = taskService.claimTasks("worker-1", null, 1, Duration.ofMinutes(1)).get(0);
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/heartbeat")
+                        .header("X-Worker-Id", "worker-1").param("leaseSeconds", "600"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.claimedBy", is("worker-1")));
+        assertThat(taskRepository.findById(task.getId()).orElseThrow().getLeaseExpiresAt())
+                .isAfter(claimed.getLeaseExpiresAt());
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/heartbeat").header("X-Worker-Id", "worker-2"))
+                .andExpect(status().isConflict());
+
+        // Lease ran out: no longer extendable even before the reaper puts the task back in the queue
+        taskService.extendLease(task.getId(), "worker-1", Duration.ofSeconds(-1));
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/heartbeat").header("X-Worker-Id", "worker-1"))
+                .andExpect(status().isConflict());
+        assertThat(taskLeaseReaper.requeueExpired()).isEqualTo(1);
+        Task requeued = taskRepository.findById(task.getId()).orElseThrow();
+        assertThat(requeued.getStatus()).isEqualTo(Task.TaskStatus.PENDING);
+        assertThat(requeued.getClaimedBy()).isNull();
+        assertThat(requeued.getLeaseExpiresAt()).isNull();
+
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/heartbeat").header("X-Worker-Id", "worker-1"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/v1/tasks/9999/heartbeat").header("X-Worker-Id", "worker-1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("The lease reaper clears the task caches only when it re-queues something")
+    void leaseReaperKeepsCachesWhenIdle() {
+        Task task = taskService.createTask(Task.builder().title("Cached while leased").build());
+        taskService.claimTasks("worker-1", null, 1, Duration.ofMinutes(1));
+        Cache cache = cacheManager.getCache("task");
+        taskService.getTaskById(task.getId());
+
+        assertThat(taskLeaseReaper.requeueExpired()).isZero();
+        assertThat(cache.get(task.getId())).isNotNull();
+
+        taskService.extendLease(task.getId(), "worker-1", Duration.ofSeconds(-1));
+        taskService.getTaskById(task.getId());
+        assertThat(taskLeaseReaper.requeueExpired()).isEqualTo(1);
+        assertThat(cache.get(task.getId())).isNull();
+        assertThat(taskService.getTaskById(task.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.PENDING);
+    }
+
+    @Test
+    @DisplayName("Only the worker holding an unexpired lease can complete or release a claimed task")
+    void completeAndReleaseCheckLease() throws Exception {
+        Task task = taskService.createTask(Task.builder().title("Worked on").build());
+
+        taskService.claimTasks("worker-1", null, 1, Duration.ofMinutes(1));
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/complete").header("X-Worker-Id", "worker-2"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/release").header("X-Worker-Id", "worker-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("PENDING")))
+                .andExpect(jsonPath("$.claimedBy").doesNotExist());
+
+        taskService.claimTasks("worker-2", null, 1, Duration.ofMinutes(1));
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/complete").header("X-Worker-Id", "worker-2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.claimedBy").doesNotExist());
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/complete").header("X-Worker-Id", "worker-2"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/v1/tasks/9999/complete").header("X-Worker-Id", "worker-2"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("A claimed task cannot be completed once its lease has run out, before the reaper re-queues it")
+    void completeAfterLeaseExpiryFails() throws Exception {
+        Task task = taskService.createTask(Task.builder().title("Expired lease").build());
+        taskService.claimTasks("worker-1", null, 1, Duration.ofMinutes(1));
+        taskService.extendLease(task.getId(), "worker-1", Duration.ofSeconds(-1));
+
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/complete").header("X-Worker-Id", "worker-1"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/v1/tasks/" + task.getId() + "/release").header("X-Worker-Id", "worker-1"))
+                .andExpect(status().isConflict());
+        Task stillClaimed = taskRepository.findById(task.getId()).orElseThrow();
+        assertThat(stillClaimed.getStatus()).isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(stillClaimed.getClaimedBy()).isEqualTo("worker-1");
+    }
+
     @Test
     @DisplayName("Get tasks by status")
     void getTasksByStatus() throws Exception {
@@ -183,6 +757,152 @@ class DevOpsDemoApplicationTests {
                 .andExpect(jsonPath("$[0].title", is("Pending Task")));
     }
 
+    @Test
+    @DisplayName("Get tasks by status and priority")
+    void getTasksByStatusAndPriority() throws Exception {
+        taskService.createTask(Task.builder().title("Urgent").status(Task.TaskStatus.PENDING)
+                .priority(Task.TaskPriority.CRITICAL).build());
+        taskService.createTask(Task.builder().title("Later").status(Task.TaskStatus.PENDING)
+                .priority(Task.TaskPriority.LOW).build());
+        Task moved = taskService.createTask(Task.builder().title("Moved").status(Task.TaskStatus.PENDING)
+                .priority(Task.TaskPriority.CRITICAL).build());
+        taskService.updateTask(moved.getId(), Task.builder().title("Moved")
+                .status(Task.TaskStatus.IN_PROGRESS).priority(Task.TaskPriority.CRITICAL).build());
+
+        assertThat(taskIndex.isReady()).isTrue();
+        mockMvc.perform(get("/api/v1/tasks/status/PENDING").param("priority", "CRITICAL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("Urgent")));
+        assertThat(taskIndex.count(Task.TaskStatus.IN_PROGRESS, Task.TaskPriority.CRITICAL)).isEqualTo(1);
+        assertThat(taskIndex.count(null, null)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Task changes committed while the index is loading survive the rebuild")
+    void indexKeepsChangesMadeDuringRebuild() {
+        Task updated = taskRepository.save(Task.builder().title("Updated meanwhile").build());
+        Task deleted = taskRepository.save(Task.builder().title("Deleted meanwhile").build());
+        Task created = Task.builder().title("Created meanwhile")
+                .status(Task.TaskStatus.IN_PROGRESS).priority(Task.TaskPriority.HIGH).build();
+        AtomicReference<TaskIndex> index = new AtomicReference<>();
+        // Commits land after findAll() has read the table, as they would from concurrent requests
+        TaskRepository repository = (TaskRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TaskRepository.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(taskRepository, args);
+                    if (method.getName().equals("findAll") && args == null) {
+                        Task previous = updated.copy();
+                        updated.setStatus(Task.TaskStatus.COMPLETED);
+                        index.get().onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, updated, previous));
+                        index.get().onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.DELETED, deleted, null));
+                        created.setId(-1L);
+                        index.get().onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, created, null));
+                    }
+                    return result;
+                });
+        index.set(new TaskIndex(repository, shards, true, Duration.ofSeconds(30), new SimpleMeterRegistry()));
+
+        index.get().rebuild();
+
+        assertThat(index.get().find(Task.TaskStatus.COMPLETED, null)).extracting(Task::getId)
+                .containsExactly(updated.getId());
+        assertThat(index.get().find(Task.TaskStatus.PENDING, null)).isEmpty();
+        assertThat(index.get().find(null, Task.TaskPriority.HIGH)).extracting(Task::getTitle)
+                .containsExactly("Created meanwhile");
+        assertThat(index.get().count(null, null)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("The index refresh picks up writes made by other instances")
+    void indexRefreshPicksUpOtherInstances() {
+        taskService.createTask(Task.builder().title("Written here").build());
+        // Straight to the repository, as another instance would: no event reaches this index
+        Task elsewhere = taskRepository.save(Task.builder().title("Written elsewhere")
+                .status(Task.TaskStatus.IN_PROGRESS).build());
+
+        taskIndex.refresh();
+        assertThat(taskIndex.count(Task.TaskStatus.IN_PROGRESS, null)).isEqualTo(1);
+        assertThat(taskIndex.count(null, null)).isEqualTo(2);
+
+        elsewhere.setStatus(Task.TaskStatus.CANCELLED);
+        taskRepository.save(elsewhere);
+        taskIndex.refresh();
+        assertThat(taskIndex.count(Task.TaskStatus.IN_PROGRESS, null)).isZero();
+        assertThat(taskIndex.count(Task.TaskStatus.CANCELLED, null)).isEqualTo(1);
+
+        // Deletions are not among the changes; the row count tells the refresh to rebuild
+        taskRepository.deleteById(elsewhere.getId());
+        taskIndex.refresh();
+        assertThat(taskIndex.count(null, null)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Analytics count created and completed tasks and their lead time")
+    void getTaskAnalytics() throws Exception {
+        taskService.createTask(Task.builder().title("Open").priority(Task.TaskPriority.HIGH).build());
+        Task done = taskService.createTask(Task.builder().title("Done").priority(Task.TaskPriority.HIGH).build());
+        taskService.updateTask(done.getId(), Task.builder().title("Done")
+                .status(Task.TaskStatus.COMPLETED).priority(Task.TaskPriority.HIGH).build());
+
+        mockMvc.perform(get("/api/v1/tasks/analytics").param("granularity", "DAY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity", is("DAY")))
+                .andExpect(jsonPath("$.leadTime.HIGH.count", is(1)))
+                .andExpect(jsonPath("$.leadTime.LOW.count", is(0)));
+
+        TaskAnalytics analytics = taskAnalyticsService.getAnalytics(LocalDateTime.now().minusHours(1),
+                LocalDateTime.now().plusHours(1), TaskAnalytics.Granularity.HOUR);
+        assertThat(analytics.buckets().stream().mapToLong(TaskAnalytics.Bucket::created).sum()).isEqualTo(2);
+        assertThat(analytics.buckets().stream().mapToLong(TaskAnalytics.Bucket::completed).sum()).isEqualTo(1);
+
+        taskService.deleteTask(done.getId());
+        analytics = taskAnalyticsService.getAnalytics(LocalDateTime.now().minusHours(1),
+                LocalDateTime.now().plusHours(1), TaskAnalytics.Granularity.HOUR);
+        assertThat(analytics.buckets().stream().mapToLong(TaskAnalytics.Bucket::created).sum()).isEqualTo(1);
+        assertThat(analytics.buckets().stream().mapToLong(TaskAnalytics.Bucket::completed).sum()).isZero();
+    }
+
+    @Test
+    @DisplayName("Analytics reject an empty range")
+    void getTaskAnalyticsInvalidRange() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/analytics")
+                        .param("from", "2024-01-02T00:00:00")
+                        .param("to", "2024-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Old finished tasks are archived and readable with includeArchived")
+    void archiveFinishedTasks() throws Exception {
+        Task old = Task.builder().title("Old cancelled").status(Task.TaskStatus.CANCELLED).build();
+        old.setCreatedAt(LocalDateTime.now().minusDays(90));
+        old = taskService.createTask(old);
+        Task recent = taskService.createTask(Task.builder().title("Recent cancelled")
+                .status(Task.TaskStatus.CANCELLED).build());
+        taskService.createTask(Task.builder().title("Old but open").build());
+
+        assertThat(taskArchiveService.archiveFinishedTasks()).isEqualTo(1);
+        assertThat(taskRepository.existsById(old.getId())).isFalse();
+        assertThat(taskRepository.existsById(recent.getId())).isTrue();
+
+        mockMvc.perform(get("/api/v1/tasks/" + old.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/tasks/" + old.getId()).param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("Old cancelled")))
+                .andExpect(jsonPath("$.archivedAt", notNullValue()));
+        mockMvc.perform(get("/api/v1/tasks"))
+                .andExpect(jsonPath("$", hasSize(2)));
+        mockMvc.perform(get("/api/v1/tasks").param("includeArchived", "true"))
+                .andExpect(jsonPath("$", hasSize(3)));
+        // Newest first, as without includeArchived
+        mockMvc.perform(get("/api/v1/tasks/status/CANCELLED").param("includeArchived", "true"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].title", is("Recent cancelled")))
+                .andExpect(jsonPath("$[1].title", is("Old cancelled")));
+        assertThat(taskIndex.count(Task.TaskStatus.CANCELLED, null)).isEqualTo(1);
+    }
+
     @Test
     @DisplayName("Get task statistics")
     void getTaskStatistics() throws Exception {
@@ -198,6 +918,302 @@ class DevOpsDemoApplicationTests {
                 .andExpect(jsonPath("$.inProgress", is(1)));
     }
 
+    @Test
+    @DisplayName("Write-behind coalesces updates to the same task into one flush")
+    void writeBehindCoalescesUpdates() {
+        Task created = taskService.createTask(Task.builder().title("Board Card").build());
+        double coalescedBefore = meterRegistry.get("tasks.write_behind.coalesced").counter().count();
+        double flushedBefore = meterRegistry.get("tasks.write_behind.flushed").counter().count();
+
+        writeBehind.submit(TaskPatch.builder().id(created.getId()).description("Moved").build());
+        Task merged = writeBehind.submit(TaskPatch.builder().id(created.getId())
+                        .status(Task.TaskStatus.IN_PROGRESS)
+                        .priority(Task.TaskPriority.HIGH)
+                        .build())
+                .orElseThrow();
+
+        assertThat(merged.getTitle()).isEqualTo("Board Card");
+        assertThat(merged.getDescription()).isEqualTo("Moved");
+        assertThat(merged.getStatus()).isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(merged.getPriority()).isEqualTo(Task.TaskPriority.HIGH);
+
+        writeBehind.flush();
+
+        // Two updates, one row written
+        assertThat(meterRegistry.get("tasks.write_behind.coalesced").counter().count())
+                .isEqualTo(coalescedBefore + 1);
+        assertThat(meterRegistry.get("tasks.write_behind.flushed").counter().count())
+                .isEqualTo(flushedBefore + 1);
+        Task stored = taskRepository.findById(created.getId()).orElseThrow();
+        assertThat(stored.getDescription()).isEqualTo("Moved");
+        assertThat(stored.getStatus()).isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(stored.getPriority()).isEqualTo(Task.TaskPriority.HIGH);
+        assertThat(writeBehind.submit(TaskPatch.builder().id(-1L).title("Missing").build())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A write-behind flush keeps writes made to other fields after the update was buffered")
+    void writeBehindKeepsInterveningWrites() {
+        Task created = taskService.createTask(Task.builder().title("Buffered").build());
+
+        writeBehind.submit(TaskPatch.builder().id(created.getId()).title("Buffered rename").build());
+        taskService.patchTask(TaskPatch.builder()
+                .id(created.getId())
+                .status(Task.TaskStatus.IN_PROGRESS)
+                .priority(Task.TaskPriority.CRITICAL)
+                .build());
+        writeBehind.flush();
+
+        Task stored = taskRepository.findById(created.getId()).orElseThrow();
+        assertThat(stored.getTitle()).isEqualTo("Buffered rename");
+        assertThat(stored.getStatus()).isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(stored.getPriority()).isEqualTo(Task.TaskPriority.CRITICAL);
+    }
+
+    @Test
+    @DisplayName("A partial update through write-behind or STOMP keeps the fields it leaves out")
+    void partialUpdateKeepsOtherFields() {
+        Task created = taskService.createTask(Task.builder()
+                .title("Partial")
+                .description("Unchanged")
+                .status(Task.TaskStatus.IN_PROGRESS)
+                .priority(Task.TaskPriority.HIGH)
+                .build());
+
+        Task merged = writeBehind.submit(TaskPatch.builder().id(created.getId()).title("Renamed").build())
+                .orElseThrow();
+        writeBehind.flush();
+
+        assertThat(merged.getStatus()).isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(merged.getPriority()).isEqualTo(Task.TaskPriority.HIGH);
+        Task stored = taskRepository.findById(created.getId()).orElseThrow();
+        assertThat(stored.getTitle()).isEqualTo("Renamed");
+        assertThat(stored.getDescription()).isEqualTo("Unchanged");
+        assertThat(stored.getStatus()).isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(stored.getPriority()).isEqualTo(Task.TaskPriority.HIGH);
+
+        Task patched = taskService.patchTask(TaskPatch.builder()
+                        .id(created.getId())
+                        .status(Task.TaskStatus.COMPLETED)
+                        .build())
+                .orElseThrow();
+        assertThat(patched.getTitle()).isEqualTo("Renamed");
+        assertThat(patched.getPriority()).isEqualTo(Task.TaskPriority.HIGH);
+        assertThat(patched.getStatus()).isEqualTo(Task.TaskStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("Task snapshot round-trips through a mapped file and rejects corruption")
+    void taskSnapshotRoundTrip(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("tasks.snapshot");
+        Task first = taskService.createTask(Task.builder().title("Snapshot \u00e9").description("Kept").build());
+        Task second = taskService.createTask(Task.builder().title("Done").status(Task.TaskStatus.COMPLETED).build());
+        Task third = taskService.createTask(Task.builder().title("Claimed").build());
+        LocalDateTime lease = LocalDateTime.of(2030, 1, 2, 3, 4, 5);
+        third.claim("worker-\u00e9", lease);
+
+        TaskSnapshot.write(file, List.of(third, second, first));
+        TaskSnapshot snapshot = TaskSnapshot.open(file);
+
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThat(snapshot.findAll()).extracting(Task::getId)
+                .containsExactly(third.getId(), second.getId(), first.getId());
+        Task restored = snapshot.findById(first.getId()).orElseThrow();
+        assertThat(restored.getTitle()).isEqualTo("Snapshot \u00e9");
+        assertThat(restored.getDescription()).isEqualTo("Kept");
+        assertThat(restored.getStatus()).isEqualTo(Task.TaskStatus.PENDING);
+        assertThat(restored.getClaimedBy()).isNull();
+        assertThat(restored.getLeaseExpiresAt()).isNull();
+        Task restoredClaim = snapshot.findById(third.getId()).orElseThrow();
+        assertThat(restoredClaim.getStatus()).isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(restoredClaim.getClaimedBy()).isEqualTo("worker-\u00e9");
+        assertThat(restoredClaim.getLeaseExpiresAt()).isEqualTo(lease);
+        assertThat(snapshot.findById(second.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.COMPLETED);
+        assertThat(snapshot.findById(-1L)).isEmpty();
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(file, bytes);
+        assertThatThrownBy(() -> TaskSnapshot.open(file))
+                .isInstanceOf(TaskSnapshot.InvalidSnapshotException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    @DisplayName("Export streams all tasks as CSV and NDJSON")
+    void exportTasks() throws Exception {
+        taskService.createTask(Task.builder().title("Export, one").build());
+        taskService.createTask(Task.builder().title("Export two").description("Quoted \"text\"").build());
+
+        MvcResult csv = mockMvc.perform(get("/api/v1/tasks/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith("text/csv")))
+                .andExpect(content().string(startsWith("id,title,description,status,priority")))
+                .andExpect(content().string(containsString("\"Export, one\"")))
+                .andExpect(content().string(containsString("\"Quoted \"\"text\"\"\"")));
+
+        MvcResult ndjson = mockMvc.perform(get("/api/v1/tasks/export").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.lines()).hasSize(2).allMatch(line -> line.startsWith("{\"id\":"));
+    }
+
+    @Test
+    @DisplayName("Export is not gzip-compressed when the client refuses gzip with q=0")
+    void exportHonoursRefusedGzip() throws Exception {
+        taskService.createTask(Task.builder().title("Export plain").build());
+
+        MvcResult csv = mockMvc.perform(get("/api/v1/tasks/export").param("format", "csv")
+                        .header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string(containsString("Export plain")));
+    }
+
+    @Test
+    @DisplayName("Export rejects unsupported formats")
+    void exportUnsupportedFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/export").param("format", "parquet"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ==================== Connection Pool Tests ====================
+
+    @Test
+    @DisplayName("Connection timings are recorded per repository method")
+    void connectionMetricsPerRepositoryMethod() {
+        taskService.createTask(Task.builder().title("Pooled").build());
+
+        Timer usage = meterRegistry.find("db.connection.usage").tag("method", "TaskRepository.save").timer();
+        assertThat(usage).isNotNull();
+        assertThat(usage.count()).isPositive();
+        assertThat(meterRegistry.find("db.connection.acquire").tag("method", "TaskRepository.save").timer()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.pending").gauge()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Pool grows while callers queue and backs off when the database slows down")
+    void adaptivePoolSize() {
+        AdaptivePoolSize pool = new AdaptivePoolSize(10, 5, 20, 5_000_000, 1.5);
+
+        // Waiting callers while hold times stay at the baseline: grow by a quarter
+        assertThat(pool.update(20_000_000, 3, 1_000_000, 10)).isEqualTo(12);
+        // Still waiting, but connections are held five times longer: the database is saturated
+        assertThat(pool.update(20_000_000, 3, 5_000_000, 12)).isEqualTo(11);
+
+        for (int i = 0; i < 20; i++) {
+            pool.update(0, 0, 1_000_000, 1);
+        }
+        assertThat(pool.getSize()).isEqualTo(5);
+
+        for (int i = 0; i < 20; i++) {
+            pool.update(20_000_000, 5, 1_000_000, pool.getSize());
+        }
+        assertThat(pool.getSize()).isEqualTo(20);
+    }
+
+    // ==================== Cache Tests ====================
+
+    @Test
+    @DisplayName("Concurrent misses for one key share a single load")
+    void cacheMissesAreCoalesced() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlightCache cache = new SingleFlightCache("test", false, Duration.ZERO, Runnable::run, registry);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 16;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get("key", () -> {
+                    calls.incrementAndGet();
+                    release.await();
+                    return "value";
+                })));
+            }
+            // Hold the load until every other caller is waiting on it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (registry.get("cache.singleflight.coalesced").counter().count() < threads - 1
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(registry.get("cache.singleflight.loads").counter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.singleflight.coalesced").counter().count()).isEqualTo(threads - 1);
+    }
+
+    @Test
+    @DisplayName("Evicted entries are served stale while they reload, and loads racing an eviction are not cached")
+    void cacheStaleWhileRevalidate() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlightCache cache = new SingleFlightCache("test", true, Duration.ofMinutes(1), Runnable::run, registry);
+
+        assertThat(cache.get("key", () -> "v1")).isEqualTo("v1");
+        cache.evict("key");
+        assertThat(cache.get("key", () -> "v2")).isEqualTo("v1");
+        assertThat(cache.get("key", () -> "v3")).isEqualTo("v2");
+        assertThat(registry.get("cache.stale.served").counter().count()).isEqualTo(1);
+
+        SingleFlightCache strict = new SingleFlightCache("strict", false, Duration.ZERO, Runnable::run, registry);
+        assertThat(strict.get("key", () -> {
+            strict.evict("key");
+            return "before write";
+        })).isEqualTo("before write");
+        assertThat(strict.get("key")).isNull();
+    }
+
+    @Test
+    @DisplayName("Concurrent getTaskById misses run one query")
+    void getTaskByIdSingleFlight() throws Exception {
+        Task task = taskService.createTask(Task.builder().title("Hot").build());
+        Cache cache = cacheManager.getCache("task");
+        assertThat(cache).isInstanceOf(SingleFlightCache.class);
+        cache.clear();
+        double loadsBefore = meterRegistry.get("cache.singleflight.loads").tag("cache", "task").counter().count();
+
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Optional<Task>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return taskService.getTaskById(task.getId());
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<Task>> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).hasValueSatisfying(
+                        found -> assertThat(found.getTitle()).isEqualTo("Hot"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double loads = meterRegistry.get("cache.singleflight.loads").tag("cache", "task").counter().count();
+        assertThat(loads - loadsBefore).isEqualTo(1);
+    }
+
     // ==================== Validation Tests ====================
 
     @Test
@@ -235,13 +1251,228 @@ class DevOpsDemoApplicationTests {
                 .andExpect(jsonPath("$.uptimeSeconds", notNullValue()));
     }
 
+    @Test
+    @DisplayName("System metrics include GC, allocation and thread CPU data from the JFR stream")
+    void jvmEventMetrics() throws Exception {
+        System.gc();
+        // Events reach the stream when JFR flushes, about once a second
+        for (int i = 0; i < 50 && meterRegistry.find("jvm.jfr.gc.pause").timer() == null; i++) {
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+        assertThat(meterRegistry.find("jvm.jfr.gc.pause").timer()).isNotNull();
+        assertThat(meterRegistry.find("jvm.jfr.allocated").functionCounter()).isNotNull();
+        assertThat(meterRegistry.find("jvm.jfr.safepoint.sync").timer()).isNotNull();
+
+        mockMvc.perform(get("/api/v1/metrics/system"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jvmEvents.gcPauses", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.jvmEvents.gcPauseHistogram", aMapWithSize(7)))
+                .andExpect(jsonPath("$.jvmEvents.allocationRateMbPerSec", notNullValue()))
+                .andExpect(jsonPath("$.jvmEvents.promotionRateMbPerSec", notNullValue()))
+                .andExpect(jsonPath("$.jvmEvents.monitorContentions", notNullValue()))
+                .andExpect(jsonPath("$.jvmEvents.topThreads", notNullValue()));
+    }
+
     @Test
     @DisplayName("Simulate CPU load")
     void simulateLoad() throws Exception {
-        mockMvc.perform(get("/api/v1/simulate/load"))
+        mockMvc.perform(get("/api/v1/simulate/load")
+                        .param("cpuPercent", "10")
+                        .param("durationSeconds", "1"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id", notNullValue()))
+                .andExpect(jsonPath("$.status", is("RUNNING")))
+                .andExpect(jsonPath("$.request.targetCpuPercent", is(10)));
+    }
+
+    @Test
+    @DisplayName("Cancel a running load simulation")
+    void cancelLoadSimulation() throws Exception {
+        String body = mockMvc.perform(post("/api/v1/simulate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetCpuPercent\":5,\"cores\":1,\"durationSeconds\":30,\"allocationRateMb\":1,\"liveSetMb\":1}"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(body).get("id").asText();
+
+        mockMvc.perform(delete("/api/v1/simulate/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("CANCELLED")));
+    }
+
+    @Test
+    @DisplayName("Invalid simulation parameters are rejected")
+    void simulateLoadInvalidParameters() throws Exception {
+        mockMvc.perform(get("/api/v1/simulate/load").param("cpuPercent", "150"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Allocation rates below one chunk per slice are not rounded up")
+    void slowAllocationRateIsHonoured() throws Exception {
+        LoadSimulation simulation = loadSimulationService.start(LoadSimulationRequest.builder()
+                .targetCpuPercent(0)
+                .allocationRateMb(1)
+                .durationSeconds(2)
+                .build()).orElseThrow();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (simulation.isActive() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        // Rounding every 10 ms slice up to a 64 KB chunk used to churn about 12 MB here
+        assertThat(simulation.getAllocatedMb()).isBetween(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Concurrent starts never run more than max-concurrent simulations")
+    void concurrentStartsRespectLimit() throws Exception {
+        loadSimulationService.getSimulations().forEach(simulation -> loadSimulationService.cancel(simulation.getId()));
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<Optional<LoadSimulation>>> starts = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                starts.add(executor.submit(() -> {
+                    go.await();
+                    return loadSimulationService.start(LoadSimulationRequest.builder()
+                            .targetCpuPercent(0)
+                            .durationSeconds(30)
+                            .build());
+                }));
+            }
+            go.countDown();
+            int accepted = 0;
+            for (Future<Optional<LoadSimulation>> start : starts) {
+                accepted += start.get().isPresent() ? 1 : 0;
+            }
+            assertThat(accepted).isEqualTo(4);
+        } finally {
+            executor.shutdownNow();
+            loadSimulationService.getSimulations().forEach(simulation -> loadSimulationService.cancel(simulation.getId()));
+        }
+    }
+
+    @Test
+    @DisplayName("A live set larger than half the heap is rejected")
+    void oversizedLiveSetIsRejected() throws Exception {
+        long maxLiveSetMb = loadSimulationService.getMaxLiveSetMb();
+        assumeTrue(maxLiveSetMb < 8192, "heap too large for the request limit to be reached");
+
+        mockMvc.perform(get("/api/v1/simulate/memory")
+                        .param("liveSetMb", String.valueOf(maxLiveSetMb + 1))
+                        .param("durationSeconds", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Record a JFR profile, summarize it and download the .jfr file")
+    void profileWithJfr(@TempDir Path dir) throws Exception {
+        String body = mockMvc.perform(post("/actuator/profiling")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("settings", "PROFILE")
+                        .param("durationSeconds", "30"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status", is("RUNNING")))
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(body).get("id").asText();
+
+        // One recording at a time
+        mockMvc.perform(post("/actuator/profiling").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/actuator/profiling/" + id + "/recording"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/actuator/profiling/" + id + "/stop").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        String status = "RUNNING";
+        for (int i = 0; i < 100 && (status.equals("RUNNING") || status.equals("SUMMARIZING")); i++) {
+            TimeUnit.MILLISECONDS.sleep(200);
+            status = objectMapper.readTree(mockMvc.perform(get("/actuator/profiling/" + id))
+                    .andReturn().getResponse().getContentAsString()).get("status").asText();
+        }
+        assertThat(status).isEqualTo("COMPLETED");
+
+        mockMvc.perform(get("/actuator/profiling/" + id))
+                .andExpect(jsonPath("$.recordingBytes", greaterThan(0)))
+                .andExpect(jsonPath("$.summary.topCpuMethods", notNullValue()))
+                .andExpect(jsonPath("$.summary.topAllocationSites", notNullValue()))
+                .andExpect(jsonPath("$.summary.lockContention", notNullValue()))
+                .andExpect(jsonPath("$.summary.gcPauses", notNullValue()));
+
+        byte[] recording = mockMvc.perform(get("/actuator/profiling/" + id + "/recording"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message", is("Load simulation completed")))
-                .andExpect(jsonPath("$.durationMs", notNullValue()));
+                .andReturn().getResponse().getContentAsByteArray();
+        // JFR chunk magic
+        assertThat(new String(recording, 0, 3)).isEqualTo("FLR");
+
+        // Environment variables and system properties stay out of downloadable recordings
+        Path file = Files.write(dir.resolve("profile.jfr"), recording);
+        assertThat(RecordingFile.readAllEvents(file)).extracting(event -> event.getEventType().getName())
+                .isNotEmpty()
+                .doesNotContain("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty");
+    }
+
+    @Test
+    @DisplayName("Unknown JFR settings are rejected")
+    void profileWithUnknownSettings() throws Exception {
+        mockMvc.perform(post("/actuator/profiling")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("settings", "everything"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Profiling is only reachable through the actuator")
+    void profilingNotOnApi() throws Exception {
+        mockMvc.perform(post("/api/v1/profiling"))
+                .andExpect(status().isNotFound());
+    }
+
+    // ==================== Compression Tests ====================
+
+    @Test
+    @DisplayName("Large task list is gzip-compressed")
+    void largeResponseIsCompressed() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            taskService.createTask(Task.builder()
+                    .title("Compressible task " + i)
+                    .description("Repeated description to push the payload over the threshold")
+                    .build());
+        }
+
+        MvcResult result = mockMvc.perform(get("/api/v1/tasks").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().doesNotExist("Content-Length"))
+                .andReturn();
+
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))
+                .readAllBytes();
+        assertThat(objectMapper.readTree(body)).hasSize(40);
+    }
+
+    @Test
+    @DisplayName("Responses below the size threshold are sent uncompressed with their length")
+    void smallResponseIsNotCompressed() throws Exception {
+        Task task = taskService.createTask(Task.builder().title("Small task").build());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/tasks/" + task.getId()).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$.title", is("Small task")))
+                .andReturn();
+        assertThat(result.getResponse().getContentLength())
+                .isEqualTo(result.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Probe responses are never compressed")
+    void probeResponseIsNotCompressed() throws Exception {
+        mockMvc.perform(get("/api/v1/health/live").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$.status", is("UP")));
     }
 
     // ==================== API Documentation Tests ====================
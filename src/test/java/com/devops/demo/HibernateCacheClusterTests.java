@@ -0,0 +1,112 @@
+package com.devops.demo;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.repository.TaskRepository;
+import com.devops.demo.service.TaskService;
+import com.hazelcast.core.HazelcastInstance;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts two application instances against one shared database and checks that a write on one
+ * node invalidates the Hibernate entity and query cache entries the other node relies on.
+ */
+class HibernateCacheClusterTests {
+
+    private static final String DATABASE = "jdbc:h2:mem:cache-cluster;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    private static ConfigurableApplicationContext node1;
+    private static ConfigurableApplicationContext node2;
+
+    @BeforeAll
+    static void startCluster() {
+        node1 = startNode("create-drop");
+        // The second node reuses the schema created by the first
+        node2 = startNode("none");
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        if (node2 != null) {
+            node2.close();
+        }
+        if (node1 != null) {
+            node1.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String ddlAuto) {
+        return new SpringApplicationBuilder(DevOpsDemoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + DATABASE,
+                        "spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "app.cache.hibernate.cluster-name=cache-cluster-test",
+                        "app.cache.hibernate.port=5801",
+                        "app.cache.hibernate.members=127.0.0.1:5801,127.0.0.1:5802")
+                .run();
+    }
+
+    @Test
+    @DisplayName("Both nodes join the same cache cluster")
+    void nodesFormCluster() {
+        assertThat(node1.getBean(HazelcastInstance.class).getCluster().getMembers()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("An update on one node invalidates cached entities and queries on the other")
+    void crossNodeInvalidation() {
+        TaskRepository repository1 = node1.getBean(TaskRepository.class);
+        TaskRepository repository2 = node2.getBean(TaskRepository.class);
+
+        Task created = repository1.save(Task.builder().title("Shared").status(Task.TaskStatus.PENDING).build());
+
+        // Node 2 populates the shared entity and query regions
+        assertThat(repository2.findById(created.getId())).isPresent();
+        assertThat(repository2.findByStatus(Task.TaskStatus.PENDING)).extracting(Task::getId).contains(created.getId());
+
+        // Node 1 is served from the region node 2 filled
+        Statistics stats1 = statistics(node1);
+        long hitsBefore = stats1.getSecondLevelCacheHitCount();
+        assertThat(repository1.findById(created.getId())).isPresent();
+        assertThat(stats1.getSecondLevelCacheHitCount()).isGreaterThan(hitsBefore);
+
+        // Update through node 1, then read through node 2
+        Task update = Task.builder().title("Shared").status(Task.TaskStatus.COMPLETED).build();
+        node1.getBean(TaskService.class).updateTask(created.getId(), update);
+
+        assertThat(repository2.findById(created.getId()))
+                .get()
+                .extracting(Task::getStatus)
+                .isEqualTo(Task.TaskStatus.COMPLETED);
+        assertThat(repository2.findByStatus(Task.TaskStatus.PENDING)).extracting(Task::getId)
+                .doesNotContain(created.getId());
+        assertThat(repository2.findByStatus(Task.TaskStatus.COMPLETED)).extracting(Task::getId)
+                .contains(created.getId());
+    }
+
+    @Test
+    @DisplayName("Region statistics are exported to Micrometer")
+    void regionStatisticsExported() {
+        MeterRegistry registry = node1.getBean(MeterRegistry.class);
+        node1.getBean(TaskRepository.class).findByStatus(Task.TaskStatus.IN_PROGRESS);
+
+        assertThat(registry.find("hibernate.second.level.cache.requests").tag("region", "task").meters())
+                .isNotEmpty();
+        assertThat(registry.find("hibernate.cache.query.requests").meters()).isNotEmpty();
+    }
+
+    private static Statistics statistics(ConfigurableApplicationContext context) {
+        return context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+}
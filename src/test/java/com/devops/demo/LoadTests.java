@@ -0,0 +1,93 @@
+package com.devops.demo;
+
+import com.devops.demo.load.LatencyStats;
+import com.devops.demo.load.LoadProfile;
+import com.devops.demo.load.LoadReport;
+import com.devops.demo.load.RestScenario;
+import com.devops.demo.load.StompScenario;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives mixed task CRUD, statistics polling and STOMP subscribers against the embedded application
+ * (or {@code -Dload.base-url}) and writes throughput and latency percentiles to
+ * {@code target/load-test/report.json} and {@code report.html}. See {@link LoadProfile} for the knobs.
+ * Excluded from the default build; run with {@code ./mvnw test -Pload}.
+ */
+@Tag("load")
+// Every virtual user comes from one address, so they share a client bucket sized for all of them
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.admission.client-rate=800",
+        "app.admission.client-burst=1600"
+})
+class LoadTests {
+
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/load-test"));
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @DisplayName("Mixed REST and STOMP load runs without errors and every subscriber gets every broadcast")
+    void mixedLoad() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        String target = profile.baseUrl() != null ? profile.baseUrl() : "http://localhost:" + port;
+        LatencyStats stats = new LatencyStats();
+        Instant startedAt = Instant.now();
+
+        StompScenario.Result stompResult;
+        try (StompScenario stomp = new StompScenario(profile, target, stats)) {
+            stomp.connect();
+
+            long start = System.nanoTime();
+            long measureFrom = start + profile.warmup().toNanos();
+            long deadline = measureFrom + profile.duration().toNanos();
+            stats.measureBetween(measureFrom, deadline);
+
+            CompletableFuture<StompScenario.Result> publishing = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return stomp.run(start, deadline);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            });
+            new RestScenario(profile, target, stats).run(start, deadline);
+            stompResult = publishing.get();
+        }
+
+        Map<String, LatencyStats.Summary> operations = stats.summarize(profile.duration());
+        new LoadReport(startedAt, target, profile, operations, stompResult).write(REPORT_DIR);
+        operations.forEach(LoadTests::print);
+        System.out.printf("%-12s %d sessions, %d/%d task broadcasts delivered, %d metrics broadcasts%n",
+                "stomp", stompResult.connected(), stompResult.tasksDelivered(), stompResult.tasksExpected(),
+                stompResult.metricsDelivered());
+        System.out.println("Report written to " + REPORT_DIR.toAbsolutePath());
+
+        assertThat(operations).containsKeys("create", "get", "update", "list", "delete", "statistics",
+                "stomp.connect", "stomp.tasks");
+        assertThat(operations.values()).allSatisfy(summary -> assertThat(summary.errors()).isZero());
+        assertThat(stompResult.failed()).isZero();
+        assertThat(stompResult.metricsDelivered()).isPositive();
+        // Creations turned away by admission control are not broadcast
+        assertThat(stompResult.tasksDelivered())
+                .isGreaterThanOrEqualTo((stompResult.published() - stompResult.rejected()) * stompResult.connected());
+    }
+
+    private static void print(String operation, LatencyStats.Summary s) {
+        System.out.printf("%-12s %8d ok %6d rejected %4d errors %8.1f/s   p50 %8.2f ms   p99 %8.2f ms   "
+                        + "p99.9 %8.2f ms   max %8.2f ms%n",
+                operation, s.count(), s.rejected(), s.errors(), s.throughput(), s.p50Ms(), s.p99Ms(), s.p999Ms(),
+                s.maxMs());
+    }
+}
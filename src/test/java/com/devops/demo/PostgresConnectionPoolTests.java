@@ -0,0 +1,100 @@
+package com.devops.demo;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.pool.ConnectionPoolSizer;
+import com.devops.demo.service.TaskService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the pool instrumentation and auto-sizer against PostgreSQL, the production database, in a
+ * throwaway container (same image as docker-compose). Needs Docker, so it is excluded from the
+ * default build; run with {@code ./mvnw test -Ppostgres}.
+ */
+@Tag("postgres")
+@Testcontainers
+@SpringBootTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        // Driven by the test instead of the schedule
+        "app.pool.auto-size.interval=PT1H"
+})
+class PostgresConnectionPoolTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ConnectionPoolSizer poolSizer;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Pool grows while transactions queue for connections")
+    void poolGrowsUnderQueueing() throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        int initialSize = hikari.getMaximumPoolSize();
+        poolSizer.adjust();
+
+        ExecutorService executor = Executors.newFixedThreadPool(initialSize * 4);
+        try {
+            List<Future<?>> transactions = new ArrayList<>();
+            for (int i = 0; i < initialSize * 20; i++) {
+                transactions.add(executor.submit(() -> transactionTemplate.executeWithoutResult(
+                        status -> jdbcTemplate.execute("SELECT pg_sleep(0.02)"))));
+            }
+            for (Future<?> transaction : transactions) {
+                transaction.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        poolSizer.adjust();
+
+        assertThat(hikari.getMaximumPoolSize()).isGreaterThan(initialSize);
+        assertThat(meterRegistry.find("db.pool.resize").tag("direction", "grow").counter().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Connection timings are attributed to repository methods")
+    void connectionMetricsPerRepositoryMethod() {
+        taskService.createTask(Task.builder().title("On PostgreSQL").build());
+
+        assertThat(meterRegistry.find("db.connection.usage").tag("method", "TaskRepository.save").timer())
+                .isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer().count()).isPositive();
+    }
+}
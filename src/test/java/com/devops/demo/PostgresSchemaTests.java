@@ -0,0 +1,55 @@
+package com.devops.demo;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.service.TaskService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies the shipped {@code db/postgresql/schema.sql} to PostgreSQL and has Hibernate validate the mapping
+ * against it, as the production profile does. Needs Docker; run with {@code ./mvnw test -Ppostgres}.
+ */
+@Tag("postgres")
+@Testcontainers
+@SpringBootTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/postgresql/schema.sql"
+})
+class PostgresSchemaTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("The shipped schema passes validation and holds claimed tasks")
+    void shippedSchemaMatchesMapping() {
+        Task task = taskService.createTask(Task.builder().title("On the shipped schema").build());
+
+        assertThat(taskService.claimTasks("worker-1", null, 1, Duration.ofMinutes(1)))
+                .extracting(Task::getId)
+                .containsExactly(task.getId());
+        assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE tablename = 'tasks'", String.class))
+                .contains("idx_tasks_claim", "idx_tasks_lease");
+    }
+}
@@ -0,0 +1,87 @@
+package com.devops.demo;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.repository.TaskRepository;
+import com.devops.demo.service.TaskService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the task claim queue against PostgreSQL, where claims lock with {@code FOR UPDATE SKIP LOCKED}
+ * (H2 falls back to a plain {@code FOR UPDATE}). Needs Docker, so it is excluded from the default build;
+ * run with {@code ./mvnw test -Ppostgres}.
+ */
+@Tag("postgres")
+@Testcontainers
+@SpringBootTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect")
+class PostgresTaskQueueTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Test
+    @DisplayName("Claims skip tasks another transaction has locked instead of waiting")
+    void claimSkipsLockedTasks() throws Exception {
+        taskRepository.deleteAll();
+        Task first = taskService.createTask(Task.builder().title("First in line").build());
+        Task second = taskService.createTask(Task.builder().title("Second in line").build());
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Another worker's claim transaction holds the oldest task
+            Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                taskRepository.findClaimable(Task.TaskStatus.PENDING, Task.TaskPriority.MEDIUM,
+                        PageRequest.of(0, 1));
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            List<Task> claimed = taskService.claimTasks("worker-1", null, 2, Duration.ofMinutes(1));
+
+            assertThat(claimed).extracting(Task::getId).containsExactly(second.getId());
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertThat(taskRepository.findById(first.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.PENDING);
+    }
+}
@@ -0,0 +1,161 @@
+package com.devops.demo;
+
+import com.devops.demo.model.Task;
+import com.devops.demo.model.Task.TaskPriority;
+import com.devops.demo.model.Task.TaskStatus;
+import com.devops.demo.repository.ArchivedTaskRepository;
+import com.devops.demo.repository.TaskRepository;
+import com.devops.demo.service.TaskService;
+import com.devops.demo.shard.TaskShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link TaskService} over three in-memory H2 databases standing in for task shards. The index is
+ * off so that status queries and statistics go to the shards.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-test-0;DB_CLOSE_DELAY=-1",
+        "app.sharding.enabled=true",
+        "app.sharding.shards[0].url=jdbc:h2:mem:shard-test-1;DB_CLOSE_DELAY=-1",
+        "app.sharding.shards[0].username=sa",
+        "app.sharding.shards[1].url=jdbc:h2:mem:shard-test-2;DB_CLOSE_DELAY=-1",
+        "app.sharding.shards[1].username=sa",
+        "app.task-index.enabled=false"
+})
+class ShardedTaskStorageTests {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskShards shards;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        shards.onAllShards(shard -> {
+            taskRepository.deleteAll();
+            archivedTaskRepository.deleteAll();
+            return null;
+        });
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("New tasks go to the shards in turn, and each id names the shard holding it")
+    void idsNameTheirShard() {
+        List<Task> created = createTasks(6);
+
+        assertThat(shards.getShardCount()).isEqualTo(3);
+        assertThat(created).extracting(Task::getId).doesNotHaveDuplicates();
+        assertThat(created.stream().map(task -> shards.shardOf(task.getId())).distinct()).hasSize(3);
+        for (int shard = 0; shard < 3; shard++) {
+            int target = shard;
+            List<Long> stored = shards.onShard(shard, () -> taskRepository.findAll()).stream()
+                    .map(Task::getId)
+                    .toList();
+            assertThat(stored).hasSize(2).allMatch(id -> shards.shardOf(id) == target);
+        }
+    }
+
+    @Test
+    @DisplayName("Listing gathers every shard, newest first")
+    void listingMergesShardsNewestFirst() {
+        List<Task> created = createTasks(7);
+
+        List<Task> all = taskService.getAllTasks();
+
+        List<Long> newestFirst = new ArrayList<>(created.stream().map(Task::getId).toList());
+        Collections.reverse(newestFirst);
+        assertThat(all).extracting(Task::getId).containsExactlyElementsOf(newestFirst);
+        assertThat(all).isSortedAccordingTo(TaskShards.NEWEST_FIRST);
+    }
+
+    @Test
+    @DisplayName("Status queries and statistics add up across shards")
+    void statusAndStatisticsSpanShards() {
+        List<Task> created = createTasks(7);
+
+        List<Task> pending = taskService.getTasksByStatus(TaskStatus.PENDING);
+        assertThat(pending).extracting(Task::getTitle)
+                .containsExactly("Sharded task 6", "Sharded task 4", "Sharded task 2", "Sharded task 0");
+        assertThat(taskService.getTasksByStatusAndPriority(TaskStatus.COMPLETED, TaskPriority.HIGH))
+                .hasSize(3);
+
+        TaskService.TaskStatistics stats = taskService.getStatistics();
+        assertThat(stats.total()).isEqualTo(7);
+        assertThat(stats.pending()).isEqualTo(4);
+        assertThat(stats.completed()).isEqualTo(3);
+        assertThat(taskService.getTasksByIds(created.stream().map(Task::getId).toList()).missing()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Reads, updates, deletes and archiving reach the task's own shard")
+    void writesRouteByTaskId() {
+        List<Task> created = createTasks(6);
+        Task target = created.get(4);
+
+        Task details = Task.builder()
+                .title("Renamed on its shard")
+                .status(TaskStatus.IN_PROGRESS)
+                .priority(TaskPriority.LOW)
+                .build();
+        assertThat(taskService.updateTask(target.getId(), details)).isPresent();
+        assertThat(shards.onShardOf(target.getId(), () -> taskRepository.findById(target.getId())))
+                .hasValueSatisfying(task -> assertThat(task.getTitle()).isEqualTo("Renamed on its shard"));
+        assertThat(taskService.getTaskById(target.getId()))
+                .hasValueSatisfying(task -> assertThat(task.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS));
+
+        assertThat(taskService.deleteTask(created.get(0).getId())).isTrue();
+        assertThat(taskService.getTaskById(created.get(0).getId())).isEmpty();
+        assertThat(taskService.getStatistics().total()).isEqualTo(5);
+
+        // Completed tasks 1, 3 and 5 sit on different shards; one batch collects them all
+        assertThat(taskService.archiveFinishedTasks(LocalDateTime.now().plusMinutes(1), 10)).isEqualTo(3);
+        assertThat(taskService.getArchivedTaskById(created.get(3).getId())).isPresent();
+        assertThat(taskService.getAllTasksIncludingArchived()).hasSize(5);
+    }
+
+    // Even-numbered tasks are pending, odd-numbered ones completed with high priority
+    private List<Task> createTasks(int count) {
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            created.add(taskService.createTask(Task.builder()
+                    .title("Sharded task " + i)
+                    .status(i % 2 == 0 ? TaskStatus.PENDING : TaskStatus.COMPLETED)
+                    .priority(i % 2 == 0 ? TaskPriority.MEDIUM : TaskPriority.HIGH)
+                    .build()));
+            sleepPastClockTick();
+        }
+        return created;
+    }
+
+    // Keeps createdAt distinct so newest-first order is well defined
+    private static void sleepPastClockTick() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
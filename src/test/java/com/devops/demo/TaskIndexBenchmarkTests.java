@@ -0,0 +1,101 @@
+package com.devops.demo;
+
+import com.devops.demo.index.TaskIndex;
+import com.devops.demo.model.Task;
+import com.devops.demo.repository.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the in-memory {@link TaskIndex} with the {@link TaskRepository} queries it replaces.
+ * Excluded from the default build; run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class TaskIndexBenchmarkTests {
+
+    private static final int TASKS = 20_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskIndex taskIndex;
+
+    @BeforeEach
+    void seed() {
+        taskRepository.deleteAll();
+        Task.TaskStatus[] statuses = Task.TaskStatus.values();
+        Task.TaskPriority[] priorities = Task.TaskPriority.values();
+        List<Task> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(Task.builder()
+                    .title("Benchmark " + i)
+                    .status(statuses[i % statuses.length])
+                    .priority(priorities[(i / statuses.length) % priorities.length])
+                    .build());
+        }
+        taskRepository.saveAll(tasks);
+        taskIndex.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        taskRepository.deleteAll();
+        taskIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Status + priority lookups are faster from the index than from the repository")
+    void filteredList() {
+        double repositoryNs = measure(() -> taskRepository
+                .findByStatusAndPriority(Task.TaskStatus.PENDING, Task.TaskPriority.HIGH).size());
+        double indexNs = measure(() -> taskIndex
+                .find(Task.TaskStatus.PENDING, Task.TaskPriority.HIGH).size());
+
+        report("findByStatusAndPriority", repositoryNs, indexNs);
+        assertThat(indexNs).isLessThan(repositoryNs);
+    }
+
+    @Test
+    @DisplayName("Status counts are faster from the index than from the repository")
+    void countByStatus() {
+        double repositoryNs = measure(() -> taskRepository.countByStatus(Task.TaskStatus.COMPLETED));
+        double indexNs = measure(() -> taskIndex.count(Task.TaskStatus.COMPLETED, null));
+
+        report("countByStatus", repositoryNs, indexNs);
+        assertThat(indexNs).isLessThan(repositoryNs);
+    }
+
+    private static double measure(LongSupplier operation) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.getAsLong();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isPositive();
+        return (double) elapsed / ITERATIONS;
+    }
+
+    private static void report(String operation, double repositoryNs, double indexNs) {
+        System.out.printf("%-24s repository %,12.0f ns/op   index %,10.0f ns/op   %6.1fx%n",
+                operation, repositoryNs, indexNs, repositoryNs / indexNs);
+    }
+}
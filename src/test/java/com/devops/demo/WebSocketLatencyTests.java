@@ -0,0 +1,146 @@
+package com.devops.demo;
+
+import com.devops.demo.websocket.WebSocketSessionTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Connects real STOMP clients to {@code /ws} and checks the round-trip probes, the per-session
+ * replies on {@code /user/queue/...} and the slowest-session ranking.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.websocket.probe.interval=PT0.2S")
+class WebSocketLatencyTests {
+
+    private static final long SLOW_REPLY_MILLIS = 150;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebSocketSessionTracker sessionTracker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+    private final List<StompSession> sessions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessions.forEach(StompSession::disconnect);
+        client.stop();
+    }
+
+    @Test
+    @DisplayName("Pings are answered to the sender only")
+    void pingRepliesToSender() throws Exception {
+        StompSession sender = connect();
+        StompSession other = connect();
+        BlockingQueue<Map<?, ?>> senderPongs = new LinkedBlockingQueue<>();
+        BlockingQueue<Map<?, ?>> otherPongs = new LinkedBlockingQueue<>();
+        sender.subscribe("/user/queue/pong", handler(senderPongs::add));
+        other.subscribe("/user/queue/pong", handler(otherPongs::add));
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        sender.send("/app/ping", Map.of("n", 1));
+
+        Map<?, ?> pong = senderPongs.poll(5, TimeUnit.SECONDS);
+        assertThat(pong).isNotNull();
+        assertThat(pong.get("received")).isEqualTo(Map.of("n", 1));
+        assertThat(otherPongs.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("Probes measure each session's round trip and rank the slowest first")
+    void probesRankSlowestSessions() throws Exception {
+        Timer rtt = meterRegistry.get("websocket.rtt").timer();
+        long measuredBefore = rtt.count();
+
+        StompSession fast = connect();
+        fast.subscribe("/user/queue/probe",
+                handler(probe -> fast.send("/app/probe", Map.of("id", probe.get("id")))));
+        StompSession slow = connect();
+        slow.subscribe("/user/queue/probe", handler(probe -> CompletableFuture.runAsync(
+                () -> slow.send("/app/probe", Map.of("id", probe.get("id"))),
+                CompletableFuture.delayedExecutor(SLOW_REPLY_MILLIS, TimeUnit.MILLISECONDS))));
+        // Never answers, so its probes are counted as lost
+        StompSession silent = connect();
+        silent.subscribe("/user/queue/probe", handler(probe -> {}));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        List<WebSocketSessionTracker.SessionLatency> slowest;
+        do {
+            TimeUnit.MILLISECONDS.sleep(200);
+            slowest = sessionTracker.slowest(10);
+        } while (System.nanoTime() < deadline
+                && (slowest.stream().filter(session -> session.p50RttMillis() != null).count() < 2
+                || slowest.stream().noneMatch(session -> session.probesLost() > 0)));
+
+        assertThat(slowest).hasSizeGreaterThanOrEqualTo(3);
+        assertThat(slowest.get(0).smoothedRttMillis()).isGreaterThanOrEqualTo((double) SLOW_REPLY_MILLIS);
+        assertThat(slowest.get(1).smoothedRttMillis()).isLessThan(slowest.get(0).smoothedRttMillis());
+        // Unmeasured sessions come last
+        assertThat(slowest.subList(2, slowest.size()))
+                .allSatisfy(session -> assertThat(session.smoothedRttMillis()).isNull())
+                .anySatisfy(session -> {
+                    assertThat(session.probed()).isTrue();
+                    assertThat(session.probesLost()).isPositive();
+                    assertThat(session.outboundMessages()).isPositive();
+                });
+        assertThat(rtt.count()).isGreaterThan(measuredBefore);
+        assertThat(meterRegistry.get("websocket.sessions").gauge().value()).isGreaterThanOrEqualTo(3);
+    }
+
+    private StompSession connect() throws Exception {
+        StompSession session = client.connectAsync("ws://localhost:" + port + "/ws", new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+        sessions.add(session);
+        return session;
+    }
+
+    private static StompFrameHandler handler(Consumer<Map<?, ?>> consumer) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                consumer.accept((Map<?, ?>) payload);
+            }
+        };
+    }
+}
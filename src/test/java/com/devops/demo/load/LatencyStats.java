@@ -0,0 +1,105 @@
+package com.devops.demo.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes per operation, counted only inside the measurement window so the warmup does
+ * not skew the percentiles.
+ */
+public class LatencyStats {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private volatile long measureFrom = Long.MAX_VALUE;
+    private volatile long measureUntil = Long.MIN_VALUE;
+
+    /**
+     * Sets the measurement window as {@link System#nanoTime()} values; nothing is measured before this.
+     */
+    public void measureBetween(long from, long until) {
+        this.measureFrom = from;
+        this.measureUntil = until;
+    }
+
+    /**
+     * Records a successful operation that was due at {@code intendedStart}. Measuring from the intended
+     * rather than the actual start keeps requests delayed by a slow predecessor from hiding their wait.
+     */
+    public void success(String operation, long intendedStart, long end) {
+        if (measured(intendedStart)) {
+            operation(operation).latencies.recordValue(Math.max(0, end - intendedStart));
+        }
+    }
+
+    /**
+     * Records an operation regardless of the measurement window, for one-off setup such as opening
+     * STOMP sessions.
+     */
+    public void record(String operation, long start, long end) {
+        operation(operation).latencies.recordValue(Math.max(0, end - start));
+    }
+
+    /** Records a request the application turned away with 429. */
+    public void rejected(String operation, long intendedStart) {
+        if (measured(intendedStart)) {
+            operation(operation).rejected.increment();
+        }
+    }
+
+    public void error(String operation, long intendedStart) {
+        if (measured(intendedStart)) {
+            operation(operation).errors.increment();
+        }
+    }
+
+    public boolean measured(long nanos) {
+        return nanos >= measureFrom && nanos < measureUntil;
+    }
+
+    /** Per-operation results over {@code window}, sorted by name. */
+    public Map<String, Summary> summarize(Duration window) {
+        double seconds = window.toNanos() / 1e9;
+        Map<String, Summary> summaries = new TreeMap<>();
+        operations.forEach((name, operation) -> {
+            Histogram histogram = operation.latencies.copy();
+            long count = histogram.getTotalCount();
+            summaries.put(name, new Summary(count, operation.rejected.sum(), operation.errors.sum(),
+                    count / seconds,
+                    millis(histogram.getMean()),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        });
+        return summaries;
+    }
+
+    /**
+     * Results for one operation; latencies in milliseconds, throughput in successful operations per second.
+     */
+    public record Summary(long count, long rejected, long errors, double throughput, double meanMs,
+                          double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {}
+
+    private Operation operation(String name) {
+        return operations.computeIfAbsent(name, key -> new Operation());
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / NANOS_PER_MILLI * 1000) / 1000.0;
+    }
+
+    private static final class Operation {
+        final Histogram latencies = new ConcurrentHistogram(3);
+        final LongAdder rejected = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,43 @@
+package com.devops.demo.load;
+
+import java.time.Duration;
+
+/**
+ * Shape of one load-test run. Every value can be overridden with a {@code load.*} system property, e.g.
+ * {@code ./mvnw test -Pload -Dload.rate=500 -Dload.duration=PT2M}; the same seed replays the same
+ * sequence of operations.
+ *
+ * @param baseUrl          application under test, {@code null} for the embedded one
+ * @param warmup           traffic before this is not measured
+ * @param duration         measured traffic after the warmup
+ * @param users            virtual REST users (one address, so they share an admission bucket)
+ * @param rate             REST operations per second across all users
+ * @param statisticsPoll   interval between {@code /statistics} polls
+ * @param subscribers      STOMP sessions subscribed to {@code /topic/metrics} and {@code /topic/tasks}
+ * @param stompPublish     interval between task creations sent over STOMP
+ * @param seed             seed for the operation mix
+ */
+public record LoadProfile(String baseUrl, Duration warmup, Duration duration, int users, int rate,
+                          Duration statisticsPoll, int subscribers, Duration stompPublish, long seed) {
+
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                System.getProperty("load.base-url"),
+                duration("load.warmup", "PT5S"),
+                duration("load.duration", "PT30S"),
+                Integer.getInteger("load.users", 16),
+                Integer.getInteger("load.rate", 200),
+                duration("load.statistics-poll", "PT0.2S"),
+                Integer.getInteger("load.subscribers", 50),
+                duration("load.stomp-publish", "PT0.1S"),
+                Long.getLong("load.seed", 42L));
+    }
+
+    public Duration total() {
+        return warmup.plus(duration);
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return Duration.parse(System.getProperty(property, defaultValue));
+    }
+}
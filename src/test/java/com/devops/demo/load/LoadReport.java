@@ -0,0 +1,83 @@
+package com.devops.demo.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Results of one run, written as {@code report.json} for tooling and {@code report.html} for people.
+ */
+public record LoadReport(Instant startedAt, String target, LoadProfile profile,
+                         Map<String, LatencyStats.Summary> operations, StompScenario.Result stomp) {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        JSON.writeValue(directory.resolve("report.json").toFile(), this);
+        Files.writeString(directory.resolve("report.html"), html());
+    }
+
+    private String html() {
+        StringBuilder html = new StringBuilder("""
+                <!DOCTYPE html>
+                <html>
+                <head>
+                <meta charset="utf-8">
+                <title>Load test report</title>
+                <style>
+                  body { font-family: sans-serif; margin: 2em; }
+                  table { border-collapse: collapse; margin-bottom: 2em; }
+                  th, td { border: 1px solid #ccc; padding: 4px 10px; text-align: right; }
+                  th:first-child, td:first-child { text-align: left; }
+                </style>
+                </head>
+                <body>
+                """);
+        html.append("<h1>Load test report</h1>\n")
+                .append("<p>").append(escape(target)).append(", started ").append(startedAt)
+                .append("; ").append(profile.users()).append(" users at ").append(profile.rate())
+                .append(" req/s, ").append(profile.subscribers()).append(" STOMP subscribers, warmup ")
+                .append(profile.warmup()).append(", measured ").append(profile.duration())
+                .append(", seed ").append(profile.seed()).append("</p>\n");
+
+        html.append("<h2>Operations</h2>\n<table>\n<tr><th>Operation</th><th>OK</th><th>Rejected</th>"
+                + "<th>Errors</th><th>Throughput/s</th><th>Mean ms</th><th>p50 ms</th><th>p90 ms</th>"
+                + "<th>p99 ms</th><th>p99.9 ms</th><th>Max ms</th></tr>\n");
+        operations.forEach((name, s) -> html.append("<tr><td>").append(escape(name)).append("</td>")
+                .append(cells(s.count(), s.rejected(), s.errors(), String.format("%.1f", s.throughput()),
+                        s.meanMs(), s.p50Ms(), s.p90Ms(), s.p99Ms(), s.p999Ms(), s.maxMs()))
+                .append("</tr>\n"));
+        html.append("</table>\n");
+
+        html.append("<h2>STOMP</h2>\n<table>\n<tr><th>Sessions</th><th>Failed</th><th>Tasks published</th>"
+                + "<th>Task broadcasts expected</th><th>Delivered</th><th>Rejected</th>"
+                + "<th>Metrics broadcasts</th></tr>\n<tr><td>")
+                .append(stomp.connected()).append("</td>")
+                .append(cells(stomp.failed(), stomp.published(), stomp.tasksExpected(), stomp.tasksDelivered(),
+                        stomp.rejected(), stomp.metricsDelivered()))
+                .append("</tr>\n</table>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static String cells(Object... values) {
+        StringBuilder cells = new StringBuilder();
+        for (Object value : values) {
+            cells.append("<td>").append(value).append("</td>");
+        }
+        return cells.toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
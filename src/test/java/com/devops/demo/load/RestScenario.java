@@ -0,0 +1,206 @@
+package com.devops.demo.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Mixed task CRUD on {@code /api/v1/tasks} plus a {@code /statistics} poller. Each virtual user follows a
+ * fixed schedule and latencies are measured from when a request was due, so a request held up behind a
+ * slow predecessor still counts its wait.
+ */
+public class RestScenario {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_OWNED_TASKS = 100;
+
+    private static final String[] STATUSES = {"PENDING", "IN_PROGRESS", "COMPLETED", "CANCELLED"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    private final LoadProfile profile;
+    private final URI tasksUri;
+    private final LatencyStats stats;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+
+    public RestScenario(LoadProfile profile, String baseUrl, LatencyStats stats) {
+        this.profile = profile;
+        this.tasksUri = URI.create(baseUrl + "/api/v1/tasks");
+        this.stats = stats;
+    }
+
+    /**
+     * Runs all users and the statistics poller until {@code deadline} (a {@link System#nanoTime()} value).
+     */
+    public void run(long start, long deadline) throws Exception {
+        long userInterval = TimeUnit.SECONDS.toNanos(profile.users()) / profile.rate();
+        ExecutorService executor = Executors.newFixedThreadPool(profile.users() + 1);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int user = 0; user < profile.users(); user++) {
+                // Stagger users across one interval so requests do not arrive in lockstep
+                long offset = userInterval * user / profile.users();
+                workers.add(executor.submit(new VirtualUser(user, start + offset, userInterval, deadline)));
+            }
+            workers.add(executor.submit(() -> pollStatistics(start, deadline)));
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Void pollStatistics(long start, long deadline) {
+        long interval = profile.statisticsPoll().toNanos();
+        for (long due = start; due < deadline && !Thread.currentThread().isInterrupted(); due += interval) {
+            sleepUntil(due);
+            send("statistics", due, HttpRequest.newBuilder(URI.create(tasksUri + "/statistics")).GET());
+        }
+        return null;
+    }
+
+    private final class VirtualUser implements Callable<Void> {
+        private final String clientId;
+        private final Random random;
+        private final long start;
+        private final long interval;
+        private final long deadline;
+        private final List<Long> owned = new ArrayList<>();
+
+        VirtualUser(int user, long start, long interval, long deadline) {
+            this.clientId = "load-user-" + user;
+            this.random = new Random(profile.seed() + user);
+            this.start = start;
+            this.interval = interval;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Void call() {
+            for (long due = start; due < deadline && !Thread.currentThread().isInterrupted(); due += interval) {
+                sleepUntil(due);
+                next(due);
+            }
+            return null;
+        }
+
+        // create 20%, get 35%, update 20%, list by status 15%, delete 10%
+        private void next(long due) {
+            if (owned.isEmpty()) {
+                create(due);
+                return;
+            }
+            int roll = random.nextInt(100);
+            if (roll < 20) {
+                if (owned.size() < MAX_OWNED_TASKS) {
+                    create(due);
+                } else {
+                    delete(due);
+                }
+            } else if (roll < 55) {
+                send("get", due, request(tasksUri + "/" + pick()).GET());
+            } else if (roll < 75) {
+                update(due);
+            } else if (roll < 90) {
+                send("list", due, request(tasksUri + "/status/" + STATUSES[random.nextInt(STATUSES.length)]).GET());
+            } else {
+                delete(due);
+            }
+        }
+
+        private void create(long due) {
+            HttpResponse<String> response = send("create", due, request(tasksUri.toString())
+                    .POST(json(Map.of("title", clientId + " task " + due,
+                            "priority", PRIORITIES[random.nextInt(PRIORITIES.length)]))));
+            if (response != null && response.statusCode() == 201) {
+                try {
+                    owned.add(objectMapper.readTree(response.body()).get("id").asLong());
+                } catch (IOException e) {
+                    stats.error("create", due);
+                }
+            }
+        }
+
+        private void update(long due) {
+            long id = pick();
+            send("update", due, request(tasksUri + "/" + id).PUT(json(Map.of(
+                    "title", clientId + " task " + id,
+                    "status", STATUSES[random.nextInt(STATUSES.length)],
+                    "priority", PRIORITIES[random.nextInt(PRIORITIES.length)]))));
+        }
+
+        private void delete(long due) {
+            Long id = owned.remove(random.nextInt(owned.size()));
+            HttpResponse<String> response = send("delete", due, request(tasksUri + "/" + id).DELETE());
+            if (response == null || response.statusCode() == 429) {
+                // Still exists; try again later
+                owned.add(id);
+            }
+        }
+
+        private long pick() {
+            return owned.get(random.nextInt(owned.size()));
+        }
+
+        private HttpRequest.Builder request(String uri) {
+            return HttpRequest.newBuilder(URI.create(uri))
+                    .header("Content-Type", "application/json");
+        }
+    }
+
+    private HttpResponse<String> send(String operation, long due, HttpRequest.Builder request) {
+        try {
+            HttpResponse<String> response = client.send(request.timeout(REQUEST_TIMEOUT).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            long end = System.nanoTime();
+            int status = response.statusCode();
+            if (status == 429) {
+                stats.rejected(operation, due);
+            } else if (status >= 200 && status < 300) {
+                stats.success(operation, due, end);
+            } else {
+                stats.error(operation, due);
+            }
+            return response;
+        } catch (IOException e) {
+            stats.error(operation, due);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest.BodyPublisher json(Map<String, Object> body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void sleepUntil(long due) {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
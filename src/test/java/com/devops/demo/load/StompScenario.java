@@ -0,0 +1,149 @@
+package com.devops.demo.load;
+
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Opens {@link LoadProfile#subscribers()} STOMP sessions on {@code /ws}, each subscribed to
+ * {@code /topic/metrics} and {@code /topic/tasks}, while one more session creates tasks through
+ * {@code /app/task/create}. Task titles carry the send time, so every subscriber can time the full
+ * path from the create message to the broadcast reaching it ({@code stomp.tasks}).
+ */
+public class StompScenario implements AutoCloseable {
+
+    private static final String TITLE_PREFIX = "stomp-load ";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    // Broadcasts still in flight at the deadline are given this long to arrive
+    private static final Duration DRAIN = Duration.ofSeconds(2);
+
+    private final LoadProfile profile;
+    private final String url;
+    private final LatencyStats stats;
+    private final WebSocketStompClient client;
+
+    private final LongAdder metricsDelivered = new LongAdder();
+    private final LongAdder tasksDelivered = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final List<StompSession> sessions = new ArrayList<>();
+    private StompSession publisher;
+    private int failed;
+
+    public StompScenario(LoadProfile profile, String baseUrl, LatencyStats stats) {
+        this.profile = profile;
+        this.url = baseUrl.replaceFirst("^http", "ws") + "/ws";
+        this.stats = stats;
+        this.client = new WebSocketStompClient(new StandardWebSocketClient());
+        this.client.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    /**
+     * Opens the subscriber sessions and the publisher.
+     */
+    public void connect() throws InterruptedException {
+        for (int i = 0; i < profile.subscribers(); i++) {
+            StompSession session = openSession();
+            if (session == null) {
+                failed++;
+                continue;
+            }
+            sessions.add(session);
+            session.subscribe("/topic/metrics", handler(payload -> metricsDelivered.increment()));
+            session.subscribe("/topic/tasks", handler(this::onTaskBroadcast));
+        }
+        publisher = openSession();
+        if (publisher == null) {
+            throw new IllegalStateException("Could not connect the STOMP publisher to " + url);
+        }
+        publisher.subscribe("/user/queue/errors", handler(payload -> rejected.increment()));
+    }
+
+    /**
+     * Publishes until {@code deadline} (a {@link System#nanoTime()} value), then waits for the last
+     * broadcasts to arrive.
+     */
+    public Result run(long start, long deadline) throws InterruptedException {
+        long published = 0;
+        long interval = profile.stompPublish().toNanos();
+        for (long due = start; due < deadline; due += interval) {
+            RestScenario.sleepUntil(due);
+            long sent = System.nanoTime();
+            publisher.send("/app/task/create", Map.of("title", TITLE_PREFIX + sent));
+            if (stats.measured(sent)) {
+                published++;
+            }
+        }
+        TimeUnit.NANOSECONDS.sleep(DRAIN.toNanos());
+        return new Result(sessions.size(), failed, published, published * sessions.size(),
+                tasksDelivered.sum(), rejected.sum(), metricsDelivered.sum());
+    }
+
+    @Override
+    public void close() {
+        sessions.forEach(StompSession::disconnect);
+        if (publisher != null) {
+            publisher.disconnect();
+        }
+        client.stop();
+    }
+
+    /**
+     * Session counts and message deliveries; {@code tasksExpected} is every measured task creation
+     * reaching every connected subscriber.
+     */
+    public record Result(int connected, int failed, long published, long tasksExpected, long tasksDelivered,
+                         long rejected, long metricsDelivered) {}
+
+    private void onTaskBroadcast(Map<?, ?> payload) {
+        long received = System.nanoTime();
+        if (payload.get("task") instanceof Map<?, ?> task
+                && task.get("title") instanceof String title && title.startsWith(TITLE_PREFIX)) {
+            long sent = Long.parseLong(title.substring(TITLE_PREFIX.length()));
+            if (stats.measured(sent)) {
+                tasksDelivered.increment();
+                stats.success("stomp.tasks", sent, received);
+            }
+        }
+    }
+
+    private StompSession openSession() throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            StompSession session = client.connectAsync(url, new StompSessionHandlerAdapter() {})
+                    .get(CONNECT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            stats.record("stomp.connect", start, System.nanoTime());
+            return session;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static StompFrameHandler handler(Consumer<Map<?, ?>> consumer) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                consumer.accept((Map<?, ?>) payload);
+            }
+        };
+    }
+}